@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.benchmarks;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the time which the SvgLoader spends per SVG element when converting
+ * an already loaded document into JavaFX nodes.
+ * <p>
+ * The flat and the nested synthetic documents of the {@link SvgCorpus} are
+ * created with {@link #ELEMENTS} elements (plus the root element and, for the
+ * nested document, the innermost rectangle), so that the result of
+ * {@link #convert()} is the average time per element, both for wide and for
+ * deep documents.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SvgConvertBenchmark {
+
+    /**
+     * The number of elements of each document.
+     */
+    public static final int ELEMENTS = 2000;
+
+    /**
+     * The type of the synthetic document, see {@link SvgCorpus}.
+     */
+    @Param({"flat", "nested"})
+    public String structure;
+
+    private SvgLoader loader;
+    private SVGOMDocument loadedDocument;
+
+
+    /**
+     * Loads the document.
+     *
+     * @throws IOException if the document could not be created.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] content = SvgCorpus.getDocument(structure + ":" + ELEMENTS);
+
+        loader = new SvgLoader();
+        loader.setBuildRenderTree(false);
+        loadedDocument = loader.loadSvgDocument(new ByteArrayInputStream(content));
+        if (loadedDocument == null) {
+            throw new IllegalStateException("Could not load " + structure);
+        }
+    }
+
+
+    /**
+     * @return The JavaFX nodes of the document which has been loaded during setup.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ELEMENTS)
+    public Group convert() {
+        return loader.convertSvgDocument(loadedDocument);
+    }
+}
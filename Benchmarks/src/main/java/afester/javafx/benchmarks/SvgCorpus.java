@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+
+/**
+ * The SVG documents which are used by the benchmarks.
+ * <p>
+ * Documents are either one of the SVG files of the examples, which are copied
+ * into the benchmark jar file by the build, or synthetic documents which are
+ * generated on the fly. The names of the synthetic documents have the form
+ * <code>type:size</code>:</p>
+ * <ul>
+ * <li><code>flat:n</code> - n paths which are direct children of the root element.</li>
+ * <li><code>nested:n</code> - n groups, each nested in the previous one, with a
+ *     rectangle in the innermost group.</li>
+ * <li><code>styled:n</code> - n groups with a rectangle and a path each, which use
+ *     inherited styles, style attributes and n/10 linear gradients.</li>
+ * </ul>
+ */
+final class SvgCorpus {
+
+    private static final String HEADER =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+          + "<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\"\n"
+          + "     width=\"1000\" height=\"1000\" viewBox=\"0 0 1000 1000\">\n";
+
+    private SvgCorpus() {
+    }
+
+
+    /**
+     * @param name The name of the document, see the class description.
+     *
+     * @return The content of the document.
+     *
+     * @throws IOException if the document could not be read.
+     */
+    static byte[] getDocument(String name) throws IOException {
+        int separator = name.indexOf(':');
+        if (separator == -1) {
+            return readResource(name);
+        }
+
+        String type = name.substring(0, separator);
+        int size = Integer.parseInt(name.substring(separator + 1));
+        switch (type) {
+          case "flat"   : return createFlatDocument(size);
+          case "nested" : return createNestedDocument(size);
+          case "styled" : return createStyledDocument(size);
+
+          default :
+              throw new IllegalArgumentException("Unknown synthetic document " + name);
+        }
+    }
+
+
+    private static byte[] readResource(String fileName) throws IOException {
+        try (InputStream input = SvgCorpus.class.getResourceAsStream("data/" + fileName)) {
+            if (input == null) {
+                throw new IOException("Corpus file not found: " + fileName);
+            }
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                result.write(buffer, 0, count);
+            }
+            return result.toByteArray();
+        }
+    }
+
+
+    private static byte[] createFlatDocument(int size) {
+        StringBuilder result = new StringBuilder(HEADER);
+        for (int i = 0;  i < size;  i++) {
+            double x = i % 100 * 10;
+            double y = i / 100 % 100 * 10;
+            result.append(String.format(Locale.ROOT,
+                    "  <path id=\"p%d\" d=\"M %.1f,%.1f l 8,0 0,8 -8,0 z\"\n"
+                  + "        style=\"fill:#%06x;stroke:#000000;stroke-width:0.5\"/>\n",
+                    i, x, y, i * 2654435761L & 0xffffff));
+        }
+        result.append("</svg>\n");
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    private static byte[] createNestedDocument(int size) {
+        StringBuilder result = new StringBuilder(HEADER);
+        for (int i = 0;  i < size;  i++) {
+            result.append("<g id=\"g").append(i).append("\">\n");
+        }
+        result.append("<rect id=\"r\" x=\"10\" y=\"10\" width=\"100\" height=\"100\""
+                    + " fill=\"#ff0000\"/>\n");
+        for (int i = 0;  i < size;  i++) {
+            result.append("</g>\n");
+        }
+        result.append("</svg>\n");
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    private static byte[] createStyledDocument(int size) {
+        final int gradients = Math.max(1, size / 10);
+
+        StringBuilder result = new StringBuilder(HEADER);
+        result.append("  <defs>\n");
+        for (int i = 0;  i < gradients;  i++) {
+            result.append(String.format(Locale.ROOT,
+                    "    <linearGradient id=\"lg%d\" x1=\"0\" y1=\"0\" x2=\"1\" y2=\"1\">\n"
+                  + "      <stop offset=\"0\" style=\"stop-color:#%06x;stop-opacity:1\"/>\n"
+                  + "      <stop offset=\"1\" style=\"stop-color:#ffffff;stop-opacity:0.5\"/>\n"
+                  + "    </linearGradient>\n",
+                    i, i * 2654435761L & 0xffffff));
+        }
+        result.append("  </defs>\n");
+
+        for (int i = 0;  i < size;  i++) {
+            double x = i % 50 * 20;
+            double y = i / 50 % 50 * 20;
+            result.append(String.format(Locale.ROOT,
+                    "  <g id=\"g%d\" stroke=\"#000000\" stroke-width=\"%d\""
+                  + " transform=\"translate(%.1f,%.1f)\">\n"
+                  + "    <rect x=\"1\" y=\"1\" width=\"16\" height=\"8\" fill=\"url(#lg%d)\"/>\n"
+                  + "    <path d=\"M 1,10 l 16,0 0,8 -16,0 z\""
+                  + " style=\"fill:#%06x;fill-opacity:0.8;stroke-dasharray:2,1\"/>\n"
+                  + "  </g>\n",
+                    i, 1 + i % 3, x, y, i % gradients, i * 40503L & 0xffffff));
+        }
+        result.append("</svg>\n");
+        return result.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.benchmarks;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the throughput of the phases of loading an SVG document:
+ * <ul>
+ * <li>{@link #loadSvgDocument()} - parsing the document and setting up its
+ *     CSS engine (including the GVT tree).</li>
+ * <li>{@link #convert()} - converting an already loaded document into JavaFX nodes.</li>
+ * <li>{@link #loadSvg()} - both phases together.</li>
+ * <li>{@link #loadSvgStreaming()} - loading the document with the streaming parser.</li>
+ * </ul>
+ * <p>
+ * The documents are read into memory once, so that the results do not
+ * include any file I/O. Run with <code>-prof gc</code> to also report the
+ * allocation rate.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SvgLoaderBenchmark {
+
+    /**
+     * The document to load, see {@link SvgCorpus}.
+     */
+    @Param({"Ghostscript_Tiger.svg", "Hammer.svg", "Bmw_Z_Top_View_clip_art.svg",
+            "lineargradient.svg", "radialgradient.svg", "gradtrans.svg",
+            "flat:5000", "nested:500", "styled:1000"})
+    public String document;
+
+    private byte[] content;
+    private SvgLoader loader;
+    private SvgLoader streamingLoader;
+    private SVGOMDocument loadedDocument;
+
+
+    /**
+     * Reads the document and prepares the loaders.
+     *
+     * @throws IOException if the document could not be read.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        content = SvgCorpus.getDocument(document);
+
+        loader = new SvgLoader();
+        streamingLoader = new SvgLoader();
+        streamingLoader.setUseStreamingParser(true);
+
+        loadedDocument = loader.loadSvgDocument(new ByteArrayInputStream(content));
+        if (loadedDocument == null) {
+            throw new IllegalStateException("Could not load " + document);
+        }
+    }
+
+
+    /**
+     * @return The loaded document.
+     */
+    @Benchmark
+    public SVGOMDocument loadSvgDocument() {
+        return loader.loadSvgDocument(new ByteArrayInputStream(content));
+    }
+
+
+    /**
+     * @return The JavaFX nodes of the document which has been loaded during setup.
+     */
+    @Benchmark
+    public Group convert() {
+        return loader.convertSvgDocument(loadedDocument);
+    }
+
+
+    /**
+     * @return The JavaFX nodes of the document.
+     */
+    @Benchmark
+    public Group loadSvg() {
+        return loader.loadSvg(new ByteArrayInputStream(content));
+    }
+
+
+    /**
+     * @return The JavaFX nodes of the document.
+     */
+    @Benchmark
+    public Group loadSvgStreaming() {
+        return streamingLoader.loadSvg(new ByteArrayInputStream(content));
+    }
+}
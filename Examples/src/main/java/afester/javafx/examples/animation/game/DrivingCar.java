@@ -17,13 +17,14 @@
 package afester.javafx.examples.animation.game;
 
 import afester.javafx.examples.Example;
-import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgSceneCache;
 import afester.javafx.tools.KeyStateManager;
 
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Bounds;
 import javafx.scene.Group;
 import javafx.scene.Scene;
@@ -33,7 +34,7 @@ import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import javafx.util.Duration;
 
-import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 
 @Example(desc = "Game example: Driving Car", 
@@ -69,19 +70,38 @@ public class DrivingCar extends Application {
     @Override
     public void start(Stage stage) {
 
+        // load the drawings in the background and start the game when both are available
+        SvgSceneCache cache = SvgSceneCache.getDefault();
+        CompletableFuture<Group> sceneLoad = CompletableFuture.supplyAsync(
+                () -> cache.load(getClass().getResource("scene.svg")));
+        CompletableFuture<Group> carLoad = CompletableFuture.supplyAsync(
+                () -> cache.load(getClass().getResource("Bmw_Z_Top_View_clip_art.svg")));
+        sceneLoad.thenAcceptBothAsync(carLoad, (sceneNode, carNode) -> {
+            if (sceneNode == null || carNode == null) {
+                throw new IllegalStateException("Could not load the drawings of the game");
+            }
+            scene = sceneNode;
+            car = carNode;
+            startGame(stage);
+        }, Platform::runLater).exceptionally(e -> {
+            // without the drawings, the game can not be shown at all
+            e.printStackTrace();
+            Platform.exit();
+            return null;
+        });
+    }
+
+
+    private void startGame(Stage stage) {
+
         // setup the scene (road)
-        InputStream svgFile = getClass().getResourceAsStream("scene.svg");
-        SvgLoader loader = new SvgLoader();
-        scene = loader.loadSvg(svgFile);
         sceneWidth = scene.getBoundsInParent().getWidth();
         sceneHeight = scene.getBoundsInParent().getHeight();
         viewHeight = sceneHeight / 2;
         scene.setTranslateY(-viewHeight + 10);
         scene.setTranslateX(10);
 
-        // load the car
-        svgFile = getClass().getResourceAsStream("Bmw_Z_Top_View_clip_art.svg");
-        car = loader.loadSvg(svgFile);
+        // setup the car
         car.setTranslateY(100);
         car.setTranslateX(200);
 
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.examples.svg;
+
+import afester.javafx.components.SvgIcon;
+import afester.javafx.examples.Example;
+import javafx.application.Application;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.DoubleBinding;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Slider;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.net.URL;
+
+@Example(desc = "Using SvgIcon to show many SVG images as button graphics",
+         cat  = "FranzXaver")
+public class SvgIconSample extends Application {
+
+    private static final String[] ICONS = {
+        "Ghostscript_Tiger.svg", "Hammer.svg", "Bmw_Z_Top_View_clip_art.svg",
+        "ellipse.svg", "radialgradient.svg"
+    };
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    public void run() {
+        start(new Stage());
+    }
+
+    @Override
+    public void start(Stage primaryStage) {
+        primaryStage.setTitle("SvgIcon sample");
+
+        // The slider changes the size of all icons, in steps of 8 pixels
+        Slider sizeSlider = new Slider(16, 64, 32);
+        DoubleBinding iconSize = Bindings.createDoubleBinding(
+                () -> Math.rint(sizeSlider.getValue() / 8) * 8, sizeSlider.valueProperty());
+
+        // Each document is rendered once per size, and the image
+        // is shared by all icons which show the same document
+        FlowPane toolbar = new FlowPane();
+        for (int i = 0;  i < 200;  i++) {
+            URL url = getClass().getResource(
+                    "/afester/javafx/examples/data/" + ICONS[i % ICONS.length]);
+            SvgIcon icon = new SvgIcon(url, 0, 32);
+            icon.fitHeightProperty().bind(iconSize);
+
+            Button button = new Button();
+            button.setGraphic(icon);
+            toolbar.getChildren().add(button);
+        }
+
+        VBox layout = new VBox(sizeSlider, toolbar);
+        Scene scene = new Scene(layout, 800, 600);
+        primaryStage.setScene(scene);
+        primaryStage.show();
+    }
+}
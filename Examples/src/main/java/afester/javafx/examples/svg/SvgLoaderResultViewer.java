@@ -19,14 +19,17 @@ package afester.javafx.examples.svg;
 import afester.javafx.components.SnapSlider;
 import afester.javafx.examples.Example;
 import afester.javafx.svg.GradientPolicy;
+import afester.javafx.svg.SvgLiveReload;
 import afester.javafx.svg.SvgLoader;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -35,15 +38,23 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Example(desc = "Using SvgLoader to render an SVG file", 
          cat  = "FranzXaver")
@@ -77,6 +88,23 @@ public class SvgLoaderResultViewer extends Application {
     private SvgLoader loader = new SvgLoader();
     private String currentFile;
 
+    // the file which has been opened from the file system, or null if
+    // one of the example files is shown
+    private Path currentPath;
+
+    // SVG files are loaded in the background so that the UI stays responsive
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread result = new Thread(r, "SvgLoader");
+        result.setDaemon(true);
+        return result;
+    });
+    private CompletableFuture<Group> pendingLoad;
+
+    // reloads the current image when the file which has been opened from
+    // the file system is modified
+    private SvgLiveReload liveReload;
+    private Stage stage;
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -88,6 +116,7 @@ public class SvgLoaderResultViewer extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("SVGLoader result viewer");
+        stage = primaryStage;
 
         ListView<String> listPanel = createListPanel();
         Pane optionsPanel = createOptionsPanel();
@@ -99,7 +128,15 @@ public class SvgLoaderResultViewer extends Application {
         mainLayout.getChildren().add(leftPanel);
         mainLayout.getChildren().add(imageLayout);
 
-        listPanel.getSelectionModel().select(0);
+        // a file can be given on the command line, for example to edit it
+        // with an SVG editor while it is shown
+        List<String> args = getParameters() == null ? new ArrayList<>()
+                                                    : getParameters().getUnnamed();
+        if (args.isEmpty()) {
+            listPanel.getSelectionModel().select(0);
+        } else {
+            openFile(Paths.get(args.get(0)));
+        }
 
         // show the generated scene graph
         Scene scene = new Scene(mainLayout, 800, 600);
@@ -137,7 +174,7 @@ public class SvgLoaderResultViewer extends Application {
         comboBox.getSelectionModel().select(GradientPolicy.USE_SUPPORTED);
         comboBox.setOnAction(e -> {
             loader.setGradientTransformPolicy(comboBox.getSelectionModel().getSelectedItem());
-            selectFile(currentFile);
+            reload();
         }); 
         gradientPolicy.getChildren().add(comboBox);
 
@@ -145,9 +182,28 @@ public class SvgLoaderResultViewer extends Application {
         CheckBox showViewport = new CheckBox("Show Viewport");
         showViewport.setOnAction(e -> {
             loader.setAddViewboxRect(showViewport.isSelected());
-            selectFile(currentFile);
+            reload();
+        } );
+
+        // use streaming parser
+        CheckBox useStreaming = new CheckBox("Use streaming parser");
+        useStreaming.setOnAction(e -> {
+            loader.setUseStreamingParser(useStreaming.isSelected());
+            reload();
         } );
 
+        // open a file from the file system, which is reloaded when it is modified
+        Button openFile = new Button("Open file ...");
+        openFile.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Open SVG file");
+            chooser.getExtensionFilters().add(new ExtensionFilter("SVG files", "*.svg"));
+            File file = chooser.showOpenDialog(stage);
+            if (file != null) {
+                openFile(file.toPath());
+            }
+        });
+
         // Zoom
         SnapSlider zoomSlider = new SnapSlider(0.25, 2.0, 1.0);
         zoomSlider.setShowTickLabels(true);
@@ -183,6 +239,8 @@ public class SvgLoaderResultViewer extends Application {
         controlPanel.setPadding(new Insets(10, 10, 10, 10));
         controlPanel.getChildren().add(gradientPolicy);
         controlPanel.getChildren().add(showViewport);
+        controlPanel.getChildren().add(useStreaming);
+        controlPanel.getChildren().add(openFile);
         controlPanel.getChildren().add(zoomControl);
         
         return controlPanel;
@@ -194,14 +252,64 @@ public class SvgLoaderResultViewer extends Application {
     }
 
 
+    private void reload() {
+        if (currentPath != null) {
+            openFile(currentPath);
+        } else {
+            selectFile(currentFile);
+        }
+    }
+
+
     private void selectFile(String fileName) {
         currentFile = fileName;
+        currentPath = null;
         InputStream svgFile = 
                 getClass().getResourceAsStream(DATA_PACKAGE + "/" + fileName);
+        showImage(loader.loadSvgAsync(svgFile, loadExecutor), null);
+    }
+
+
+    private void openFile(Path svgFile) {
+        currentPath = svgFile;
+        showImage(loader.loadSvgAsync(svgFile, loadExecutor), svgFile);
+    }
+
+
+    private void showImage(CompletableFuture<Group> load, Path svgFile) {
+        // a load which is still running is superseded by the new one
+        if (pendingLoad != null) {
+            pendingLoad.cancel(false);
+        }
 
-        imageLayout.getChildren().remove(svgImage);
-        svgImage = loader.loadSvg(svgFile);
-        imageLayout.getChildren().add(svgImage);
+        pendingLoad = load;
+        load.thenAcceptAsync(image -> {
+            if (load == pendingLoad) {
+                imageLayout.getChildren().remove(svgImage);
+                svgImage = image;
+                imageLayout.getChildren().add(svgImage);
+                pendingLoad = null;
+                watchFile(svgFile);
+            }
+        }, Platform::runLater);
+    }
+
+
+    // the example files are resources, which are usually copied to the build
+    // directory or packaged in a jar file - only opened files are watched
+    private void watchFile(Path svgFile) {
+        if (liveReload != null) {
+            liveReload.close();
+            liveReload = null;
+        }
+
+        if (svgFile != null) {
+            try {
+                liveReload = SvgLiveReload.watch(loader, svgFile, svgImage);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
 
@@ -17,7 +17,8 @@
 package afester.javafx.examples.svg;
 
 import afester.javafx.examples.Example;
-import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgLevelOfDetail;
+import afester.javafx.svg.SvgSceneCache;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.scene.Group;
@@ -26,8 +27,6 @@ import javafx.scene.control.Button;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 
-import java.io.InputStream;
-
 @Example(desc = "Using SvgLoader to render an image for a button",
          cat  = "FranzXaver")
 public class SvgOnButton extends Application {
@@ -43,13 +42,12 @@ public class SvgOnButton extends Application {
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("SVG Display sample");
-        final SvgLoader loader = new SvgLoader();
+        final SvgSceneCache cache = SvgSceneCache.getDefault();
 
 //##############
         // load first svg file
-        InputStream svgFile = getClass().getResourceAsStream(
-                        "/afester/javafx/examples/data/Ghostscript_Tiger.svg");
-        Group svgImage = loader.loadSvg(svgFile);
+        Group svgImage = cache.load(getClass().getResource(
+                        "/afester/javafx/examples/data/Ghostscript_Tiger.svg"));
 
         // Scale the image and wrap it in a Group to make the button 
         // properly scale to the size of the image  
@@ -57,14 +55,16 @@ public class SvgOnButton extends Application {
         svgImage.setScaleY(0.1);
         Group graphic1 = new Group(svgImage);
 
+        // At this scale, most details of the image are smaller than a pixel
+        SvgLevelOfDetail.install(svgImage);
+
         Button button1 = new Button();
         HBox.setMargin(button1, new Insets(10));
         button1.setGraphic(graphic1);
 //##############
         // load second svg file
-        svgFile = getClass().getResourceAsStream(
-                        "/afester/javafx/examples/data/ellipse.svg");
-        svgImage = loader.loadSvg(svgFile);
+        svgImage = cache.load(getClass().getResource(
+                        "/afester/javafx/examples/data/ellipse.svg"));
 
         // Scale the image and wrap it in a Group to make the button 
         // properly scale to the size of the image  
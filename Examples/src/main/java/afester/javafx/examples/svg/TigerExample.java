@@ -18,6 +18,7 @@ package afester.javafx.examples.svg;
 
 import afester.javafx.examples.Example;
 import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgProgressiveAttacher;
 import javafx.application.Application;
 import javafx.scene.Group;
 import javafx.scene.Scene;
@@ -45,14 +46,21 @@ public class TigerExample extends Application {
         InputStream svgFile = 
               getClass().getResourceAsStream("/afester/javafx/examples/data/Ghostscript_Tiger.svg");
         SvgLoader loader = new SvgLoader();
-        Group svgImage = loader.loadSvg(svgFile);
 
-        // show the generated scene graph
+        // show the generated scene graph while it is added to the scene
+        Group svgImage = new Group();
         svgImage.setTranslateX(-200);
         svgImage.setTranslateY(-200);
         svgImage.setScaleX(0.5);
         svgImage.setScaleY(0.5);
-        Scene scene = new Scene(svgImage);
+        SvgProgressiveAttacher attacher = loader.loadSvgProgressive(svgFile, svgImage);
+        attacher.progressProperty().addListener((obs, oldValue, newValue) -> {
+            int percent = (int) (100 * newValue.doubleValue());
+            primaryStage.setTitle("SVG Display sample (" + percent + "%)");
+        });
+        attacher.getCompletion().thenRun(() -> primaryStage.setTitle("SVG Display sample"));
+
+        Scene scene = new Scene(svgImage, 450, 450);
         primaryStage.setScene(scene);
         primaryStage.show();
     }
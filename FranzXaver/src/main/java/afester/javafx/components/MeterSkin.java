@@ -16,15 +16,15 @@
 
 package afester.javafx.components;
 
-import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgLoadResult;
+import afester.javafx.svg.SvgSceneCache;
 
-import javafx.scene.Node;
+import javafx.scene.Group;
 import javafx.scene.control.SkinBase;
 import javafx.scene.shape.SVGPath;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
 
-import java.io.InputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,10 +44,9 @@ public class MeterSkin extends SkinBase<Meter> {
     public MeterSkin(Meter control) {
         super(control);
 
-        SvgLoader loader = new SvgLoader();
-        InputStream svgFile = getClass().getResourceAsStream("meter.svg");
-        Node iv = loader.loadSvg(svgFile);
-        pointer = (SVGPath) iv.lookup("#pointer");
+        Group iv = SvgSceneCache.getDefault().loadResource(getClass(), "meter.svg");
+        SvgLoadResult meter = SvgLoadResult.index(iv);
+        pointer = (SVGPath) meter.getNode("pointer");
 
         // get the pivot point - isn't there any easier way??? 
         Pattern pattern = 
@@ -57,7 +56,7 @@ public class MeterSkin extends SkinBase<Meter> {
         width = Double.parseDouble(matcher.group(3));
         height = Double.parseDouble(matcher.group(4));
 
-        unitText = (Text) iv.lookup("#unitText");
+        unitText = (Text) meter.getNode("unitText");
 
         setValue(control.getValue());
         control.valueProperty().addListener((obs, oldValue, newValue) -> {
@@ -16,12 +16,12 @@
 
 package afester.javafx.components;
 
-import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgLoadResult;
+import afester.javafx.svg.SvgSceneCache;
 import javafx.beans.property.LongProperty;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.event.EventHandler;
 import javafx.scene.Group;
-import javafx.scene.Node;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.SVGPath;
@@ -78,11 +78,13 @@ public class MultiSegment extends Group {
      */
     public MultiSegment(String displayType) {
         // load the drawing
-        SvgLoader loader = new SvgLoader();
-        InputStream svgFile = getClass().getResourceAsStream(displayType + ".svg");
-        Node digitNode = loader.loadSvg(svgFile);
+        Group digitNode = SvgSceneCache.getDefault().loadResource(getClass(),
+                                                                  displayType + ".svg");
         getChildren().add(digitNode);
 
+        // index the nodes once, instead of walking the drawing for each segment
+        SvgLoadResult digitIndex = SvgLoadResult.index(digitNode);
+
         // load the character set
         InputStream charsetFile = getClass().getResourceAsStream(displayType + ".chr");
         Properties charsetProperties = new Properties();
@@ -106,7 +108,7 @@ public class MultiSegment extends Group {
         // identify the segments
         segments = new SVGPath[ids.length];
         for (String id : ids) {
-            segments[idx] = (SVGPath) digitNode.lookup("#" + id);
+            segments[idx] = (SVGPath) digitIndex.getNode(id);
 
             if (!isReadOnly) {
                 // make the segments editable.
@@ -122,8 +124,8 @@ public class MultiSegment extends Group {
 
             idx++;
         }
-        segDp = (SVGPath) digitNode.lookup("#segDP");
-        panel = (SVGPath) digitNode.lookup("#panel");
+        segDp = (SVGPath) digitIndex.getNode("segDP");
+        panel = (SVGPath) digitIndex.getNode("panel");
 
         // initialize default colors (from svg file as far as possible)
         offColor = (Color) segDp.getFill();
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.components;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.control.Control;
+
+import java.net.URL;
+
+
+
+/**
+ *  An icon which is rendered from an SVG document.
+ *  <p>
+ *  Other than the node tree created by the SvgLoader, the icon is rendered
+ *  into an image once, at the size of the icon and the output scale of the
+ *  screen. The image is only rendered again when the size or the output scale
+ *  changes, and icons with the same document and size share the same image.
+ *  This makes the icon suitable for tool bars and other places where many
+ *  small graphics are shown.</p>
+ */
+public class SvgIcon extends Control {
+
+    /* The URL of the SVG document */
+    private ObjectProperty<URL> url = new SimpleObjectProperty<>();
+
+    public URL getUrl() {
+        return url.get();
+    }
+
+    public void setUrl(URL value) {
+        this.url.set(value);
+    }
+
+    public ObjectProperty<URL> urlProperty() {
+        return url;
+    }
+
+
+    /* The width of the icon, or 0 to derive it from the height or the document */
+    private DoubleProperty fitWidth = new SimpleDoubleProperty();
+
+    public double getFitWidth() {
+        return fitWidth.get();
+    }
+
+    public void setFitWidth(double value) {
+        this.fitWidth.set(value);
+    }
+
+    public DoubleProperty fitWidthProperty() {
+        return fitWidth;
+    }
+
+
+    /* The height of the icon, or 0 to derive it from the width or the document */
+    private DoubleProperty fitHeight = new SimpleDoubleProperty();
+
+    public double getFitHeight() {
+        return fitHeight.get();
+    }
+
+    public void setFitHeight(double value) {
+        this.fitHeight.set(value);
+    }
+
+    public DoubleProperty fitHeightProperty() {
+        return fitHeight;
+    }
+
+
+
+    public SvgIcon() {
+    }
+
+
+    /**
+     * Creates a new icon which has the size of the SVG document.
+     *
+     * @param url The URL of the SVG document.
+     */
+    public SvgIcon(URL url) {
+        setUrl(url);
+    }
+
+
+    /**
+     * Creates a new icon. If only one of the dimensions is given, the other one is
+     * derived from the aspect ratio of the SVG document.
+     *
+     * @param url The URL of the SVG document.
+     * @param fitWidth The width of the icon, or 0.
+     * @param fitHeight The height of the icon, or 0.
+     */
+    public SvgIcon(URL url, double fitWidth, double fitHeight) {
+        setUrl(url);
+        setFitWidth(fitWidth);
+        setFitHeight(fitHeight);
+    }
+
+
+    @Override
+    protected javafx.scene.control.Skin<?> createDefaultSkin() {
+        return new SvgIconSkin(this);
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.components;
+
+import afester.javafx.svg.SvgSceneCache;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.control.SkinBase;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+
+public class SvgIconSkin extends SkinBase<SvgIcon> {
+
+    // The rendered images, shared by all icons. Only accessed on the application thread.
+    private static final Map<String, SoftReference<Image>> rasterCache = new HashMap<>();
+
+    private final ImageView imageView = new ImageView();
+    private final InvalidationListener updateListener = obs -> update();
+    private final InvalidationListener windowListener = this::windowChanged;
+    private final ChangeListener<Scene> sceneListener = this::sceneChanged;
+    private ReadOnlyDoubleProperty outputScaleX = null;
+    private ReadOnlyDoubleProperty outputScaleY = null;
+
+    private String rasterKey = null;
+
+
+    /**
+     * Creates a new skin for an SVG icon.
+     *
+     * @param control The SvgIcon control which uses this skin.
+     */
+    public SvgIconSkin(SvgIcon control) {
+        super(control);
+
+        imageView.setSmooth(true);
+        getChildren().add(imageView);
+
+        control.urlProperty().addListener(updateListener);
+        control.fitWidthProperty().addListener(updateListener);
+        control.fitHeightProperty().addListener(updateListener);
+
+        // the output scale is a property of the window
+        control.sceneProperty().addListener(sceneListener);
+        sceneChanged(null, null, control.getScene());
+        update();
+    }
+
+
+    /**
+     * Removes all listeners from the control and from its window, so that
+     * neither the control nor a long living window refer to this skin.
+     */
+    @Override
+    public void dispose() {
+        final SvgIcon control = getSkinnable();
+        control.urlProperty().removeListener(updateListener);
+        control.fitWidthProperty().removeListener(updateListener);
+        control.fitHeightProperty().removeListener(updateListener);
+
+        control.sceneProperty().removeListener(sceneListener);
+        if (control.getScene() != null) {
+            control.getScene().windowProperty().removeListener(windowListener);
+        }
+        setWindow(null);
+
+        super.dispose();
+    }
+
+
+    private void sceneChanged(ObservableValue<? extends Scene> value,
+                              Scene oldScene, Scene newScene) {
+        if (oldScene != null) {
+            oldScene.windowProperty().removeListener(windowListener);
+        }
+        if (newScene != null) {
+            newScene.windowProperty().addListener(windowListener);
+            windowChanged(null);
+        } else {
+            setWindow(null);
+            update();
+        }
+    }
+
+
+    private void windowChanged(Observable value) {
+        Scene scene = getSkinnable().getScene();
+        setWindow(scene == null ? null : scene.getWindow());
+        update();
+    }
+
+
+    private void setWindow(Window newWindow) {
+        if (outputScaleX != null) {
+            outputScaleX.removeListener(updateListener);
+            outputScaleY.removeListener(updateListener);
+        }
+        outputScaleX = getOutputScaleProperty(newWindow, "outputScaleXProperty");
+        outputScaleY = getOutputScaleProperty(newWindow, "outputScaleYProperty");
+        if (outputScaleX == null || outputScaleY == null) {
+            outputScaleX = null;
+            outputScaleY = null;
+        } else {
+            outputScaleX.addListener(updateListener);
+            outputScaleY.addListener(updateListener);
+        }
+    }
+
+
+    /**
+     * The output scale of a window is only available since JavaFX 9. On JavaFX 8,
+     * the icons are rendered with an output scale of 1.
+     *
+     * @param window The window for which to get the output scale.
+     * @param propertyName The name of the property method, for the horizontal
+     *                     or the vertical output scale.
+     *
+     * @return The output scale property of the window, or <code>null</code>
+     *         if it is not available.
+     */
+    private static ReadOnlyDoubleProperty getOutputScaleProperty(Window window,
+                                                                 String propertyName) {
+        if (window == null) {
+            return null;
+        }
+
+        try {
+            Method property = Window.class.getMethod(propertyName);
+            return (ReadOnlyDoubleProperty) property.invoke(window);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Renders the image of the icon again, if the document, the size or the
+     * output scale has changed.
+     */
+    private void update() {
+        final SvgIcon control = getSkinnable();
+        final URL url = control.getUrl();
+        if (url == null) {
+            rasterKey = null;
+            imageView.setImage(null);
+            return;
+        }
+
+        // the image has square pixels, so it is rendered for the larger scale
+        final double scale = outputScaleX == null
+                           ? 1.0 : Math.max(outputScaleX.get(), outputScaleY.get());
+        final String key = url.toExternalForm() + '@' + control.getFitWidth()
+                         + 'x' + control.getFitHeight() + '*' + scale;
+        if (key.equals(rasterKey)) {
+            return;
+        }
+
+        Image image = getImage(key);
+        if (image == null) {
+            image = render(url, control.getFitWidth(), control.getFitHeight(), scale);
+            if (image == null) {
+                rasterKey = null;
+                imageView.setImage(null);
+                return;
+            }
+            putImage(key, image);
+        }
+
+        rasterKey = key;
+        imageView.setImage(image);
+        imageView.setFitWidth(image.getWidth() / scale);
+        imageView.setFitHeight(image.getHeight() / scale);
+    }
+
+
+    private static Image getImage(String key) {
+        SoftReference<Image> ref = rasterCache.get(key);
+        return ref == null ? null : ref.get();
+    }
+
+
+    private static void putImage(String key, Image image) {
+        for (Iterator<SoftReference<Image>> i = rasterCache.values().iterator();  i.hasNext(); ) {
+            if (i.next().get() == null) {
+                i.remove();
+            }
+        }
+        rasterCache.put(key, new SoftReference<>(image));
+    }
+
+
+    private static Image render(URL url, double fitWidth, double fitHeight, double scale) {
+        Group drawing = SvgSceneCache.getDefault().load(url);
+        if (drawing == null) {
+            return null;
+        }
+
+        Bounds bounds = drawing.getLayoutBounds();
+        if (bounds.getWidth() <= 0 || bounds.getHeight() <= 0) {
+            return null;
+        }
+
+        double width = fitWidth;
+        double height = fitHeight;
+        if (width <= 0 && height <= 0) {
+            width = bounds.getWidth();
+            height = bounds.getHeight();
+        } else if (width <= 0) {
+            width = height * bounds.getWidth() / bounds.getHeight();
+        } else if (height <= 0) {
+            height = width * bounds.getHeight() / bounds.getWidth();
+        }
+
+        final int pixelWidth = Math.max(1, (int) Math.ceil(width * scale));
+        final int pixelHeight = Math.max(1, (int) Math.ceil(height * scale));
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(Transform.scale(pixelWidth / bounds.getWidth(),
+                                            pixelHeight / bounds.getHeight()));
+        return drawing.snapshot(params, new WritableImage(pixelWidth, pixelHeight));
+    }
+}
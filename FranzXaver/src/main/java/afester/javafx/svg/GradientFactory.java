@@ -92,6 +92,27 @@ public class GradientFactory {
         double endX = element.getX2().getBaseVal().getValue();
         double endY = element.getY2().getBaseVal().getValue();
 
+        return createLinearGradient(startX, startY, endX, endY, 
+                                    toArray(getGradientTransform(element)), stops);
+    }
+
+
+    /**
+     * Creates a JavaFX LinearGradient from the already extracted attributes of
+     * an SVG linearGradient element.
+     *
+     * @param startX The x1 attribute of the gradient.
+     * @param startY The y1 attribute of the gradient.
+     * @param endX The x2 attribute of the gradient.
+     * @param endY The y2 attribute of the gradient.
+     * @param matrix The components a, b, c, d, e, f of the gradientTransform 
+     *               matrix, or <code>null</code> if there is no gradientTransform.
+     * @param stops The stops of the gradient.
+     *
+     * @return A JavaFX LinearGradient based on the given attributes.
+     */
+    LinearGradient createLinearGradient(double startX, double startY, double endX, double endY,
+                                        double[] matrix, List<Stop> stops) {
         /*
 ATTENTION:
 A gradientTransform in SVG does not transform the gradient parameter coordinates.
@@ -105,7 +126,6 @@ angle regarding the gradient vector, a skew transformation would never be possib
 by just transforming start and end coordinates of the gradient.
          */
 
-        SVGMatrix matrix = getGradientTransform(element);
         if (matrix != null) {
             switch (gradientTransformPolicy) {
               case DISCARD :
@@ -114,19 +134,19 @@ by just transforming start and end coordinates of the gradient.
 
               case USE_AS_IS :
               {
-                  TransformationOperations to1 = TransformationOperations.getFromSvg(matrix);
+                  TransformationOperations to1 = getTransformationOperations(matrix);
                   if (to1.hasSkew() || to1.hasScale()) {
                       logger.warn(
                               "GradientTransform includes scale or skew - "
                             + "this is not yet supported! Rendering might be inaccurate.");
                       logger.debug(to1);
                   }
-                  final double newX1 = matrix.getA() * startX + matrix.getB() * startY 
-                                       + matrix.getC();
-                  final double newY1 = matrix.getD() * startX + matrix.getE() * startY 
-                                       + matrix.getF();
-                  final double newX2 = matrix.getA() * endX + matrix.getB() * endY + matrix.getC();
-                  final double newY2 = matrix.getD() * endX + matrix.getE() * endY + matrix.getF();
+                  final double newX1 = matrix[0] * startX + matrix[1] * startY 
+                                       + matrix[2];
+                  final double newY1 = matrix[3] * startX + matrix[4] * startY 
+                                       + matrix[5];
+                  final double newX2 = matrix[0] * endX + matrix[1] * endY + matrix[2];
+                  final double newY2 = matrix[3] * endX + matrix[4] * endY + matrix[5];
                   startX = newX1;
                   startY = newY1;
                   endX = newX2;
@@ -137,7 +157,7 @@ by just transforming start and end coordinates of the gradient.
               case USE_SUPPORTED :  // is default - fall through intended
 
               default: {
-                  TransformationOperations to1 = TransformationOperations.getFromSvg(matrix);
+                  TransformationOperations to1 = getTransformationOperations(matrix);
                   if (to1.hasSkew() || to1.hasScale()) {
                       logger.warn("GradientTransform includes scale or skew - "
                                 + "using rotation and translation part only! "
@@ -162,14 +182,14 @@ by just transforming start and end coordinates of the gradient.
                       endX = newX2;
                       endY = newY2;
                   } else { // USE_AS_IS
-                      final double newX1 = matrix.getA() * startX + matrix.getB() * startY
-                                     + matrix.getC();
-                      final double newY1 = matrix.getD() * startX + matrix.getE() * startY
-                                     + matrix.getF();
-                      final double newX2 = matrix.getA() * endX + matrix.getB() * endY 
-                                     + matrix.getC();
-                      final double newY2 = matrix.getD() * endX + matrix.getE() * endY 
-                                     + matrix.getF();
+                      final double newX1 = matrix[0] * startX + matrix[1] * startY
+                                     + matrix[2];
+                      final double newY1 = matrix[3] * startX + matrix[4] * startY
+                                     + matrix[5];
+                      final double newX2 = matrix[0] * endX + matrix[1] * endY 
+                                     + matrix[2];
+                      final double newY2 = matrix[3] * endX + matrix[4] * endY 
+                                     + matrix[5];
                       startX = newX1;
                       startY = newY1;
                       endX = newX2;
@@ -206,6 +226,29 @@ by just transforming start and end coordinates of the gradient.
         float fx = element.getFx().getBaseVal().getValue();
         float fy = element.getFy().getBaseVal().getValue();
 
+        return createRadialGradient(centerX, centerY, radius, fx, fy,
+                                    toArray(getGradientTransform(element)), stops);
+    }
+
+
+    /**
+     * Creates a JavaFX RadialGradient from the already extracted attributes of
+     * an SVG radialGradient element.
+     *
+     * @param centerX The cx attribute of the gradient.
+     * @param centerY The cy attribute of the gradient.
+     * @param radius The r attribute of the gradient.
+     * @param fx The fx attribute of the gradient.
+     * @param fy The fy attribute of the gradient.
+     * @param matrix The components a, b, c, d, e, f of the gradientTransform 
+     *               matrix, or <code>null</code> if there is no gradientTransform.
+     * @param stops The stops of the gradient.
+     *
+     * @return A JavaFX RadialGradient based on the given attributes.
+     */
+    RadialGradient createRadialGradient(float centerX, float centerY, float radius, 
+                                        float fx, float fy, 
+                                        double[] matrix, List<Stop> stops) {
         // SVG defines a focus point in absolute coordinates, while 
         // JavaFX uses Polar coordinates
         float dx = fx - centerX;
@@ -213,7 +256,6 @@ by just transforming start and end coordinates of the gradient.
         float focusDistance = (float) Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
         float focusAngle = (float) Math.atan2(dx,  dy);
 
-        SVGMatrix matrix = getGradientTransform(element);
         if (matrix != null) {
             logger.error("GradientTransform for RadialGradient not yet implemented!");
         }
@@ -224,6 +266,22 @@ by just transforming start and end coordinates of the gradient.
     }
 
 
+    private static double[] toArray(SVGMatrix matrix) {
+        if (matrix == null) {
+            return null;
+        }
+
+        return new double[] {matrix.getA(), matrix.getB(), matrix.getC(),
+                             matrix.getD(), matrix.getE(), matrix.getF()};
+    }
+
+
+    private static TransformationOperations getTransformationOperations(double[] matrix) {
+        return TransformationOperations.getFromMatrix(matrix[0], matrix[1], matrix[2], 
+                                                      matrix[3], matrix[4], matrix[5]);
+    }
+
+
     /**
      * @param element The SVG gradient element for which to return its transformation matrix.
      *
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+
+/**
+ * Reduces the number of vertices of paths and polylines, so that the
+ * simplified geometry deviates by at most a given tolerance from the
+ * original geometry.
+ * Curves are first flattened into line segments, then the vertices of each
+ * sub path are reduced with the Douglas-Peucker algorithm.
+ * Also transforms path data, so that transformations can be applied to the
+ * geometry instead of to the nodes.
+ */
+final class PathSimplifier {
+
+    private PathSimplifier() {
+    }
+
+
+    /**
+     * @param content The SVG path data to simplify.
+     * @param tolerance The maximum deviation of the result, in the units of
+     *                  the path coordinates.
+     *
+     * @return The simplified path data, which only consists of straight lines.
+     *         The original path data is returned if it could not be parsed, or
+     *         if the simplified path data would not have less segments.
+     */
+    static String simplifyPath(String content, double tolerance) {
+        SvgPathData path = SvgPathData.parse(content);
+        if (path.hasError()) {
+            return content;
+        }
+        Shape shape = path.toPath2D();
+
+        // curves are flattened into several lines, so the result is only
+        // smaller if the tolerance is large compared to the curves
+        final int segments = path.getSegmentCount();
+
+        StringBuilder result = new StringBuilder();
+        int vertices = 0;
+        double[] subPath = new double[64];
+        int count = 0;
+        double[] coords = new double[6];
+
+        // the flattening tolerance is only a part of the total tolerance,
+        // the remaining part is used for the vertex reduction
+        final double reduction = tolerance / 2;
+        for (PathIterator i = shape.getPathIterator(null, reduction);  !i.isDone();  i.next()) {
+            switch (i.currentSegment(coords)) {
+              case PathIterator.SEG_MOVETO :
+                  vertices += appendSubPath(result, subPath, count, false, reduction);
+                  count = 0;
+                  // fall through
+
+              case PathIterator.SEG_LINETO :
+                  if (count + 2 > subPath.length) {
+                      subPath = Arrays.copyOf(subPath, subPath.length * 2);
+                  }
+                  subPath[count++] = coords[0];
+                  subPath[count++] = coords[1];
+                  break;
+
+              case PathIterator.SEG_CLOSE :
+                  vertices += appendSubPath(result, subPath, count, true, reduction);
+                  // a new sub path starts at the first point of the closed one
+                  count = Math.min(count, 2);
+                  break;
+
+              default :
+                  break;
+            }
+        }
+        vertices += appendSubPath(result, subPath, count, false, reduction);
+
+        return vertices < segments ? result.toString() : content;
+    }
+
+
+    // returns the number of vertices which have been appended
+    private static int appendSubPath(StringBuilder result, double[] points, int count,
+                                     boolean closed, double tolerance) {
+        if (count == 0 || count == 2 && !closed) {
+            return 0;   // no sub path or only a move to, which has no effect
+        }
+
+        double[] reduced = simplifyPoints(Arrays.copyOf(points, count), tolerance);
+        for (int i = 0;  i < reduced.length;  i += 2) {
+            result.append(i == 0 ? 'M' : 'L');
+            SvgPathData.appendNumber(result, reduced[i]);
+            result.append(',');
+            SvgPathData.appendNumber(result, reduced[i + 1]);
+        }
+        if (closed) {
+            result.append('Z');
+        }
+        return reduced.length / 2;
+    }
+
+
+    /**
+     * @param content The SVG path data to transform.
+     * @param transform The transformation to apply to the coordinates.
+     *
+     * @return The transformed path data, which only consists of absolute
+     *         coordinates, or <code>null</code> if the path data could not be parsed.
+     */
+    static String transformPath(String content, AffineTransform transform) {
+        SvgPathData path = SvgPathData.parse(content);
+        if (path.hasError()) {
+            return null;
+        }
+        return path.transform(transform).toContent();
+    }
+
+
+    /**
+     * @param points The x and y coordinates of the vertices of a polyline.
+     * @param tolerance The maximum deviation of the result.
+     *
+     * @return The coordinates of the remaining vertices. The first and the last
+     *         vertex are always kept.
+     */
+    static double[] simplifyPoints(double[] points, double tolerance) {
+        final int vertices = points.length / 2;
+        if (vertices <= 2) {
+            return points;
+        }
+
+        boolean[] keep = new boolean[vertices];
+        keep[0] = true;
+        keep[vertices - 1] = true;
+
+        // Douglas-Peucker, with an explicit stack of the ranges to process
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[] {0, vertices - 1});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            final int first = range[0];
+            final int last = range[1];
+
+            int farthest = -1;
+            double maxDistance = tolerance;
+            for (int i = first + 1;  i < last;  i++) {
+                double distance = getDistance(points, i, first, last);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1) {
+                keep[farthest] = true;
+                ranges.push(new int[] {first, farthest});
+                ranges.push(new int[] {farthest, last});
+            }
+        }
+
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        double[] result = new double[count * 2];
+        int pos = 0;
+        for (int i = 0;  i < vertices;  i++) {
+            if (keep[i]) {
+                result[pos++] = points[2 * i];
+                result[pos++] = points[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+
+    // the distance of a vertex from the line segment between two other vertices
+    private static double getDistance(double[] points, int vertex, int start, int end) {
+        final double px = points[2 * vertex];
+        final double py = points[2 * vertex + 1];
+        final double ax = points[2 * start];
+        final double ay = points[2 * start + 1];
+        final double dx = points[2 * end] - ax;
+        final double dy = points[2 * end + 1] - ay;
+
+        final double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return Math.hypot(px - ax, py - ay);
+        }
+
+        double t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.paint.Color;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Parsing of raw SVG attribute values.
+ * This is used by the code paths which do not have a Batik DOM available
+ * to provide already parsed attribute values.
+ */
+final class SvgAttributeParser {
+    private static final Logger logger = LogManager.getLogger();
+
+    // user units per unit, assuming 96 dpi like Batik does
+    private static final double PX_PER_IN = 96.0;
+    private static final double PX_PER_PT = PX_PER_IN / 72.0;
+    private static final double PX_PER_PC = PX_PER_PT * 12.0;
+    private static final double PX_PER_MM = PX_PER_IN / 25.4;
+    private static final double PX_PER_CM = PX_PER_MM * 10.0;
+
+    private SvgAttributeParser() {
+    }
+
+
+    /**
+     * Parses an SVG length value like <code>12</code>, <code>3.5px</code> or
+     * <code>10mm</code> into user units.
+     * Like all numbers returned by this class, the result has float precision
+     * since this is what Batik uses.
+     *
+     * @param value The attribute value to parse (may be <code>null</code>).
+     * @param reference The reference length for percentage values.
+     * @param defaultValue The value to return if the value is not given or invalid.
+     *
+     * @return The length in user units.
+     */
+    static double parseLength(String value, double reference, double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        value = value.trim();
+        if (value.isEmpty()) {
+            return defaultValue;
+        }
+
+        int unitPos = value.length();
+        while (unitPos > 0 && Character.isLetter(value.charAt(unitPos - 1))
+               || unitPos > 0 && value.charAt(unitPos - 1) == '%') {
+            unitPos--;
+        }
+
+        double number;
+        try {
+            number = Double.parseDouble(value.substring(0, unitPos));
+        } catch (NumberFormatException nfe) {
+            logger.warn("Invalid length value: {}", value);
+            return defaultValue;
+        }
+
+        String unit = value.substring(unitPos);
+        switch (unit) {
+          case ""   :
+          case "px" : break;
+          case "%"  : number = number * reference / 100.0; break;
+          case "in" : number = number * PX_PER_IN; break;
+          case "pt" : number = number * PX_PER_PT; break;
+          case "pc" : number = number * PX_PER_PC; break;
+          case "mm" : number = number * PX_PER_MM; break;
+          case "cm" : number = number * PX_PER_CM; break;
+          default   :
+              logger.warn("Unsupported unit in length value: {}", value);
+              break;
+        }
+
+        return (float) number;
+    }
+
+
+    /**
+     * Parses a list of numbers as used in <code>points</code>, <code>viewBox</code>
+     * or <code>transform</code> attributes. The numbers can be separated by white
+     * space and/or commas, and the separator can be omitted if the next number
+     * starts with a sign or a decimal point (<code>10-5.5.5</code>).
+     *
+     * @param value The attribute value to parse (may be <code>null</code>).
+     *
+     * @return The parsed numbers (never <code>null</code>).
+     */
+    static double[] parseNumberList(String value) {
+        if (value == null) {
+            return new double[0];
+        }
+
+        double[] result = new double[8];
+        int count = 0;
+        int pos = 0;
+        final int len = value.length();
+        while (pos < len) {
+            char c = value.charAt(pos);
+            if (c == ',' || Character.isWhitespace(c)) {
+                pos++;
+                continue;
+            }
+
+            int end = scanNumber(value, pos);
+            if (end == pos) {
+                logger.warn("Invalid number list: {}", value);
+                break;
+            }
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2);
+            }
+            result[count++] = Float.parseFloat(value.substring(pos, end));
+            pos = end;
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+
+    /**
+     * Scans a number starting at a given position.
+     *
+     * @param value The string to scan.
+     * @param start The position where the number starts.
+     *
+     * @return The position after the last character of the number, or
+     *         <code>start</code> if there is no valid number at the given position.
+     */
+    static int scanNumber(String value, int start) {
+        final int len = value.length();
+        int pos = start;
+        if (pos < len && (value.charAt(pos) == '-' || value.charAt(pos) == '+')) {
+            pos++;
+        }
+
+        boolean digits = false;
+        while (pos < len && Character.isDigit(value.charAt(pos))) {
+            pos++;
+            digits = true;
+        }
+        if (pos < len && value.charAt(pos) == '.') {
+            pos++;
+            while (pos < len && Character.isDigit(value.charAt(pos))) {
+                pos++;
+                digits = true;
+            }
+        }
+        if (!digits) {
+            return start;
+        }
+
+        if (pos < len && (value.charAt(pos) == 'e' || value.charAt(pos) == 'E')) {
+            int expPos = pos + 1;
+            if (expPos < len && (value.charAt(expPos) == '-' || value.charAt(expPos) == '+')) {
+                expPos++;
+            }
+            if (expPos < len && Character.isDigit(value.charAt(expPos))) {
+                pos = expPos;
+                while (pos < len && Character.isDigit(value.charAt(pos))) {
+                    pos++;
+                }
+            }
+        }
+
+        return pos;
+    }
+
+
+    /**
+     * Parses an SVG <code>transform</code> attribute into a single matrix.
+     * Transformation lists are concatenated from left to right.
+     *
+     * @param value The transform attribute value (may be <code>null</code>).
+     *
+     * @return The matrix components a, b, c, d, e, f or <code>null</code> if the
+     *         value does not contain any transformation.
+     */
+    static double[] parseTransform(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        double[] result = null;
+        int pos = 0;
+        while (true) {
+            int open = value.indexOf('(', pos);
+            if (open < 0) {
+                break;
+            }
+            int close = value.indexOf(')', open);
+            if (close < 0) {
+                logger.warn("Invalid transform: {}", value);
+                break;
+            }
+
+            String name = value.substring(pos, open).replace(',', ' ').trim();
+            double[] args = parseNumberList(value.substring(open + 1, close));
+            double[] matrix = createMatrix(name, args);
+            if (matrix == null) {
+                logger.warn("Unsupported transform {} in {}", name, value);
+            } else {
+                result = result == null ? matrix : multiply(result, matrix);
+            }
+
+            pos = close + 1;
+        }
+
+        if (result != null) {
+            for (int i = 0;  i < result.length;  i++) {
+                result[i] = (float) result[i];
+            }
+        }
+        return result;
+    }
+
+
+    private static double[] createMatrix(String name, double[] args) {
+        switch (name) {
+          case "matrix" :
+              if (args.length == 6) {
+                  return args;
+              }
+              return null;
+
+          case "translate" :
+              if (args.length == 1) {
+                  return new double[] {1, 0, 0, 1, args[0], 0};
+              } else if (args.length == 2) {
+                  return new double[] {1, 0, 0, 1, args[0], args[1]};
+              }
+              return null;
+
+          case "scale" :
+              if (args.length == 1) {
+                  return new double[] {args[0], 0, 0, args[0], 0, 0};
+              } else if (args.length == 2) {
+                  return new double[] {args[0], 0, 0, args[1], 0, 0};
+              }
+              return null;
+
+          case "rotate" : {
+              if (args.length != 1 && args.length != 3) {
+                  return null;
+              }
+              double angle = Math.toRadians(args[0]);
+              double cos = Math.cos(angle);
+              double sin = Math.sin(angle);
+              double[] rotation = new double[] {cos, sin, -sin, cos, 0, 0};
+              if (args.length == 3) {
+                  double[] toCenter = new double[] {1, 0, 0, 1, args[1], args[2]};
+                  double[] fromCenter = new double[] {1, 0, 0, 1, -args[1], -args[2]};
+                  rotation = multiply(multiply(toCenter, rotation), fromCenter);
+              }
+              return rotation;
+          }
+
+          case "skewX" :
+              if (args.length == 1) {
+                  return new double[] {1, 0, Math.tan(Math.toRadians(args[0])), 1, 0, 0};
+              }
+              return null;
+
+          case "skewY" :
+              if (args.length == 1) {
+                  return new double[] {1, Math.tan(Math.toRadians(args[0])), 0, 1, 0, 0};
+              }
+              return null;
+
+          default :
+              return null;
+        }
+    }
+
+
+    /**
+     * Multiplies two SVG transformation matrices.
+     *
+     * @param m1 The left matrix (a, b, c, d, e, f).
+     * @param m2 The right matrix (a, b, c, d, e, f).
+     *
+     * @return The product m1 * m2.
+     */
+    static double[] multiply(double[] m1, double[] m2) {
+        return new double[] {
+            m1[0] * m2[0] + m1[2] * m2[1],
+            m1[1] * m2[0] + m1[3] * m2[1],
+            m1[0] * m2[2] + m1[2] * m2[3],
+            m1[1] * m2[2] + m1[3] * m2[3],
+            m1[0] * m2[4] + m1[2] * m2[5] + m1[4],
+            m1[1] * m2[4] + m1[3] * m2[5] + m1[5]
+        };
+    }
+
+
+    /**
+     * Calculates the transformation which maps a <code>viewBox</code> into a
+     * viewport, as defined by a <code>preserveAspectRatio</code> attribute.
+     *
+     * @param viewBox The viewBox attribute value (may be <code>null</code>).
+     * @param preserveAspectRatio The preserveAspectRatio attribute value
+     *                            (may be <code>null</code>).
+     * @param width The width of the viewport.
+     * @param height The height of the viewport.
+     *
+     * @return The matrix components a, b, c, d, e, f or <code>null</code> if the
+     *         viewBox is not given or invalid.
+     */
+    static double[] parseViewBoxTransform(String viewBox, String preserveAspectRatio,
+                                          double width, double height) {
+        double[] box = parseNumberList(viewBox);
+        if (box.length != 4 || box[2] <= 0 || box[3] <= 0) {
+            if (viewBox != null && !viewBox.trim().isEmpty()) {
+                logger.warn("Invalid viewBox: {}", viewBox);
+            }
+            return null;
+        }
+
+        String align = "xMidYMid";
+        boolean slice = false;
+        if (preserveAspectRatio != null) {
+            for (String token : preserveAspectRatio.trim().split("\\s+")) {
+                if (token.equals("slice")) {
+                    slice = true;
+                } else if (!token.equals("meet") && !token.equals("defer") && !token.isEmpty()) {
+                    align = token;
+                }
+            }
+        }
+
+        double scaleX = width / box[2];
+        double scaleY = height / box[3];
+        double translateX = 0;
+        double translateY = 0;
+        if (!align.equals("none")) {
+            if (align.length() != 8) {
+                logger.warn("Invalid preserveAspectRatio: {}", preserveAspectRatio);
+                align = "xMidYMid";
+            }
+            final double scale = slice ? Math.max(scaleX, scaleY) : Math.min(scaleX, scaleY);
+            scaleX = scale;
+            scaleY = scale;
+            translateX = getAlignment(align.substring(1, 4), width - box[2] * scale);
+            translateY = getAlignment(align.substring(5, 8), height - box[3] * scale);
+        }
+
+        return new double[] {scaleX, 0, 0, scaleY,
+                             translateX - box[0] * scaleX, translateY - box[1] * scaleY};
+    }
+
+
+    private static double getAlignment(String align, double space) {
+        switch (align) {
+          case "Min" : return 0;
+          case "Max" : return space;
+          default    : return space / 2;
+        }
+    }
+
+
+    /**
+     * Splits the value of an inline <code>style</code> attribute into
+     * its property declarations.
+     *
+     * @param style The style attribute value (may be <code>null</code>).
+     * @param consumer The consumer which receives each property name and value.
+     */
+    static void parseStyle(String style, BiConsumer<String, String> consumer) {
+        if (style == null) {
+            return;
+        }
+
+        for (String declaration : style.split(";")) {
+            int colon = declaration.indexOf(':');
+            if (colon > 0) {
+                String property = declaration.substring(0, colon).trim();
+                String value = declaration.substring(colon + 1).trim();
+                if (!property.isEmpty() && !value.isEmpty()) {
+                    consumer.accept(property, value);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Parses an SVG color value.
+     *
+     * @param value The color value, like <code>#ff0000</code>, <code>red</code> or
+     *              <code>rgb(255,0,0)</code>.
+     * @param opacity The opacity to apply to the color.
+     *
+     * @return The JavaFX color or <code>null</code> if the value is not a valid color.
+     */
+    static Color parseColor(String value, double opacity) {
+        try {
+            return Color.web(value.trim(), opacity);
+        } catch (IllegalArgumentException iae) {
+            logger.warn("Invalid color value: {}", value);
+            return null;
+        }
+    }
+
+
+    /**
+     * Extracts the element id from a local IRI reference like
+     * <code>url(#id)</code> or <code>#id</code>.
+     *
+     * @param value The reference.
+     *
+     * @return The referenced id or <code>null</code> if the value is not a local reference.
+     */
+    static String parseReference(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        value = value.trim();
+        if (value.startsWith("url(")) {
+            int close = value.indexOf(')');
+            if (close < 0) {
+                return null;
+            }
+            value = value.substring(4, close).trim();
+            if (value.length() > 1
+                && (value.charAt(0) == '\'' || value.charAt(0) == '"')) {
+                value = value.substring(1, value.length() - 1);
+            }
+        }
+
+        if (value.startsWith("#")) {
+            return value.substring(1);
+        }
+        return null;
+    }
+
+
+    /**
+     * Adds the ids which are referenced by an attribute: the value of an
+     * <code>href</code> attribute, and each <code>url(#id)</code> within any
+     * other attribute value or style sheet.
+     *
+     * @param name The local name of the attribute, or <code>null</code>.
+     * @param value The attribute value.
+     * @param ids Receives the referenced ids.
+     */
+    static void addReferences(String name, String value, Set<String> ids) {
+        if ("href".equals(name)) {
+            String id = parseReference(value);
+            if (id != null) {
+                ids.add(id);
+            }
+            return;
+        }
+
+        for (int start = value.indexOf("url(");  start >= 0;
+             start = value.indexOf("url(", start + 4)) {
+            String id = parseReference(value.substring(start));
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+    }
+}
@@ -28,14 +28,13 @@ import javafx.scene.shape.Ellipse;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Polyline;
+import javafx.scene.shape.QuadCurve;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.SVGPath;
 import javafx.scene.shape.Shape;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Affine;
 
-import org.apache.batik.anim.dom.SVGOMAnimatedPathData;
-import org.apache.batik.anim.dom.SVGOMAnimatedPathData.BaseSVGPathSegList;
 import org.apache.batik.anim.dom.SVGOMCircleElement;
 import org.apache.batik.anim.dom.SVGOMDefsElement;
 import org.apache.batik.anim.dom.SVGOMEllipseElement;
@@ -54,40 +53,71 @@ import org.apache.batik.anim.dom.SVGOMSVGElement;
 import org.apache.batik.anim.dom.SVGOMStopElement;
 import org.apache.batik.anim.dom.SVGOMTSpanElement;
 import org.apache.batik.anim.dom.SVGOMTextElement;
-import org.apache.batik.css.dom.CSSOMSVGColor;
-import org.apache.batik.css.dom.CSSOMValue;
-import org.apache.batik.dom.svg.SVGPathSegItem;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import org.w3c.dom.css.CSSPrimitiveValue;
-import org.w3c.dom.css.CSSStyleDeclaration;
+import org.w3c.dom.Element;
 import org.w3c.dom.svg.SVGRect;
 import org.w3c.dom.svg.SVGPoint;
 import org.w3c.dom.svg.SVGPointList;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 public class SvgBasicElementHandler {
     private static final Logger logger = LogManager.getLogger();
 
     public SvgStyleTools styleTools = null;
-    private SvgLoader loader = null;
-    GradientFactory gradientFactory = new GradientFactory();
+    private final GradientFactory gradientFactory;
 
-    SvgBasicElementHandler(SvgLoader svgLoader) {
-        this.loader = svgLoader;
+    // the canonical paints of the document
+    final SvgPaintPool.DocumentPaints paints;
+
+    // the group which receives the nodes created for the current element
+    Group parentNode;
+
+    // flag whether to add a rectangle in the size of the drawing
+    private final boolean addRootRect;
+
+    // flag whether to add separate nodes for the path elements instead of an SVGPath node
+    final boolean useSeparatePathElements;
+
+    // the templates of the elements which are referenced by <use> elements, and
+    // the elements which are currently converted, to detect circular references
+    final Map<Element, SvgTemplate> useTemplates = new HashMap<>();
+    final Set<Element> usedElements = new HashSet<>();
+
+    /**
+     * Creates a new element handler. Each handler holds the state of a single
+     * load operation, so that an SvgLoader can load several documents in parallel.
+     *
+     * @param gradientFactory The factory to use for creating gradients.
+     * @param addRootRect Flag whether to add a rectangle in the size of the drawing.
+     * @param useSeparatePathElements Flag whether to add separate nodes for the
+     *                                path elements instead of an SVGPath node.
+     * @param paints The pool of the paints of the document.
+     */
+    SvgBasicElementHandler(GradientFactory gradientFactory, boolean addRootRect,
+                           boolean useSeparatePathElements, SvgPaintPool.DocumentPaints paints) {
+        this.gradientFactory = gradientFactory;
+        this.paints = paints;
+        this.addRootRect = addRootRect;
+        this.useSeparatePathElements = useSeparatePathElements;
+        this.parentNode = new Group();
     }
 
 
     // <svg>
     void handleElement(SVGOMSVGElement element) {
-        styleTools = new SvgStyleTools(element);
+        styleTools = new SvgStyleTools(element, paints);
 
         // optionally add a rectangle using the size of the whole drawing
-        if (loader.addRootRect) {
+        if (addRootRect) {
             SVGRect viewPort = element.getViewBox().getBaseVal();
             float height = viewPort.getHeight();
             float width = viewPort.getWidth();
@@ -96,7 +126,7 @@ public class SvgBasicElementHandler {
             result.setStroke(Color.BLACK);
             result.getStrokeDashArray().addAll(3.0,7.0,3.0,7.0);
 
-            loader.parentNode.getChildren().add(result);    
+            parentNode.getChildren().add(result);    
         }
     }
 
@@ -117,8 +147,9 @@ public class SvgBasicElementHandler {
             result.getTransforms().add(transformation);
         }
 
-        loader.parentNode.getChildren().add(result);
-        loader.parentNode = result;
+        // the group is added to its parent by the SvgLoader when all of its
+        // children have been handled
+        parentNode = result;
     }
 
 
@@ -158,7 +189,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -179,7 +210,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyTextStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -211,7 +242,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -232,7 +263,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -254,7 +285,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -299,7 +330,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
     
@@ -323,7 +354,7 @@ public class SvgBasicElementHandler {
 
         styleTools.applyStyle(result, element);
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
     
@@ -364,7 +395,7 @@ public class SvgBasicElementHandler {
         styleTools.applyStyle(result, element);
 
         //fxObj.setStroke(Color.VIOLET);
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
 
@@ -379,94 +410,66 @@ public class SvgBasicElementHandler {
         Group result = new Group();
         result.setId(element.getId());
 
+        Affine transformation = styleTools.getTransform(element);
+        if (transformation != null) {
+            result.getTransforms().add(transformation);
+        }
+
+        SvgPathData path = SvgPathData.parse(element.getAttribute("d"));
+        final double[] coords = path.coordinates();
         double xpos = 0.0;
         double ypos = 0.0;
-
-        SVGOMAnimatedPathData.BaseSVGPathSegList list = 
-                                    (BaseSVGPathSegList) element.getPathSegList();
-        for (int i = 0;  i < list.getNumberOfItems();  i++) {
-            SVGPathSegItem item = (SVGPathSegItem) list.getItem(i);
+        double startX = 0.0;
+        double startY = 0.0;
+        int pos = 0;
+        for (int i = 0;  i < path.getSegmentCount();  i++) {
+            final int type = path.getSegmentType(i);
             Shape fxObj = null;
 
-            switch (item.getPathSegType()) { 
-              case SVGPathSegItem.PATHSEG_UNKNOWN : 
+            switch (type) {
+              case SvgPathData.MOVE_TO :
+                  startX = coords[pos];
+                  startY = coords[pos + 1];
                   break;
 
-              case SVGPathSegItem.PATHSEG_CLOSEPATH : 
+              case SvgPathData.LINE_TO :
+                  fxObj = new Line(xpos, ypos, coords[pos], coords[pos + 1]);
                   break;
 
-              case SVGPathSegItem.PATHSEG_MOVETO_ABS : 
-                  xpos = item.getX();
-                  ypos = item.getY();
+              case SvgPathData.QUAD_TO :
+                  fxObj = new QuadCurve(xpos, ypos, coords[pos], coords[pos + 1],
+                                        coords[pos + 2], coords[pos + 3]);
                   break;
-                
-              case SVGPathSegItem.PATHSEG_MOVETO_REL :
-                  xpos += item.getX();
-                  ypos += item.getY();
+
+              case SvgPathData.CUBIC_TO :
+                  fxObj = new CubicCurve(xpos, ypos, coords[pos], coords[pos + 1],
+                                         coords[pos + 2], coords[pos + 3],
+                                         coords[pos + 4], coords[pos + 5]);
                   break;
 
-              case SVGPathSegItem.PATHSEG_LINETO_ABS  : { 
-                  double x2 = item.getX();
-                  double y2 = item.getY();
-                        
-                  fxObj = new Line(xpos, ypos, x2, y2);
-                        
-                  xpos = x2;
-                  ypos = y2;
-              }
-              break;
-
-              case SVGPathSegItem.PATHSEG_LINETO_REL  : {
-                  double x2 = xpos + item.getX();
-                  double y2 = ypos + item.getY();
-                        
-                  fxObj = new Line(xpos, ypos, x2, y2);
-                        
-                  xpos = x2;
-                  ypos = y2;
-              }
-              break;
-
-              case SVGPathSegItem.PATHSEG_CURVETO_CUBIC_ABS  : {
-                  double endX = xpos + item.getX();
-                  double endY = ypos + item.getY();
-                        
-                  fxObj = new CubicCurve(xpos, ypos, item.getX1(), item.getY1(), 
-                                         item.getX2(), item.getY2(), endX, endY);
-
-                  xpos = endX;
-                  ypos = endY;
-              }
-              break;
-
-              case SVGPathSegItem.PATHSEG_CURVETO_CUBIC_REL : { 
-                  double endX = xpos + item.getX();
-                  double endY = ypos + item.getY();
-                  double x1 = xpos + item.getX1();
-                  double y1 = ypos + item.getY1();
-                  double x2 = xpos + item.getX2();
-                  double y2 = ypos + item.getY2();
-                        
-                  fxObj = new CubicCurve(xpos, ypos, x1, y1, x2, y2, endX, endY);
-
-                  xpos = endX;
-                  ypos = endY;
-              }
-              break;
-
-              default:
+              default :
+                  // the closing line, if the sub path does not end at its start
+                  if (xpos != startX || ypos != startY) {
+                      fxObj = new Line(xpos, ypos, startX, startY);
+                  }
+                  xpos = startX;
+                  ypos = startY;
                   break;
             }
 
+            pos += SvgPathData.getCoordinateCount(type);
+            if (type != SvgPathData.CLOSE) {
+                xpos = coords[pos - 2];
+                ypos = coords[pos - 1];
+            }
+
             if (fxObj != null) {
-                logger.debug(element);
                 styleTools.applyStyle(fxObj, element);
-
                 result.getChildren().add(fxObj);
             }
         }
 
-        loader.parentNode.getChildren().add(result);
+        parentNode.getChildren().add(result);
     }
 
     private List<Stop> getStops(SVGOMGradientElement element) {
@@ -504,17 +507,7 @@ public class SvgBasicElementHandler {
     private Stop createStopElement(SVGOMStopElement element) {
         float offset = element.getOffset().getBaseVal();
 
-        CSSStyleDeclaration style = styleTools.svgElement.getComputedStyle(element, null);
-        CSSOMSVGColor stopColorValue = (CSSOMSVGColor) style.getPropertyCSSValue("stop-color");
-
-        float red = stopColorValue.getRed().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-        float green = stopColorValue.getGreen().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-        float blue = stopColorValue.getBlue().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-
-        CSSOMValue stopOpacityValue = (CSSOMValue) style.getPropertyCSSValue("stop-opacity");
-        float stopOpacity = stopOpacityValue.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
-
-        Color stopColor = new Color(red, green, blue, stopOpacity);
+        Color stopColor = styleTools.getStopColor(element);
         logger.debug("stopColor={}", stopColor);
 
         return new Stop(offset, stopColor);
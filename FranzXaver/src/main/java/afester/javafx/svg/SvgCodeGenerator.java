@@ -0,0 +1,589 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.FillRule;
+import javafx.scene.text.Font;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Offline tool which converts SVG files into Java source files.
+ * <p>
+ * Each SVG file is converted into a factory class which creates the same node
+ * tree as the SvgLoader, but with direct constructor calls. Applications
+ * which only use the generated classes do not need Batik and the XML
+ * parser at runtime. The class name is derived from the file name by
+ * {@link #getClassName(String)}, for example <code>meter.svg</code> becomes
+ * <code>SvgMeter</code>. The generated classes implement
+ * <code>Supplier&lt;Group&gt;</code> and have a static
+ * <code>createNode()</code> method.</p>
+ * <p>
+ * Usage: <code>SvgCodeGenerator -d sourceDirectory -p packageName file.svg ...</code></p>
+ *
+ * @see SvgSceneCache#loadResource(Class, String)
+ */
+public final class SvgCodeGenerator {
+
+    // The number of nodes to create in one method, to keep the generated
+    // methods well below the 64k byte code limit
+    private static final int NODES_PER_METHOD = 100;
+
+    // The maximum number of characters in one string literal. String constants
+    // are limited to 65535 bytes in the class file, and each character takes
+    // up to three bytes
+    private static final int MAX_LITERAL_LENGTH = 16384;
+
+    private final SvgTemplate template;
+    private final String packageName;
+    private final String className;
+    private final String sourceName;
+    private final StringBuilder out = new StringBuilder();
+
+
+    private SvgCodeGenerator(SvgTemplate template, String packageName, String className,
+                             String sourceName) {
+        this.template = template;
+        this.packageName = packageName;
+        this.className = className;
+        this.sourceName = sourceName;
+    }
+
+
+    /**
+     * Returns the name of the class which is generated for an SVG file.
+     *
+     * @param svgFileName The file name of the SVG file, without any directory.
+     *
+     * @return The simple class name of the generated class.
+     */
+    public static String getClassName(String svgFileName) {
+        String name = svgFileName;
+        if (name.endsWith(".svg")) {
+            name = name.substring(0, name.length() - 4);
+        }
+
+        StringBuilder result = new StringBuilder("Svg");
+        boolean upperCase = true;
+        for (char c : name.toCharArray()) {
+            if (Character.isJavaIdentifierPart(c)) {
+                result.append(upperCase ? Character.toUpperCase(c) : c);
+                upperCase = false;
+            } else {
+                upperCase = true;
+            }
+        }
+        return result.toString();
+    }
+
+
+    /**
+     * Generates the Java source code for an SVG template.
+     *
+     * @param template The template to convert.
+     * @param packageName The package of the generated class.
+     * @param className The simple name of the generated class.
+     * @param sourceName The name of the SVG file, used in comments.
+     *
+     * @return The Java source code of the generated class.
+     */
+    public static String generate(SvgTemplate template, String packageName, String className,
+                                  String sourceName) {
+        SvgCodeGenerator generator =
+                new SvgCodeGenerator(template, packageName, className, sourceName);
+        generator.generateClass();
+        return generator.out.toString();
+    }
+
+
+    /**
+     * Generates the Java source file for an SVG file.
+     *
+     * @param svgFile The SVG file to convert.
+     * @param sourceDirectory The root directory of the generated sources.
+     * @param packageName The package of the generated class.
+     *
+     * @return The generated Java source file.
+     *
+     * @throws IOException if the SVG file could not be loaded or the Java
+     *                     source file could not be written.
+     */
+    public static Path generate(Path svgFile, Path sourceDirectory, String packageName)
+            throws IOException {
+        SvgTemplate template = new SvgLoader().loadSvgTemplate(svgFile.toString());
+        if (template == null) {
+            throw new IOException("Could not load " + svgFile);
+        }
+
+        String fileName = svgFile.getFileName().toString();
+        String className = getClassName(fileName);
+
+        Path packageDirectory = sourceDirectory.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(packageDirectory);
+        Path javaFile = packageDirectory.resolve(className + ".java");
+        try (Writer writer = Files.newBufferedWriter(javaFile, StandardCharsets.UTF_8)) {
+            writer.write(generate(template, packageName, className, fileName));
+        }
+        return javaFile;
+    }
+
+
+    /**
+     * @param args The command line arguments, see the class description.
+     *
+     * @throws IOException if a file could not be converted.
+     */
+    public static void main(String[] args) throws IOException {
+        Path sourceDirectory = null;
+        String packageName = null;
+        List<Path> svgFiles = new ArrayList<>();
+        for (int i = 0;  i < args.length;  i++) {
+            if ("-d".equals(args[i]) && i + 1 < args.length) {
+                sourceDirectory = Paths.get(args[++i]);
+            } else if ("-p".equals(args[i]) && i + 1 < args.length) {
+                packageName = args[++i];
+            } else {
+                svgFiles.add(Paths.get(args[i]));
+            }
+        }
+
+        if (sourceDirectory == null || packageName == null || svgFiles.isEmpty()) {
+            System.err.println(
+                    "Usage: SvgCodeGenerator -d sourceDirectory -p packageName file.svg ...");
+            System.exit(1);
+        }
+
+        for (Path svgFile : svgFiles) {
+            Path javaFile = generate(svgFile, sourceDirectory, packageName);
+            System.out.println(svgFile + " -> " + javaFile);
+        }
+    }
+
+
+    private void generateClass() {
+        out.append("// Generated by ").append(SvgCodeGenerator.class.getName())
+           .append(" from ").append(sourceName).append(" - do not edit.\n\n");
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+
+        out.append("import javafx.scene.Group;\n")
+           .append("import javafx.scene.paint.Color;\n")
+           .append("import javafx.scene.paint.CycleMethod;\n")
+           .append("import javafx.scene.paint.LinearGradient;\n")
+           .append("import javafx.scene.paint.Paint;\n")
+           .append("import javafx.scene.paint.RadialGradient;\n")
+           .append("import javafx.scene.paint.Stop;\n")
+           .append("import javafx.scene.shape.Circle;\n")
+           .append("import javafx.scene.shape.CubicCurve;\n")
+           .append("import javafx.scene.shape.Ellipse;\n")
+           .append("import javafx.scene.shape.FillRule;\n")
+           .append("import javafx.scene.shape.Line;\n")
+           .append("import javafx.scene.shape.Polygon;\n")
+           .append("import javafx.scene.shape.Polyline;\n")
+           .append("import javafx.scene.shape.Rectangle;\n")
+           .append("import javafx.scene.shape.SVGPath;\n")
+           .append("import javafx.scene.shape.Shape;\n")
+           .append("import javafx.scene.text.Font;\n")
+           .append("import javafx.scene.text.Text;\n")
+           .append("import javafx.scene.transform.Affine;\n\n")
+           .append("import java.util.ArrayDeque;\n")
+           .append("import java.util.Deque;\n")
+           .append("import java.util.function.Supplier;\n\n\n");
+
+        out.append("/**\n")
+           .append(" * Creates the node tree of ").append(sourceName).append(".\n")
+           .append(" */\n")
+           .append("public final class ").append(className)
+           .append(" implements Supplier<Group> {\n\n");
+
+        generateObjects();
+        generateFactoryMethods();
+        generateHelpers();
+
+        out.append("}\n");
+    }
+
+
+    private void generateObjects() {
+        Object[] objects = template.getObjects();
+        for (int i = 0;  i < objects.length;  i++) {
+            Object value = objects[i];
+            if (value instanceof FillRule) {
+                continue;       // referenced directly
+            }
+
+            out.append("    private static final ")
+               .append(value instanceof Font ? "Font" : "Paint")
+               .append(" OBJ").append(i).append(" = ");
+            appendObject(value);
+            out.append(";\n");
+        }
+        out.append("\n\n");
+    }
+
+
+    private void generateFactoryMethods() {
+        // generate the node creation code first, to know the number of methods
+        List<String> methods = new ArrayList<>();
+        StringBuilder method = new StringBuilder();
+        final int[] ops = template.getOps();
+        final double[] numbers = template.getNumbers();
+        int depth = 0;
+        int nodes = 0;
+        int op = 0;
+        int num = 0;
+        while (op < ops.length) {
+            final int opcode = ops[op++];
+            if (opcode == SvgTemplate.END) {
+                depth--;
+                if (depth > 0) {
+                    method.append("        parents.pop();\n");
+                }
+                continue;
+            }
+
+            if (nodes > 0 && nodes % NODES_PER_METHOD == 0) {
+                methods.add(method.toString());
+                method.setLength(0);
+            }
+            nodes++;
+
+            final int idIndex = ops[op++];
+            final int transformCount = ops[op++];
+            final int transformStart = num;
+            num += 6 * transformCount;
+
+            String variable;
+            if (opcode == SvgTemplate.GROUP) {
+                variable = "group";
+                method.append("        group = new Group();\n");
+            } else {
+                final int fillIndex = ops[op++];
+                final int strokeIndex = ops[op++];
+                final int dashCount = ops[op++];
+                final double strokeWidth = numbers[num++];
+                final double dashOffset = numbers[num++];
+                final int dashStart = num;
+                num += dashCount;
+
+                variable = "shape";
+                method.append("        shape = ");
+                switch (opcode) {
+                  case SvgTemplate.PATH :
+                      method.append("path(");
+                      appendString(method, template.getStrings()[ops[op++]]);
+                      method.append(", FillRule.")
+                            .append(((FillRule) template.getObjects()[ops[op++]]).name())
+                            .append(")");
+                      break;
+
+                  case SvgTemplate.RECT :
+                      method.append("rect(");
+                      appendNumbers(method, numbers, num, 6);
+                      method.append(")");
+                      num += 6;
+                      break;
+
+                  case SvgTemplate.CIRCLE :
+                      method.append("new Circle(");
+                      appendNumbers(method, numbers, num, 3);
+                      method.append(")");
+                      num += 3;
+                      break;
+
+                  case SvgTemplate.ELLIPSE :
+                      method.append("new Ellipse(");
+                      appendNumbers(method, numbers, num, 4);
+                      method.append(")");
+                      num += 4;
+                      break;
+
+                  case SvgTemplate.LINE :
+                      method.append("new Line(");
+                      appendNumbers(method, numbers, num, 4);
+                      method.append(")");
+                      num += 4;
+                      break;
+
+                  case SvgTemplate.POLYGON :
+                      method.append("new Polygon(");
+                      appendNumbers(method, numbers, num, ops[op]);
+                      method.append(")");
+                      num += ops[op++];
+                      break;
+
+                  case SvgTemplate.POLYLINE :
+                      method.append("new Polyline(");
+                      appendNumbers(method, numbers, num, ops[op]);
+                      method.append(")");
+                      num += ops[op++];
+                      break;
+
+                  case SvgTemplate.CUBIC :
+                      method.append("new CubicCurve(");
+                      appendNumbers(method, numbers, num, 8);
+                      method.append(")");
+                      num += 8;
+                      break;
+
+                  case SvgTemplate.TEXT :
+                      method.append("text(");
+                      appendNumbers(method, numbers, num, 2);
+                      method.append(", ");
+                      appendString(method, template.getStrings()[ops[op++]]);
+                      method.append(", OBJ").append(ops[op++]).append(")");
+                      num += 2;
+                      break;
+
+                  default :
+                      throw new IllegalStateException("Invalid opcode " + opcode);
+                }
+                method.append(";\n");
+
+                method.append("        style(shape, ").append(getObjectName(fillIndex))
+                      .append(", ").append(getObjectName(strokeIndex)).append(", ");
+                appendNumber(method, strokeWidth);
+                method.append(");\n");
+                if (dashOffset != 0) {
+                    method.append("        shape.setStrokeDashOffset(");
+                    appendNumber(method, dashOffset);
+                    method.append(");\n");
+                }
+                if (dashCount > 0) {
+                    method.append("        shape.getStrokeDashArray().setAll(");
+                    appendNumbers(method, numbers, dashStart, dashCount);
+                    method.append(");\n");
+                }
+            }
+
+            if (idIndex >= 0) {
+                method.append("        ").append(variable).append(".setId(");
+                appendString(method, template.getStrings()[idIndex]);
+                method.append(");\n");
+            }
+            for (int i = 0;  i < transformCount;  i++) {
+                method.append("        ").append(variable)
+                      .append(".getTransforms().add(new Affine(");
+                appendNumbers(method, numbers, transformStart + 6 * i, 6);
+                method.append("));\n");
+            }
+
+            if (depth > 0) {
+                method.append("        parents.peek().getChildren().add(")
+                      .append(variable).append(");\n");
+            }
+            if (opcode == SvgTemplate.GROUP) {
+                method.append("        parents.push(group);\n");
+                depth++;
+            }
+        }
+        methods.add(method.toString());
+
+        out.append("    /**\n")
+           .append("     * @return A new node tree which represents ").append(sourceName)
+           .append(".\n")
+           .append("     */\n")
+           .append("    public static Group createNode() {\n")
+           .append("        Deque<Group> parents = new ArrayDeque<>();\n");
+        for (int i = 0;  i < methods.size();  i++) {
+            out.append("        createNodes").append(i).append("(parents);\n");
+        }
+        out.append("        return parents.pop();\n")
+           .append("    }\n\n\n")
+           .append("    @Override\n")
+           .append("    public Group get() {\n")
+           .append("        return createNode();\n")
+           .append("    }\n\n");
+
+        for (int i = 0;  i < methods.size();  i++) {
+            out.append("\n    private static void createNodes").append(i)
+               .append("(Deque<Group> parents) {\n")
+               .append("        Group group;\n")
+               .append("        Shape shape;\n")
+               .append(methods.get(i))
+               .append("    }\n\n");
+        }
+    }
+
+
+    private void generateHelpers() {
+        out.append("\n")
+           .append("    private static Shape path(String content, FillRule fillRule) {\n")
+           .append("        SVGPath result = new SVGPath();\n")
+           .append("        result.setContent(content);\n")
+           .append("        result.setFillRule(fillRule);\n")
+           .append("        return result;\n")
+           .append("    }\n\n\n")
+           .append("    private static Shape rect(double x, double y, double width,\n")
+           .append("                              double height, double arcWidth,\n")
+           .append("                              double arcHeight) {\n")
+           .append("        Rectangle result = new Rectangle(x, y, width, height);\n")
+           .append("        result.setArcWidth(arcWidth);\n")
+           .append("        result.setArcHeight(arcHeight);\n")
+           .append("        return result;\n")
+           .append("    }\n\n\n")
+           .append("    private static Shape text(double x, double y, String content,\n")
+           .append("                              Font font) {\n")
+           .append("        Text result = new Text(x, y, content);\n")
+           .append("        result.setFont(font);\n")
+           .append("        return result;\n")
+           .append("    }\n\n\n")
+           .append("    private static void style(Shape shape, Paint fill, Paint stroke,\n")
+           .append("                              double strokeWidth) {\n")
+           .append("        shape.setFill(fill);\n")
+           .append("        shape.setStroke(stroke);\n")
+           .append("        shape.setStrokeWidth(strokeWidth);\n")
+           .append("    }\n");
+    }
+
+
+    private static String getObjectName(int index) {
+        return index < 0 ? "null" : "OBJ" + index;
+    }
+
+
+    private void appendObject(Object value) {
+        if (value instanceof Color) {
+            appendColor((Color) value);
+        } else if (value instanceof LinearGradient) {
+            LinearGradient gradient = (LinearGradient) value;
+            out.append("new LinearGradient(");
+            appendNumbers(out, gradient.getStartX(), gradient.getStartY(),
+                          gradient.getEndX(), gradient.getEndY());
+            out.append(", ").append(gradient.isProportional())
+               .append(", CycleMethod.").append(gradient.getCycleMethod().name());
+            appendStops(gradient.getStops());
+            out.append(")");
+        } else if (value instanceof RadialGradient) {
+            RadialGradient gradient = (RadialGradient) value;
+            out.append("new RadialGradient(");
+            appendNumbers(out, gradient.getFocusAngle(), gradient.getFocusDistance(),
+                          gradient.getCenterX(), gradient.getCenterY(), gradient.getRadius());
+            out.append(", ").append(gradient.isProportional())
+               .append(", CycleMethod.").append(gradient.getCycleMethod().name());
+            appendStops(gradient.getStops());
+            out.append(")");
+        } else if (value instanceof Font) {
+            Font font = (Font) value;
+            out.append("new Font(");
+            appendString(out, font.getName());
+            out.append(", ");
+            appendNumber(out, font.getSize());
+            out.append(")");
+        } else {
+            throw new IllegalArgumentException("Unsupported object type: " + value.getClass());
+        }
+    }
+
+
+    private void appendColor(Color color) {
+        out.append("new Color(");
+        appendNumbers(out, color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity());
+        out.append(")");
+    }
+
+
+    private void appendStops(List<Stop> stops) {
+        for (Stop stop : stops) {
+            out.append(",\n            new Stop(");
+            appendNumber(out, stop.getOffset());
+            out.append(", ");
+            appendColor(stop.getColor());
+            out.append(")");
+        }
+    }
+
+
+    private static void appendNumbers(StringBuilder dest, double[] values, int start, int count) {
+        for (int i = 0;  i < count;  i++) {
+            if (i > 0) {
+                dest.append(", ");
+            }
+            appendNumber(dest, values[start + i]);
+        }
+    }
+
+
+    private static void appendNumbers(StringBuilder dest, double... values) {
+        appendNumbers(dest, values, 0, values.length);
+    }
+
+
+    private static void appendNumber(StringBuilder dest, double value) {
+        if (Double.isNaN(value)) {
+            dest.append("Double.NaN");
+        } else if (Double.isInfinite(value)) {
+            dest.append(value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY");
+        } else {
+            dest.append(value);
+        }
+    }
+
+
+    private static void appendString(StringBuilder dest, String value) {
+        if (value.length() <= MAX_LITERAL_LENGTH) {
+            appendLiteral(dest, value, 0, value.length());
+            return;
+        }
+
+        // Constant expressions like "a" + "b" are folded into a single
+        // constant by the compiler, so the chunks are joined at runtime
+        dest.append("new StringBuilder(").append(value.length()).append(')');
+        for (int start = 0;  start < value.length();  start += MAX_LITERAL_LENGTH) {
+            dest.append(".append(");
+            appendLiteral(dest, value, start, Math.min(start + MAX_LITERAL_LENGTH, value.length()));
+            dest.append(')');
+        }
+        dest.append(".toString()");
+    }
+
+
+    private static void appendLiteral(StringBuilder dest, String value, int start, int end) {
+        dest.append('"');
+        for (int i = start;  i < end;  i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+              case '"' :  dest.append("\\\""); break;
+              case '\\' : dest.append("\\\\"); break;
+              case '\n' : dest.append("\\n"); break;
+              case '\r' : dest.append("\\r"); break;
+              case '\t' : dest.append("\\t"); break;
+
+              default :
+                  if (c < 0x20 || c > 0x7e) {
+                      dest.append(String.format("\\u%04x", (int) c));
+                  } else {
+                      dest.append(c);
+                  }
+            }
+        }
+        dest.append('"');
+    }
+}
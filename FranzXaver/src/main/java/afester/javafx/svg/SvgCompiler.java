@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Offline tool which converts SVG files into the binary compiled SVG
+ * format (<code>.svgc</code>). Compiled SVG files can be loaded with
+ * {@link SvgLoader#loadCompiledTemplate(Path)} without XML parsing and
+ * style resolution, which is useful for assets which never change at runtime.
+ * <p>
+ * Usage: <code>SvgCompiler [-d outputDirectory] file.svg ...</code></p>
+ * <p>
+ * Each file is written to the output directory (by default the directory of
+ * the SVG file), with its <code>.svg</code> extension replaced by
+ * <code>.svgc</code>. The compiled files need to be recreated whenever the SVG
+ * files or the SvgLoader change.</p>
+ */
+public final class SvgCompiler {
+
+    private SvgCompiler() {
+    }
+
+
+    /**
+     * Compiles an SVG file.
+     *
+     * @param svgFile The SVG file to compile.
+     * @param svgcFile The compiled SVG file to write.
+     *
+     * @throws IOException if the SVG file could not be loaded or the compiled
+     *                     file could not be written.
+     */
+    public static void compile(Path svgFile, Path svgcFile) throws IOException {
+        SvgTemplate template = new SvgLoader().loadSvgTemplate(svgFile.toString());
+        if (template == null) {
+            throw new IOException("Could not load " + svgFile);
+        }
+
+        try (OutputStream output = Files.newOutputStream(svgcFile)) {
+            template.write(output);
+        }
+    }
+
+
+    /**
+     * @param args The command line arguments, see the class description.
+     *
+     * @throws IOException if a file could not be compiled.
+     */
+    public static void main(String[] args) throws IOException {
+        Path outputDirectory = null;
+        List<Path> svgFiles = new ArrayList<>();
+        for (int i = 0;  i < args.length;  i++) {
+            if ("-d".equals(args[i]) && i + 1 < args.length) {
+                outputDirectory = Paths.get(args[++i]);
+            } else {
+                svgFiles.add(Paths.get(args[i]));
+            }
+        }
+
+        if (svgFiles.isEmpty()) {
+            System.err.println("Usage: SvgCompiler [-d outputDirectory] file.svg ...");
+            System.exit(1);
+        }
+
+        for (Path svgFile : svgFiles) {
+            String fileName = svgFile.getFileName().toString();
+            if (fileName.endsWith(".svg")) {
+                fileName = fileName.substring(0, fileName.length() - 4);
+            }
+
+            Path directory = outputDirectory != null ? outputDirectory
+                                                     : svgFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path svgcFile = directory.resolve(fileName + ".svgc");
+            compile(svgFile, svgcFile);
+            System.out.println(svgFile + " -> " + svgcFile);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.transform.Transform;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.apache.batik.anim.dom.SVGOMElement;
+import org.apache.batik.css.engine.CSSEngine;
+import org.apache.batik.css.engine.CSSEngineEvent;
+import org.apache.batik.css.engine.CSSEngineListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Element;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+
+/**
+ * Keeps a drawing up to date with the SVG document it has been created from.
+ * <p>
+ * The binding listens to attribute modifications of the document. When an
+ * attribute of an element changes, the element is converted again and the
+ * properties of the existing node which represents the element are updated
+ * with the new values, so that listeners and other state of the node are
+ * retained. Changes of the computed style are reported by the CSS engine of
+ * the document, which also reports the child elements which inherit a
+ * modified property, so that only the nodes whose style has actually changed
+ * are updated. Each modification converts an element at most once: attributes
+ * which affect the style are only handled through the CSS engine.</p>
+ * <p>
+ * Only attribute modifications are reflected. Inserting or removing
+ * elements requires a new conversion of the document. The document must
+ * only be modified on the JavaFX application thread once the drawing is
+ * part of a scene.</p>
+ */
+public final class SvgDocumentBinding {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String ATTR_MODIFIED = "DOMAttrModified";
+    private static final String STYLE_ATTRIBUTE = "style";
+    private static final String CLASS_ATTRIBUTE = "class";
+
+    private final SVGOMDocument document;
+    private final Group drawing;
+    private final Map<Element, Node> nodes;
+    private final Function<SVGOMElement, Node> converter;
+
+    // the transformations which the loader has created for the nodes
+    private final Map<Node, List<Transform>> loaderTransforms = new HashMap<>();
+    private final EventListener listener = this::attributeModified;
+    private final CSSEngineListener cssListener = this::propertiesChanged;
+
+
+    SvgDocumentBinding(SVGOMDocument document, Group drawing, Map<Element, Node> nodes,
+                       Function<SVGOMElement, Node> converter) {
+        this.document = document;
+        this.drawing = drawing;
+        this.nodes = nodes;
+        this.converter = converter;
+        for (Node node : nodes.values()) {
+            loaderTransforms.put(node, new ArrayList<>(node.getTransforms()));
+        }
+
+        ((EventTarget) document).addEventListener(ATTR_MODIFIED, listener, false);
+        document.getCSSEngine().addCSSEngineListener(cssListener);
+    }
+
+
+    /**
+     * @return The document which is bound to the drawing.
+     */
+    public SVGOMDocument getDocument() {
+        return document;
+    }
+
+
+    /**
+     * @return The root node of the drawing.
+     */
+    public Group getDrawing() {
+        return drawing;
+    }
+
+
+    /**
+     * @param element An element of the document.
+     *
+     * @return The node which represents the element, or <code>null</code> if
+     *         the element is not represented by a single node.
+     */
+    public Node getNode(Element element) {
+        return nodes.get(element);
+    }
+
+
+    /**
+     * Stops updating the drawing when the document is modified.
+     */
+    public void dispose() {
+        ((EventTarget) document).removeEventListener(ATTR_MODIFIED, listener, false);
+        document.getCSSEngine().removeCSSEngineListener(cssListener);
+    }
+
+
+    // the geometry and the transformation of an element - the computed style
+    // is not yet updated when the event is dispatched, and the CSS engine reports
+    // the elements afterwards if the attribute has changed their style
+    private void attributeModified(Event event) {
+        if (event.getTarget() instanceof SVGOMElement
+            && !isStyleAttribute(((MutationEvent) event).getAttrName())) {
+            updateElement((SVGOMElement) event.getTarget());
+        }
+    }
+
+
+    private boolean isStyleAttribute(String name) {
+        CSSEngine engine = document.getCSSEngine();
+        return STYLE_ATTRIBUTE.equals(name) || CLASS_ATTRIBUTE.equals(name)
+               || engine.getPropertyIndex(name) != -1 || engine.getShorthandIndex(name) != -1;
+    }
+
+
+    private void propertiesChanged(CSSEngineEvent event) {
+        if (event.getElement() instanceof SVGOMElement) {
+            updateElement((SVGOMElement) event.getElement());
+        }
+    }
+
+
+    private void updateElement(SVGOMElement element) {
+        Node target = nodes.get(element);
+        if (target == null) {
+            return;
+        }
+
+        Node source = converter.apply(element);
+        if (source == null || source.getClass() != target.getClass()) {
+            logger.warn("Can not update {} from {}", target, element);
+            return;
+        }
+        SvgLiveReload.updateProperties(target, source, loaderTransforms);
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.collections.ObservableList;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+
+import java.awt.geom.AffineTransform;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * Reduces the depth of a drawing and the number of transformations in it.
+ * <p>
+ * Groups which only structure the drawing are replaced by their child nodes,
+ * and the transformations of the groups are moved to the child nodes. A group
+ * is kept if it has an id which is needed by the application, or if it has any
+ * property which affects its children as a whole, like an opacity, a clip or
+ * an effect. A group with a transformation is only removed if all of its
+ * shapes can apply the transformation to their geometry.</p>
+ * <p>
+ * Afterwards, the transformations of the shapes are applied to their geometry
+ * where possible. This is the case if the transformation consists of a
+ * translation, rotation and uniform scaling, and if the shape is filled and
+ * stroked with plain colors - the stroke width is scaled accordingly.
+ * Rectangles and ellipses can only be translated and scaled. Other nodes,
+ * like text, keep their transformations.</p>
+ */
+public final class SvgGroupFlattener {
+
+    private static final double EPSILON = 1e-9;
+
+    private SvgGroupFlattener() {
+    }
+
+
+    /**
+     * Flattens a drawing. Groups which have an id are not removed.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     *
+     * @return The number of groups which have been removed from the drawing.
+     */
+    public static int flattenGroups(Group drawing) {
+        return flattenGroups(drawing, id -> true);
+    }
+
+
+    /**
+     * Flattens a drawing.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     * @param keepId Decides whether a group with the given id must be kept.
+     *
+     * @return The number of groups which have been removed from the drawing.
+     */
+    public static int flattenGroups(Group drawing, Predicate<String> keepId) {
+        // all groups in pre order - processing them in reverse order handles
+        // the children of each group before the group itself
+        List<Group> groups = new ArrayList<>();
+        Deque<Group> pending = new ArrayDeque<>();
+        pending.push(drawing);
+        while (!pending.isEmpty()) {
+            Group group = pending.pop();
+            groups.add(group);
+            for (Node child : group.getChildren()) {
+                if (child.getClass() == Group.class) {
+                    pending.push((Group) child);
+                }
+            }
+        }
+
+        int result = 0;
+        Collections.reverse(groups);
+        for (Group group : groups) {
+            result += flattenChildren(group, keepId);
+        }
+
+        // apply the transformations of the shapes in the remaining groups
+        for (Group group : groups) {
+            if (group == drawing || group.getParent() != null) {
+                for (Node child : group.getChildren()) {
+                    if (child instanceof Shape) {
+                        bakeTransforms((Shape) child);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    private static int flattenChildren(Group group, Predicate<String> keepId) {
+        ObservableList<Node> children = group.getChildren();
+        List<Node> result = new ArrayList<>(children.size());
+
+        int removed = 0;
+        for (Node child : children) {
+            if (isRemovable(child, keepId)) {
+                Group childGroup = (Group) child;
+                List<Node> grandChildren = new ArrayList<>(childGroup.getChildren());
+                childGroup.getChildren().clear();
+                for (Node grandChild : grandChildren) {
+                    grandChild.getTransforms().addAll(0, childGroup.getTransforms());
+                    result.add(grandChild);
+                }
+                removed++;
+            } else {
+                result.add(child);
+            }
+        }
+
+        if (removed > 0) {
+            children.setAll(result);
+        }
+        return removed;
+    }
+
+
+    private static boolean isRemovable(Node node, Predicate<String> keepId) {
+        if (node.getClass() != Group.class) {
+            return false;
+        }
+
+        return SvgNodeTools.isPlain(node, keepId)
+            && node.getBlendMode() == null
+            && node.getOpacity() == 1
+            && !node.isMouseTransparent()
+            && SvgNodeTools.hasNoNodeTransform(node)
+            && canMoveTransform((Group) node);
+    }
+
+
+    // A transformation is only moved to the children of a group if all shapes
+    // can apply it to their geometry, so that the shapes do not end up with
+    // more transformations than before. Remaining groups take over the
+    // transformation as it is.
+    private static boolean canMoveTransform(Group group) {
+        Transform t = getTransform(group);
+        if (t.isIdentity()) {
+            return true;
+        }
+
+        for (Node child : group.getChildren()) {
+            if (!(child instanceof Group)
+                && !canBake(child, t.createConcatenation(getTransform(child)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // the combined transformation of the transformation list of a node
+    private static Transform getTransform(Node node) {
+        Transform result = new Affine();
+        for (Transform transform : node.getTransforms()) {
+            result = result.createConcatenation(transform);
+        }
+        return result;
+    }
+
+
+    private static boolean isTransform2D(Transform t) {
+        return t.getMxz() == 0 && t.getMyz() == 0 && t.getMzx() == 0 && t.getMzy() == 0
+            && t.getMzz() == 1 && t.getTz() == 0;
+    }
+
+
+    private static boolean isPaintBakeable(Shape shape) {
+        return (shape.getFill() == null || shape.getFill() instanceof Color)
+            && (shape.getStroke() == null || shape.getStroke() instanceof Color);
+    }
+
+
+    /**
+     * @return <code>true</code> if the transformation can be applied to the geometry
+     *         of the shape.
+     */
+    private static boolean canBake(Node node, Transform t) {
+        if (!(node instanceof Shape) || !SvgNodeTools.hasNoNodeTransform(node)
+            || node.getClip() != null
+            || !isPaintBakeable((Shape) node) || !isTransform2D(t)) {
+            return false;
+        }
+
+        // only translation, rotation and uniform scaling keep the stroke uniform
+        if (Math.abs(t.getMxx() - t.getMyy()) > EPSILON
+            || Math.abs(t.getMxy() + t.getMyx()) > EPSILON) {
+            return false;
+        }
+
+        if (node instanceof Rectangle || node instanceof Ellipse) {
+            return !isRotated(t);
+        }
+        return node instanceof SVGPath || node instanceof Polygon || node instanceof Polyline
+            || node instanceof Line || node instanceof Circle;
+    }
+
+
+    private static boolean isRotated(Transform t) {
+        return Math.abs(t.getMyx()) > EPSILON || t.getMxx() < 0;
+    }
+
+
+    /**
+     * Applies the transformations of a shape to its geometry, if possible.
+     */
+    private static void bakeTransforms(Shape shape) {
+        if (shape.getTransforms().isEmpty()) {
+            return;
+        }
+
+        Transform t = getTransform(shape);
+        if (!canBake(shape, t)) {
+            return;
+        }
+        final double scale = Math.hypot(t.getMxx(), t.getMyx());
+
+        boolean baked = false;
+        if (shape instanceof SVGPath) {
+            baked = bakePath((SVGPath) shape, t);
+        } else if (shape instanceof Polygon) {
+            transformPoints(((Polygon) shape).getPoints(), t);
+            baked = true;
+        } else if (shape instanceof Polyline) {
+            transformPoints(((Polyline) shape).getPoints(), t);
+            baked = true;
+        } else if (shape instanceof Line) {
+            bakeLine((Line) shape, t);
+            baked = true;
+        } else if (shape instanceof Circle) {
+            Circle circle = (Circle) shape;
+            final double x = circle.getCenterX();
+            final double y = circle.getCenterY();
+            circle.setCenterX(t.getMxx() * x + t.getMxy() * y + t.getTx());
+            circle.setCenterY(t.getMyx() * x + t.getMyy() * y + t.getTy());
+            circle.setRadius(circle.getRadius() * scale);
+            baked = true;
+        } else if (shape instanceof Rectangle) {
+            bakeRectangle((Rectangle) shape, t, scale);
+            baked = true;
+        } else if (shape instanceof Ellipse) {
+            Ellipse ellipse = (Ellipse) shape;
+            ellipse.setCenterX(ellipse.getCenterX() * scale + t.getTx());
+            ellipse.setCenterY(ellipse.getCenterY() * scale + t.getTy());
+            ellipse.setRadiusX(ellipse.getRadiusX() * scale);
+            ellipse.setRadiusY(ellipse.getRadiusY() * scale);
+            baked = true;
+        }
+
+        if (baked) {
+            shape.getTransforms().clear();
+            scaleStroke(shape, scale);
+        }
+    }
+
+
+    private static boolean bakePath(SVGPath path, Transform t) {
+        AffineTransform transform = new AffineTransform(t.getMxx(), t.getMyx(),
+                                                        t.getMxy(), t.getMyy(),
+                                                        t.getTx(), t.getTy());
+        String content = PathSimplifier.transformPath(path.getContent(), transform);
+        if (content == null) {
+            return false;
+        }
+        path.setContent(content);
+        return true;
+    }
+
+
+    private static void transformPoints(ObservableList<Double> points, Transform t) {
+        Double[] result = new Double[points.size()];
+        for (int i = 0;  i + 1 < result.length;  i += 2) {
+            final double x = points.get(i);
+            final double y = points.get(i + 1);
+            result[i] = t.getMxx() * x + t.getMxy() * y + t.getTx();
+            result[i + 1] = t.getMyx() * x + t.getMyy() * y + t.getTy();
+        }
+        points.setAll(result);
+    }
+
+
+    private static void bakeLine(Line line, Transform t) {
+        final double x1 = line.getStartX();
+        final double y1 = line.getStartY();
+        final double x2 = line.getEndX();
+        final double y2 = line.getEndY();
+        line.setStartX(t.getMxx() * x1 + t.getMxy() * y1 + t.getTx());
+        line.setStartY(t.getMyx() * x1 + t.getMyy() * y1 + t.getTy());
+        line.setEndX(t.getMxx() * x2 + t.getMxy() * y2 + t.getTx());
+        line.setEndY(t.getMyx() * x2 + t.getMyy() * y2 + t.getTy());
+    }
+
+
+    private static void bakeRectangle(Rectangle rect, Transform t, double scale) {
+        rect.setX(rect.getX() * scale + t.getTx());
+        rect.setY(rect.getY() * scale + t.getTy());
+        rect.setWidth(rect.getWidth() * scale);
+        rect.setHeight(rect.getHeight() * scale);
+        rect.setArcWidth(rect.getArcWidth() * scale);
+        rect.setArcHeight(rect.getArcHeight() * scale);
+    }
+
+
+    private static void scaleStroke(Shape shape, double scale) {
+        shape.setStrokeWidth(shape.getStrokeWidth() * scale);
+        shape.setStrokeDashOffset(shape.getStrokeDashOffset() * scale);
+        ObservableList<Double> dashes = shape.getStrokeDashArray();
+        for (int i = 0;  i < dashes.size();  i++) {
+            dashes.set(i, dashes.get(i) * scale);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.beans.InvalidationListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A group whose child nodes are only created when they are needed.
+ * <p>
+ * The SvgLoader creates a lazy group for each top-level <code>&lt;g&gt;</code>
+ * element (layer) of a drawing when using {@link SvgLoader#loadSvgLazy(String)}.
+ * The group has the same id and transformations as the layer, but its child
+ * nodes are kept as a compact {@link SvgTemplate}. Until the child nodes are
+ * {@link #materialize() materialized}, the group only contains a transparent
+ * placeholder rectangle with the bounds of the child nodes, so that the group
+ * has the same layout bounds as the fully created layer.</p>
+ * <p>
+ * Note that the complete node tree of the drawing is created once while loading,
+ * in order to compute the bounds of the layers and to compile their templates.
+ * The peak memory consumption during loading is therefore the same as with a
+ * regular load; the savings only apply afterwards, as long as layers are not
+ * materialized.</p>
+ * <p>
+ * Applications typically use {@link #bindVisibility(Parent, Node, boolean)} to
+ * update the layers automatically whenever the visible area of the drawing
+ * changes, for example when scrolling or zooming. Alternatively,
+ * {@link #updateVisibility(Parent, Bounds, boolean)} can be called explicitly.</p>
+ */
+public class SvgLazyGroup extends Group {
+
+    private final SvgTemplate content;
+    private final Bounds contentBounds;
+    private final Rectangle placeholder;
+    private boolean materialized = false;
+
+
+    /**
+     * Replaces the child nodes of a group with a lazy representation.
+     *
+     * @param layer The group to convert. Its child nodes are removed.
+     *
+     * @return A new lazy group with the id and the transformations of the
+     *         given group.
+     */
+    static SvgLazyGroup create(Group layer) {
+        Bounds bounds = layer.getLayoutBounds();
+
+        Group children = new Group();
+        children.getChildren().setAll(new ArrayList<>(layer.getChildren()));
+
+        SvgLazyGroup result = new SvgLazyGroup(SvgTemplate.compile(children), bounds);
+        result.setId(layer.getId());
+        result.getTransforms().setAll(layer.getTransforms());
+        return result;
+    }
+
+
+    private SvgLazyGroup(SvgTemplate content, Bounds contentBounds) {
+        this.content = content;
+        this.contentBounds = contentBounds;
+
+        placeholder = new Rectangle(contentBounds.getMinX(), contentBounds.getMinY(),
+                                    contentBounds.getWidth(), contentBounds.getHeight());
+        // shapes without fill and stroke, as well as invisible nodes, do not
+        // contribute to the bounds of their parent
+        placeholder.setFill(Color.TRANSPARENT);
+        placeholder.setStroke(null);
+        placeholder.setMouseTransparent(true);
+        getChildren().add(placeholder);
+    }
+
+
+    /**
+     * @return The bounds of the child nodes, in the local coordinates of this group.
+     *         They are available without creating the child nodes.
+     */
+    public Bounds getContentBounds() {
+        return contentBounds;
+    }
+
+
+    /**
+     * @return <code>true</code> if the child nodes have been created.
+     */
+    public boolean isMaterialized() {
+        return materialized;
+    }
+
+
+    /**
+     * Creates the child nodes, if they do not exist yet.
+     */
+    public void materialize() {
+        if (!materialized) {
+            Group children = content.instantiate();
+            getChildren().setAll(new ArrayList<>(children.getChildren()));
+            materialized = true;
+        }
+    }
+
+
+    /**
+     * Removes the child nodes and replaces them with the placeholder again,
+     * so that they can be garbage collected. Any modifications of the child
+     * nodes are lost.
+     */
+    public void release() {
+        if (materialized) {
+            getChildren().setAll(placeholder);
+            materialized = false;
+        }
+    }
+
+
+    /**
+     * Materializes this group if it intersects a given area.
+     *
+     * @param visibleArea The visible area, in scene coordinates.
+     * @param releaseInvisible Whether to release the child nodes if this group
+     *                         does not intersect the visible area.
+     */
+    public void updateVisibility(Bounds visibleArea, boolean releaseInvisible) {
+        if (localToScene(contentBounds).intersects(visibleArea)) {
+            materialize();
+        } else if (releaseInvisible) {
+            release();
+        }
+    }
+
+
+    /**
+     * Updates all lazy groups in a node tree, as returned by
+     * {@link SvgLoader#loadSvgLazy(String)}.
+     *
+     * @param drawing The root of the node tree.
+     * @param visibleArea The visible area, in scene coordinates.
+     * @param releaseInvisible Whether to release the child nodes of the groups
+     *                         which do not intersect the visible area.
+     *
+     * @see #updateVisibility(Bounds, boolean)
+     */
+    public static void updateVisibility(Parent drawing, Bounds visibleArea,
+                                        boolean releaseInvisible) {
+        for (Node child : drawing.getChildrenUnmodifiable()) {
+            if (child instanceof SvgLazyGroup) {
+                ((SvgLazyGroup) child).updateVisibility(visibleArea, releaseInvisible);
+            }
+        }
+    }
+
+
+    /**
+     * Keeps the lazy groups of a drawing up to date with the area which is
+     * visible through a viewport node, for example the ScrollPane which contains
+     * the drawing. The lazy groups are updated immediately, and then whenever
+     * the bounds of the viewport or the transformation of the drawing or the
+     * viewport to the scene changes.
+     *
+     * @param drawing The root of the node tree, as returned by
+     *                {@link SvgLoader#loadSvgLazy(String)}.
+     * @param viewport The node whose layout bounds define the visible area.
+     * @param releaseInvisible Whether to release the child nodes of the groups
+     *                         which do not intersect the visible area.
+     *
+     * @return The binding, which can be used to remove it again.
+     */
+    public static VisibilityBinding bindVisibility(Parent drawing, Node viewport,
+                                                   boolean releaseInvisible) {
+        VisibilityBinding result = new VisibilityBinding(drawing, viewport, releaseInvisible);
+        drawing.localToSceneTransformProperty().addListener(result.listener);
+        viewport.localToSceneTransformProperty().addListener(result.listener);
+        viewport.layoutBoundsProperty().addListener(result.listener);
+        result.update();
+        return result;
+    }
+
+
+    /**
+     * Updates the lazy groups of a drawing when the visible area changes.
+     *
+     * @see SvgLazyGroup#bindVisibility(Parent, Node, boolean)
+     */
+    public static final class VisibilityBinding {
+        private final Parent drawing;
+        private final Node viewport;
+        private final boolean releaseInvisible;
+        private final InvalidationListener listener = observable -> update();
+
+        private VisibilityBinding(Parent drawing, Node viewport, boolean releaseInvisible) {
+            this.drawing = drawing;
+            this.viewport = viewport;
+            this.releaseInvisible = releaseInvisible;
+        }
+
+
+        /**
+         * Updates the lazy groups to the current visible area. This is done
+         * automatically when the visible area changes.
+         */
+        public void update() {
+            Bounds visibleArea = viewport.localToScene(viewport.getLayoutBounds());
+            updateVisibility(drawing, visibleArea, releaseInvisible);
+        }
+
+
+        /**
+         * Stops updating the lazy groups. Their current state is kept.
+         */
+        public void unbind() {
+            drawing.localToSceneTransformProperty().removeListener(listener);
+            viewport.localToSceneTransformProperty().removeListener(listener);
+            viewport.layoutBoundsProperty().removeListener(listener);
+        }
+    }
+
+
+    /**
+     * Converts all top-level groups of a drawing into lazy groups.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     */
+    static void createLazyLayers(Group drawing) {
+        List<Node> children = drawing.getChildren();
+        for (int i = 0;  i < children.size();  i++) {
+            Node child = children.get(i);
+            if (child.getClass() == Group.class) {
+                children.set(i, create((Group) child));
+            }
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * Adapts the level of detail of a drawing to the scale at which it is rendered.
+ * <p>
+ * When a drawing is rendered at a small scale, for example as the graphic of a
+ * button, most vertices of its paths are closer to each other than a pixel.
+ * Once installed on a drawing, this class replaces the geometry of the paths,
+ * polylines and polygons with simplified variants which deviate by at most
+ * {@link #setTolerance(double) tolerance} pixels from the original geometry,
+ * and hides shapes which are smaller than {@link #setCullSize(double) cullSize}
+ * pixels. The variants are computed once per power-of-two scale step and are
+ * cached, so that zooming only switches between them. At a scale of 1 or more,
+ * the original geometry is used and no shapes are hidden.</p>
+ * <p>
+ * The scale is the scale of the drawing in the scene, multiplied by the output
+ * scale of the window which shows the scene, so that the tolerance and the cull
+ * size are device pixels also on HiDPI screens. The output scale of a window is
+ * only available since JavaFX 9; on JavaFX 8, both are logical pixels.</p>
+ * <p>
+ * Since the simplified geometry differs slightly from the original geometry,
+ * the bounds of the drawing can change by up to the tolerance when the level of
+ * detail changes. The transformations of the nodes within the drawing are
+ * evaluated when the level of detail is installed; the level of detail needs
+ * to be installed again if they are modified later.</p>
+ */
+public final class SvgLevelOfDetail {
+
+    private static final int MAX_LEVEL = 10;
+
+    private final Group drawing;
+    private final List<ShapeDetail> shapes = new ArrayList<>();
+    private final ChangeListener<Transform> transformListener = this::transformChanged;
+    private final InvalidationListener outputScaleListener = obs -> update();
+    private final InvalidationListener windowListener = this::windowChanged;
+    private final ChangeListener<Scene> sceneListener = this::sceneChanged;
+    private ReadOnlyDoubleProperty outputScaleX = null;
+    private ReadOnlyDoubleProperty outputScaleY = null;
+
+    private double tolerance = 0.25;
+    private double cullSize = 0.5;
+    private double currentScale = Double.NaN;
+
+
+    /**
+     * A shape which can be culled. Subclasses also provide simplified variants
+     * of the geometry of the shape.
+     */
+    private static class ShapeDetail {
+        final Shape shape;
+        final double localScale;
+        final double size;
+        boolean culled = false;
+
+        ShapeDetail(Shape shape, double localScale) {
+            this.shape = shape;
+            this.localScale = localScale;
+
+            Bounds bounds = shape.getLayoutBounds();
+            this.size = Math.max(bounds.getWidth(), bounds.getHeight());
+        }
+
+        void setLevel(int level, double localTolerance) {
+        }
+
+        void clearVariants() {
+        }
+    }
+
+
+    private static class PathDetail extends ShapeDetail {
+        private final String[] variants = new String[MAX_LEVEL + 1];
+
+        PathDetail(SVGPath path, double localScale) {
+            super(path, localScale);
+            variants[0] = path.getContent();
+        }
+
+        @Override
+        void setLevel(int level, double localTolerance) {
+            if (variants[level] == null) {
+                variants[level] = PathSimplifier.simplifyPath(variants[0], localTolerance);
+            }
+            ((SVGPath) shape).setContent(variants[level]);
+        }
+
+        @Override
+        void clearVariants() {
+            Arrays.fill(variants, 1, variants.length, null);
+        }
+    }
+
+
+    private static class PointsDetail extends ShapeDetail {
+        private final ObservableList<Double> points;
+        private final Double[][] variants = new Double[MAX_LEVEL + 1][];
+
+        PointsDetail(Shape shape, ObservableList<Double> points, double localScale) {
+            super(shape, localScale);
+            this.points = points;
+            variants[0] = points.toArray(new Double[points.size()]);
+        }
+
+        @Override
+        void setLevel(int level, double localTolerance) {
+            if (variants[level] == null) {
+                double[] original = new double[variants[0].length];
+                for (int i = 0;  i < original.length;  i++) {
+                    original[i] = variants[0][i];
+                }
+
+                double[] simplified = PathSimplifier.simplifyPoints(original, localTolerance);
+                Double[] variant = new Double[simplified.length];
+                for (int i = 0;  i < simplified.length;  i++) {
+                    variant[i] = simplified[i];
+                }
+                variants[level] = variant;
+            }
+            points.setAll(variants[level]);
+        }
+
+        @Override
+        void clearVariants() {
+            Arrays.fill(variants, 1, variants.length, null);
+        }
+    }
+
+
+    /**
+     * Installs the level of detail handling on a drawing. The level of detail is
+     * updated whenever the transformation of the drawing to the scene, or the
+     * output scale of the window which shows the drawing changes.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     *
+     * @return The level of detail handling, which can be used to adjust its
+     *         parameters or to uninstall it again.
+     */
+    public static SvgLevelOfDetail install(Group drawing) {
+        SvgLevelOfDetail result = new SvgLevelOfDetail(drawing);
+        drawing.localToSceneTransformProperty().addListener(result.transformListener);
+        drawing.sceneProperty().addListener(result.sceneListener);
+        result.sceneChanged(null, null, drawing.getScene());
+        result.update();
+        return result;
+    }
+
+
+    private SvgLevelOfDetail(Group drawing) {
+        this.drawing = drawing;
+
+        // the scale of each shape relative to the drawing
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Double> scales = new ArrayDeque<>();
+        for (Node child : drawing.getChildren()) {
+            nodes.add(child);
+            scales.add(1.0);
+        }
+        while (!nodes.isEmpty()) {
+            Node node = nodes.remove();
+            double scale = scales.remove() * getScale(node.getLocalToParentTransform());
+
+            if (node instanceof SVGPath) {
+                shapes.add(new PathDetail((SVGPath) node, scale));
+            } else if (node instanceof Polyline) {
+                shapes.add(new PointsDetail((Shape) node, ((Polyline) node).getPoints(), scale));
+            } else if (node instanceof Polygon) {
+                shapes.add(new PointsDetail((Shape) node, ((Polygon) node).getPoints(), scale));
+            } else if (node instanceof Shape) {
+                shapes.add(new ShapeDetail((Shape) node, scale));
+            } else if (node instanceof Parent) {
+                for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                    nodes.add(child);
+                    scales.add(scale);
+                }
+            }
+        }
+    }
+
+
+    // the (average) scale factor of the 2D part of a transformation
+    private static double getScale(Transform transform) {
+        double determinant = transform.getMxx() * transform.getMyy()
+                           - transform.getMxy() * transform.getMyx();
+        return Math.sqrt(Math.abs(determinant));
+    }
+
+
+    private void transformChanged(ObservableValue<? extends Transform> value,
+                                  Transform oldTransform, Transform newTransform) {
+        update();
+    }
+
+
+    private void sceneChanged(ObservableValue<? extends Scene> value,
+                              Scene oldScene, Scene newScene) {
+        if (oldScene != null) {
+            oldScene.windowProperty().removeListener(windowListener);
+        }
+        if (newScene != null) {
+            newScene.windowProperty().addListener(windowListener);
+        }
+        windowChanged(null);
+    }
+
+
+    private void windowChanged(Observable value) {
+        Scene scene = drawing.getScene();
+        setWindow(scene == null ? null : scene.getWindow());
+        update();
+    }
+
+
+    private void setWindow(Window window) {
+        if (outputScaleX != null) {
+            outputScaleX.removeListener(outputScaleListener);
+            outputScaleY.removeListener(outputScaleListener);
+        }
+        outputScaleX = getOutputScaleProperty(window, "outputScaleXProperty");
+        outputScaleY = getOutputScaleProperty(window, "outputScaleYProperty");
+        if (outputScaleX == null || outputScaleY == null) {
+            outputScaleX = null;
+            outputScaleY = null;
+        } else {
+            outputScaleX.addListener(outputScaleListener);
+            outputScaleY.addListener(outputScaleListener);
+        }
+    }
+
+
+    // Window.outputScaleX/Y were added in JavaFX 9, so they are looked up at runtime
+    private static ReadOnlyDoubleProperty getOutputScaleProperty(Window window,
+                                                                 String propertyName) {
+        if (window == null) {
+            return null;
+        }
+
+        try {
+            Method property = Window.class.getMethod(propertyName);
+            return (ReadOnlyDoubleProperty) property.invoke(window);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+
+    // the number of device pixels per logical pixel, using the larger of both directions
+    private double getOutputScale() {
+        return outputScaleX == null ? 1.0 : Math.max(outputScaleX.get(), outputScaleY.get());
+    }
+
+
+    /**
+     * Removes the level of detail handling from the drawing, and restores the
+     * original geometry and visibility of all shapes.
+     */
+    public void uninstall() {
+        drawing.localToSceneTransformProperty().removeListener(transformListener);
+        drawing.sceneProperty().removeListener(sceneListener);
+        if (drawing.getScene() != null) {
+            drawing.getScene().windowProperty().removeListener(windowListener);
+        }
+        setWindow(null);
+        for (ShapeDetail detail : shapes) {
+            detail.setLevel(0, 0);
+            if (detail.culled) {
+                detail.shape.setVisible(true);
+                detail.culled = false;
+            }
+        }
+        currentScale = Double.NaN;
+    }
+
+
+    /**
+     * Updates the level of detail of all shapes to the current scale of the drawing.
+     * This is done automatically when the transformation of the drawing
+     * to the scene or the output scale of its window changes.
+     */
+    public void update() {
+        double scale = getScale(drawing.getLocalToSceneTransform()) * getOutputScale();
+        if (scale == currentScale) {
+            return;     // only translated, or a change of the bounds
+        }
+        currentScale = scale;
+
+        for (ShapeDetail detail : shapes) {
+            final double effectiveScale = detail.localScale * scale;
+
+            final int level = getLevel(effectiveScale);
+
+            boolean cull = level > 0 && detail.size * effectiveScale < cullSize;
+            if (cull && !detail.culled && detail.shape.isVisible()) {
+                detail.shape.setVisible(false);
+                detail.culled = true;
+            } else if (!cull && detail.culled) {
+                detail.shape.setVisible(true);
+                detail.culled = false;
+            }
+
+            if (!detail.culled) {
+                detail.setLevel(level, tolerance * Math.pow(2, level - 1));
+            }
+        }
+    }
+
+
+    // level n is used for scales down to 2^-n, with a tolerance of 2^(n-1) units
+    private static int getLevel(double effectiveScale) {
+        if (effectiveScale >= 1 || effectiveScale <= 0) {
+            return 0;
+        }
+        int level = (int) Math.ceil(Math.log(1 / effectiveScale) / Math.log(2));
+        return Math.min(MAX_LEVEL, level);
+    }
+
+
+    /**
+     * @return The maximum deviation of the simplified geometry, in device pixels.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+
+    /**
+     * Sets the maximum deviation of the simplified geometry from the original
+     * geometry. This discards all cached variants.
+     *
+     * @param tolerance The maximum deviation, in device pixels. The default is 0.25.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+        for (ShapeDetail detail : shapes) {
+            detail.clearVariants();
+        }
+        currentScale = Double.NaN;
+        update();
+    }
+
+
+    /**
+     * @return The size below which shapes are hidden, in device pixels.
+     */
+    public double getCullSize() {
+        return cullSize;
+    }
+
+
+    /**
+     * @param cullSize The size below which shapes are hidden, in device pixels.
+     *                 The default is 0.5. A value of 0 disables culling.
+     */
+    public void setCullSize(double cullSize) {
+        this.cullSize = cullSize;
+        currentScale = Double.NaN;
+        update();
+    }
+}
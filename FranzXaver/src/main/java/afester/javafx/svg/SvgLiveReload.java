@@ -0,0 +1,425 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.application.Platform;
+import javafx.beans.value.WritableValue;
+import javafx.collections.ObservableList;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Transform;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Reloads a drawing when its SVG file changes.
+ * <p>
+ * Instead of replacing the whole drawing, the new document is reconciled into
+ * the existing scene graph: child nodes are matched by their id, or by their
+ * position among the siblings of the same type if they do not have an id.
+ * Matched nodes are kept and only those properties which the SvgLoader sets,
+ * like the geometry, the paint and the transformations, are updated if their
+ * value has changed. Listeners, animations and other properties which the
+ * application has attached to the nodes are retained. Only nodes which are
+ * new in the document are inserted, and nodes which have been removed from
+ * the document are removed from the drawing. The transformations which the
+ * application adds to a node are kept as well: the live reload remembers
+ * which transformations the loader has created, and only replaces those.</p>
+ */
+public final class SvgLiveReload implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger();
+
+    // editors often write a file in several steps - a reload is done once
+    // the file has not been modified for this time
+    private static final long SETTLE_TIME = 100;
+
+    private final SvgLoader loader;
+    private final Path svgFile;
+    private final Group drawing;
+    private final WatchService watchService;
+
+    // the transformations which the loader has created for the nodes of the drawing
+    private final Map<Node, List<Transform>> loaderTransforms = new WeakHashMap<>();
+
+
+    private SvgLiveReload(SvgLoader loader, Path svgFile, Group drawing) throws IOException {
+        this.loader = loader;
+        this.svgFile = svgFile.toAbsolutePath();
+        this.drawing = drawing;
+        recordTransforms(drawing, loaderTransforms);
+        this.watchService = svgFile.getFileSystem().newWatchService();
+        this.svgFile.getParent().register(watchService,
+                                          StandardWatchEventKinds.ENTRY_CREATE,
+                                          StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+
+    /**
+     * Starts to watch an SVG file. Whenever the file changes, it is loaded
+     * again in a background thread and the drawing is updated on the JavaFX
+     * application thread.
+     *
+     * @param loader The loader which loads the file.
+     * @param svgFile The path of the SVG file.
+     * @param drawing The drawing which has been loaded from the file.
+     *
+     * @return The live reload, which needs to be closed to stop watching the file.
+     *
+     * @throws IOException If the file can not be watched.
+     */
+    public static SvgLiveReload watch(SvgLoader loader, Path svgFile, Group drawing)
+            throws IOException {
+        SvgLiveReload result = new SvgLiveReload(loader, svgFile, drawing);
+
+        Thread watcher = new Thread(result::watchFile, "SvgLiveReload " + svgFile.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+        return result;
+    }
+
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    private void watchFile() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean modified = isModified(key);
+
+                // wait until the editor has finished writing the file
+                while (modified && (key = watchService.poll(SETTLE_TIME,
+                                                            TimeUnit.MILLISECONDS)) != null) {
+                    isModified(key);
+                }
+
+                if (modified) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("Stopped watching {}", svgFile);
+        }
+    }
+
+
+    private boolean isModified(WatchKey key) {
+        boolean result = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (svgFile.getFileName().equals(event.context())) {
+                result = true;
+            }
+        }
+        key.reset();
+        return result;
+    }
+
+
+    private void reload() {
+        Group source = loader.loadSvg(svgFile.toString());
+        if (source == null) {
+            logger.warn("Could not reload {}", svgFile);
+            return;
+        }
+
+        Platform.runLater(() -> {
+            int changed = update(source);
+            logger.debug("Reloaded {}: {} nodes changed", svgFile, changed);
+        });
+    }
+
+
+    /**
+     * Updates the watched drawing from a new version of the file, like it is
+     * done when the file changes. Unlike {@link #reconcile(Group, Group)},
+     * the transformations which the application has added to the nodes of
+     * the drawing are kept. This must be called on the JavaFX application
+     * thread once the drawing is part of a scene.
+     *
+     * @param source The new drawing, as created by the SvgLoader. It can not be
+     *               used anymore afterwards.
+     *
+     * @return The number of nodes which have been updated, inserted or removed.
+     */
+    public int update(Group source) {
+        return updateNode(drawing, source, loaderTransforms);
+    }
+
+
+    /**
+     * Updates a drawing so that it renders like another drawing, reusing the
+     * nodes of the existing drawing where possible. The source drawing
+     * can not be used anymore afterwards, since some of its nodes are moved
+     * into the target drawing. All transformations of the target nodes are
+     * considered to be created by the loader.
+     *
+     * @param target The existing drawing, which is shown in the scene.
+     * @param source The new drawing, as created by the SvgLoader.
+     *
+     * @return The number of nodes which have been updated, inserted or removed.
+     */
+    public static int reconcile(Group target, Group source) {
+        return updateNode(target, source, new WeakHashMap<>());
+    }
+
+
+    /**
+     * Remembers the current transformations of all nodes of a tree as the
+     * transformations which the loader has created.
+     */
+    static void recordTransforms(Node root, Map<Node, List<Transform>> loaderTransforms) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            loaderTransforms.put(node, new ArrayList<>(node.getTransforms()));
+            if (node instanceof Parent) {
+                pending.addAll(((Parent) node).getChildrenUnmodifiable());
+            }
+        }
+    }
+
+
+    private static boolean canUpdate(Node target, Node source) {
+        return target.getClass() == source.getClass()
+            && (target instanceof Shape || target.getClass() == Group.class);
+    }
+
+
+    private static int updateNode(Node target, Node source,
+                                  Map<Node, List<Transform>> loaderTransforms) {
+        int result = updateProperties(target, source, loaderTransforms) ? 1 : 0;
+        if (target instanceof Group) {
+            result += updateChildren((Group) target, (Group) source, loaderTransforms);
+        }
+        return result;
+    }
+
+
+    /**
+     * Updates the properties of a node which the SvgLoader sets, without
+     * the children of the node.
+     *
+     * @param target The node to update.
+     * @param source A node of the same type which has the new values.
+     * @param loaderTransforms The transformations which the loader has created,
+     *                         by node. If the target node is not contained, all
+     *                         of its transformations are replaced.
+     *
+     * @return <code>true</code> if any property has been modified.
+     */
+    static boolean updateProperties(Node target, Node source,
+                                    Map<Node, List<Transform>> loaderTransforms) {
+        boolean result = update(target.idProperty(), source.getId());
+        result |= updateTransforms(target, source, loaderTransforms);
+        if (target instanceof Shape) {
+            result |= updateShape((Shape) target, (Shape) source);
+        }
+        return result;
+    }
+
+
+    private static int updateChildren(Group target, Group source,
+                                      Map<Node, List<Transform>> loaderTransforms) {
+        ObservableList<Node> children = target.getChildren();
+
+        // the existing children, by id and by type
+        Map<String, Node> byId = new HashMap<>();
+        Map<Class<?>, Deque<Node>> byType = new HashMap<>();
+        for (Node child : children) {
+            if (hasId(child)) {
+                byId.putIfAbsent(child.getId(), child);
+            } else {
+                byType.computeIfAbsent(child.getClass(), c -> new ArrayDeque<>()).add(child);
+            }
+        }
+
+        int result = 0;
+        int kept = 0;
+        List<Node> newChildren = new ArrayList<>(source.getChildren());
+        for (int i = 0;  i < newChildren.size();  i++) {
+            Node child = newChildren.get(i);
+            Node existing = null;
+            if (hasId(child)) {
+                existing = byId.remove(child.getId());
+            } else if (byType.containsKey(child.getClass())) {
+                existing = byType.get(child.getClass()).poll();
+            }
+
+            if (existing != null && canUpdate(existing, child)) {
+                result += updateNode(existing, child, loaderTransforms);
+                newChildren.set(i, existing);
+                kept++;
+            } else {
+                recordTransforms(child, loaderTransforms);
+                result++;
+            }
+        }
+
+        result += children.size() - kept;
+        if (!children.equals(newChildren)) {
+            children.setAll(newChildren);
+        }
+        return result;
+    }
+
+
+    private static boolean hasId(Node node) {
+        return node.getId() != null && !node.getId().isEmpty();
+    }
+
+
+    // only the transformations which the loader has created are replaced,
+    // at their position in the list of transformations
+    private static boolean updateTransforms(Node target, Node source,
+                                            Map<Node, List<Transform>> loaderTransforms) {
+        List<Transform> transforms = target.getTransforms();
+        List<Transform> created = loaderTransforms.get(target);
+        if (created == null) {
+            created = new ArrayList<>(transforms);
+        }
+        List<Transform> newTransforms = new ArrayList<>(source.getTransforms());
+        boolean same = created.size() == newTransforms.size();
+        for (int i = 0;  same && i < created.size();  i++) {
+            same = SvgNodeTools.isSameTransform(created.get(i), newTransforms.get(i));
+        }
+        if (same) {
+            return false;
+        }
+
+        List<Transform> result = new ArrayList<>(transforms);
+        int position = created.isEmpty() ? 0 : Math.max(0, result.indexOf(created.get(0)));
+        result.removeAll(created);
+        result.addAll(Math.min(position, result.size()), newTransforms);
+        target.getTransforms().setAll(result);
+        loaderTransforms.put(target, newTransforms);
+        return true;
+    }
+
+
+    private static boolean updateShape(Shape target, Shape source) {
+        boolean result = update(target.fillProperty(), source.getFill());
+        result |= update(target.strokeProperty(), source.getStroke());
+        result |= update(target.strokeWidthProperty(), source.getStrokeWidth());
+        result |= update(target.strokeDashOffsetProperty(), source.getStrokeDashOffset());
+        result |= update(target.getStrokeDashArray(), source.getStrokeDashArray());
+
+        if (target instanceof SVGPath) {
+            result |= update(((SVGPath) target).contentProperty(),
+                             ((SVGPath) source).getContent());
+        } else if (target instanceof Rectangle) {
+            Rectangle t = (Rectangle) target;
+            Rectangle s = (Rectangle) source;
+            result |= update(t.xProperty(), s.getX());
+            result |= update(t.yProperty(), s.getY());
+            result |= update(t.widthProperty(), s.getWidth());
+            result |= update(t.heightProperty(), s.getHeight());
+            result |= update(t.arcWidthProperty(), s.getArcWidth());
+            result |= update(t.arcHeightProperty(), s.getArcHeight());
+        } else if (target instanceof Circle) {
+            Circle t = (Circle) target;
+            Circle s = (Circle) source;
+            result |= update(t.centerXProperty(), s.getCenterX());
+            result |= update(t.centerYProperty(), s.getCenterY());
+            result |= update(t.radiusProperty(), s.getRadius());
+        } else if (target instanceof Ellipse) {
+            Ellipse t = (Ellipse) target;
+            Ellipse s = (Ellipse) source;
+            result |= update(t.centerXProperty(), s.getCenterX());
+            result |= update(t.centerYProperty(), s.getCenterY());
+            result |= update(t.radiusXProperty(), s.getRadiusX());
+            result |= update(t.radiusYProperty(), s.getRadiusY());
+        } else if (target instanceof Line) {
+            Line t = (Line) target;
+            Line s = (Line) source;
+            result |= update(t.startXProperty(), s.getStartX());
+            result |= update(t.startYProperty(), s.getStartY());
+            result |= update(t.endXProperty(), s.getEndX());
+            result |= update(t.endYProperty(), s.getEndY());
+        } else if (target instanceof Polygon) {
+            result |= update(((Polygon) target).getPoints(), ((Polygon) source).getPoints());
+        } else if (target instanceof Polyline) {
+            result |= update(((Polyline) target).getPoints(), ((Polyline) source).getPoints());
+        } else if (target instanceof Text) {
+            Text t = (Text) target;
+            Text s = (Text) source;
+            result |= update(t.textProperty(), s.getText());
+            result |= update(t.xProperty(), s.getX());
+            result |= update(t.yProperty(), s.getY());
+            result |= update(t.fontProperty(), s.getFont());
+        }
+
+        return result;
+    }
+
+
+    private static <T> boolean update(WritableValue<T> target, T value) {
+        if (Objects.equals(target.getValue(), value)) {
+            return false;
+        }
+        target.setValue(value);
+        return true;
+    }
+
+
+    private static <T> boolean update(ObservableList<T> target, List<T> value) {
+        if (target.equals(value)) {
+            return false;
+        }
+        target.setAll(value);
+        return true;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * The Java Flight Recorder events which are emitted by the SvgLoader.
+ * <p>
+ * This is the only class which refers to the JFR API. It is only loaded by
+ * the {@link SvgLoadRecorder} if JFR is available in the running JVM.
+ * The events are passed around as plain objects, so that other classes do
+ * not depend on the JFR API.</p>
+ * <p>
+ * Compiling this class requires a JDK which provides <code>jdk.jfr</code>
+ * (8u262 or later), which is enforced by the Maven and Gradle builds. The
+ * library itself runs on any Java 8 runtime, without the events.</p>
+ */
+final class SvgLoadEvents {
+
+    private SvgLoadEvents() {
+    }
+
+
+    /**
+     * @return <code>true</code> if the running JVM supports flight recordings.
+     */
+    static boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+
+    @Name("afester.javafx.svg.Load")
+    @Label("SVG Load")
+    @Description("Loading and converting an SVG document into a JavaFX node tree")
+    @Category({"FranzXaver", "SVG"})
+    @StackTrace(false)
+    static class LoadEvent extends Event {
+        @Label("Document")
+        String documentId;
+
+        @Label("Parser")
+        @Description("The parser which was used: dom or streaming")
+        String parser;
+
+        @Label("Size")
+        @DataAmount
+        long byteSize;
+
+        @Label("Elements")
+        int elementCount;
+
+        @Label("Elements per Type")
+        String elementCounts;
+
+        @Label("Gradients")
+        @Description("The number of gradients which have been resolved")
+        int gradientCount;
+
+        @Label("Styles")
+        @Description("The number of shapes to which a style has been applied")
+        int styleCount;
+
+        @Label("Resolved Styles")
+        @Description("The number of styles which have been computed; shared styles are "
+                   + "computed only once")
+        int resolvedStyleCount;
+
+        @Label("Paints")
+        @Description("The number of distinct paints which are used by the document")
+        int paintCount;
+
+        @Label("Removed Nodes")
+        @Description("The number of nodes which have been removed by optimizations")
+        int removedNodes;
+
+        @Label("Success")
+        boolean success;
+    }
+
+
+    @Name("afester.javafx.svg.LoadPhase")
+    @Label("SVG Load Phase")
+    @Description("A single phase of loading an SVG document")
+    @Category({"FranzXaver", "SVG"})
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Document")
+        String documentId;
+
+        @Label("Phase")
+        @Description("parse, css, gvt, convert or stream")
+        String phase;
+    }
+
+
+    /**
+     * @return A new, started load event, or <code>null</code> if load events
+     *         are not enabled in any recording.
+     */
+    static Object beginLoad() {
+        LoadEvent result = new LoadEvent();
+        if (!result.isEnabled()) {
+            return null;
+        }
+        result.begin();
+        return result;
+    }
+
+
+    static void commitLoad(Object event, String documentId, String parser, long byteSize,
+                           int elementCount, String elementCounts, int gradientCount,
+                           int styleCount, int resolvedStyleCount, int paintCount,
+                           int removedNodes,
+                           boolean success) {
+        LoadEvent loadEvent = (LoadEvent) event;
+        loadEvent.end();
+        if (loadEvent.shouldCommit()) {
+            loadEvent.documentId = documentId;
+            loadEvent.parser = parser;
+            loadEvent.byteSize = byteSize;
+            loadEvent.elementCount = elementCount;
+            loadEvent.elementCounts = elementCounts;
+            loadEvent.gradientCount = gradientCount;
+            loadEvent.styleCount = styleCount;
+            loadEvent.resolvedStyleCount = resolvedStyleCount;
+            loadEvent.paintCount = paintCount;
+            loadEvent.removedNodes = removedNodes;
+            loadEvent.success = success;
+            loadEvent.commit();
+        }
+    }
+
+
+    static Object beginPhase() {
+        PhaseEvent result = new PhaseEvent();
+        result.begin();
+        return result;
+    }
+
+
+    static void commitPhase(Object event, String documentId, String phase) {
+        PhaseEvent phaseEvent = (PhaseEvent) event;
+        phaseEvent.end();
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.documentId = documentId;
+            phaseEvent.phase = phase;
+            phaseEvent.commit();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Collects the statistics of a single SVG load and reports them as Java
+ * Flight Recorder events (see {@link SvgLoadEvents}).
+ * <p>
+ * Recording is optional: if the JVM does not provide JFR, or if the SVG load
+ * events are not enabled in any running recording, {@link #start(String, String)}
+ * returns a recorder which ignores all calls.</p>
+ */
+final class SvgLoadRecorder {
+
+    static final String PARSE = "parse";
+    static final String CSS = "css";
+    static final String GVT = "gvt";
+    static final String CONVERT = "convert";
+    static final String STREAM = "stream";
+    static final String OPTIMIZE = "optimize";
+
+    private static final boolean JFR_AVAILABLE = isJfrAvailable();
+
+    static final SvgLoadRecorder DISABLED = new SvgLoadRecorder(null, null, null);
+
+    private final String documentId;
+    private final String parser;
+    private final Object loadEvent;
+
+    private Object phaseEvent;
+    private String phase;
+
+    private long byteCount = 0;
+    private int elementCount = 0;
+    private final Map<String, Integer> elementCounts = new TreeMap<>();
+    private int gradientCount = 0;
+    private int styleCount = 0;
+    private int resolvedStyleCount = 0;
+    private int paintCount = 0;
+    private int removedNodes = 0;
+
+
+    private SvgLoadRecorder(String documentId, String parser, Object loadEvent) {
+        this.documentId = documentId;
+        this.parser = parser;
+        this.loadEvent = loadEvent;
+    }
+
+
+    // The JFR API exists since 8u262. The class is looked up by name, so that
+    // SvgLoadEvents is never loaded on older Java 8 runtimes or on runtimes
+    // without the jdk.jfr module.
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return SvgLoadEvents.isAvailable();
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Starts recording a load.
+     *
+     * @param documentId The name of the loaded document, or <code>null</code>
+     *                   if the name is not known.
+     * @param parser The parser which is used for the load.
+     *
+     * @return The recorder for the load.
+     */
+    static SvgLoadRecorder start(String documentId, String parser) {
+        if (!JFR_AVAILABLE) {
+            return DISABLED;
+        }
+
+        Object event = SvgLoadEvents.beginLoad();
+        return event == null ? DISABLED : new SvgLoadRecorder(documentId, parser, event);
+    }
+
+
+    boolean isEnabled() {
+        return loadEvent != null;
+    }
+
+
+    /**
+     * @param input The input stream of the document.
+     *
+     * @return An input stream which counts the bytes read from the given stream,
+     *         or the given stream if the recorder is disabled.
+     */
+    InputStream wrap(InputStream input) {
+        if (!isEnabled()) {
+            return input;
+        }
+
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int result = super.read();
+                if (result != -1) {
+                    byteCount++;
+                }
+                return result;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int result = super.read(buffer, offset, length);
+                if (result > 0) {
+                    byteCount += result;
+                }
+                return result;
+            }
+        };
+    }
+
+
+    void beginPhase(String newPhase) {
+        if (isEnabled()) {
+            phase = newPhase;
+            phaseEvent = SvgLoadEvents.beginPhase();
+        }
+    }
+
+
+    void endPhase() {
+        if (isEnabled() && phaseEvent != null) {
+            SvgLoadEvents.commitPhase(phaseEvent, documentId, phase);
+            phaseEvent = null;
+        }
+    }
+
+
+    void countElement(String localName) {
+        if (isEnabled()) {
+            elementCount++;
+            elementCounts.merge(localName, 1, Integer::sum);
+        }
+    }
+
+
+    void addGradients(int count) {
+        if (isEnabled()) {
+            gradientCount += count;
+        }
+    }
+
+
+    void addStyles(int count) {
+        if (isEnabled()) {
+            styleCount += count;
+        }
+    }
+
+
+    void addResolvedStyles(int count) {
+        if (isEnabled()) {
+            resolvedStyleCount += count;
+        }
+    }
+
+
+    void addPaints(int count) {
+        if (isEnabled()) {
+            paintCount += count;
+        }
+    }
+
+
+    void addRemovedNodes(int count) {
+        if (isEnabled()) {
+            removedNodes += count;
+        }
+    }
+
+
+    /**
+     * Finishes recording the load.
+     *
+     * @param success <code>true</code> if the document has been loaded.
+     */
+    void finish(boolean success) {
+        if (isEnabled()) {
+            SvgLoadEvents.commitLoad(loadEvent, documentId, parser, byteCount, elementCount,
+                                     getElementCounts(), gradientCount, styleCount,
+                                     resolvedStyleCount, paintCount, removedNodes, success);
+        }
+    }
+
+
+    private String getElementCounts() {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : elementCounts.entrySet()) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return result.toString();
+    }
+}
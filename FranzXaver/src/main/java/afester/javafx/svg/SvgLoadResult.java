@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A drawing together with an index of its nodes by id and by style class.
+ * <p>
+ * <code>Node.lookup()</code> walks the node tree for each lookup, so that
+ * looking up many nodes of a large drawing takes quadratic time. The index
+ * is filled while the SVG document is converted, and resolves the
+ * <code>id</code> and the <code>class</code> attributes of the elements
+ * in constant time. If an id is used more than once, the first node in
+ * document order is returned, like <code>Node.lookup()</code> does.</p>
+ * <p>
+ * The index is not updated when the drawing is modified later. Nodes which
+ * have been removed by the optional optimizations of the SvgLoader are not
+ * contained in the index.</p>
+ *
+ * @see SvgLoader#loadSvgIndexed(String)
+ */
+public final class SvgLoadResult {
+
+    private Group drawing;
+    private final Map<String, Node> ids = new HashMap<>();
+    private final Map<String, List<Node>> classes = new HashMap<>();
+
+
+    SvgLoadResult() {
+    }
+
+
+    /**
+     * Creates the index for a drawing which has not been loaded with an
+     * index, for example a drawing from the {@link SvgSceneCache}. The
+     * index is created from the ids and the style classes of the nodes, in a
+     * single pass over the drawing.
+     *
+     * @param drawing The root node of the drawing.
+     *
+     * @return The drawing with its index.
+     */
+    public static SvgLoadResult index(Group drawing) {
+        SvgLoadResult result = new SvgLoadResult();
+        result.drawing = drawing;
+
+        // pre order, so that the first node with an id is found first
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(drawing);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            result.addId(node, node.getId());
+            for (String styleClass : node.getStyleClass()) {
+                result.addClass(node, styleClass);
+            }
+
+            if (node instanceof Parent) {
+                List<Node> children = ((Parent) node).getChildrenUnmodifiable();
+                for (int i = children.size() - 1;  i >= 0;  i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+
+    void setDrawing(Group drawing) {
+        this.drawing = drawing;
+    }
+
+
+    /**
+     * Adds a node which has been created for an element.
+     *
+     * @param node The node.
+     * @param id The id of the element, or <code>null</code>.
+     * @param classAttribute The value of the <code>class</code> attribute of
+     *                       the element, or <code>null</code>.
+     */
+    void add(Node node, String id, String classAttribute) {
+        addId(node, id);
+        if (classAttribute == null) {
+            return;
+        }
+
+        // the class attribute is a white space separated list of class names
+        final int len = classAttribute.length();
+        int pos = 0;
+        while (pos < len) {
+            while (pos < len && Character.isWhitespace(classAttribute.charAt(pos))) {
+                pos++;
+            }
+            final int start = pos;
+            while (pos < len && !Character.isWhitespace(classAttribute.charAt(pos))) {
+                pos++;
+            }
+            if (pos > start) {
+                addClass(node, classAttribute.substring(start, pos));
+            }
+        }
+    }
+
+
+    private void addId(Node node, String id) {
+        if (id != null && !id.isEmpty()) {
+            ids.putIfAbsent(id, node);
+        }
+    }
+
+
+    private void addClass(Node node, String styleClass) {
+        classes.computeIfAbsent(styleClass, c -> new ArrayList<>()).add(node);
+    }
+
+
+    /**
+     * Removes the nodes which are not part of the drawing anymore, after
+     * the drawing has been optimized.
+     */
+    void retainAttached() {
+        ids.values().removeIf(node -> !isAttached(node));
+        for (Iterator<List<Node>> i = classes.values().iterator();  i.hasNext();  ) {
+            List<Node> nodes = i.next();
+            nodes.removeIf(node -> !isAttached(node));
+            if (nodes.isEmpty()) {
+                i.remove();
+            }
+        }
+    }
+
+
+    private boolean isAttached(Node node) {
+        Node current = node;
+        while (current != null && current != drawing) {
+            current = current.getParent();
+        }
+        return current == drawing;
+    }
+
+
+    /**
+     * @return The root node of the drawing.
+     */
+    public Group getDrawing() {
+        return drawing;
+    }
+
+
+    /**
+     * @param id The id of an SVG element, without a leading <code>#</code>.
+     *
+     * @return The node which represents the element, or <code>null</code>
+     *         if the drawing does not contain a node with this id.
+     */
+    public Node getNode(String id) {
+        return ids.get(id);
+    }
+
+
+    /**
+     * @param styleClass A class name from the <code>class</code> attribute
+     *                   of SVG elements.
+     *
+     * @return The nodes which represent the elements with this class, in
+     *         document order. The list is empty if there are no such nodes.
+     */
+    public List<Node> getNodes(String styleClass) {
+        List<Node> result = classes.get(styleClass);
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
+
+    /**
+     * @return The ids of all nodes in the index.
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+}
@@ -16,7 +16,11 @@
 
 package afester.javafx.svg;
 
+import javafx.application.Platform;
 import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Translate;
 
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 import org.apache.batik.anim.dom.SVGOMCircleElement;
@@ -25,6 +29,7 @@ import org.apache.batik.anim.dom.SVGOMDocument;
 import org.apache.batik.anim.dom.SVGOMElement;
 import org.apache.batik.anim.dom.SVGOMEllipseElement;
 import org.apache.batik.anim.dom.SVGOMGElement;
+import org.apache.batik.anim.dom.SVGOMGradientElement;
 import org.apache.batik.anim.dom.SVGOMLineElement;
 import org.apache.batik.anim.dom.SVGOMLinearGradientElement;
 import org.apache.batik.anim.dom.SVGOMMetadataElement;
@@ -35,70 +40,156 @@ import org.apache.batik.anim.dom.SVGOMPolylineElement;
 import org.apache.batik.anim.dom.SVGOMRadialGradientElement;
 import org.apache.batik.anim.dom.SVGOMRectElement;
 import org.apache.batik.anim.dom.SVGOMSVGElement;
+import org.apache.batik.anim.dom.SVGOMStopElement;
+import org.apache.batik.anim.dom.SVGOMStyleElement;
+import org.apache.batik.anim.dom.SVGOMSymbolElement;
 import org.apache.batik.anim.dom.SVGOMTSpanElement;
 import org.apache.batik.anim.dom.SVGOMTextElement;
+import org.apache.batik.anim.dom.SVGOMUseElement;
 import org.apache.batik.bridge.BridgeContext;
 import org.apache.batik.bridge.DocumentLoader;
 import org.apache.batik.bridge.GVTBuilder;
 import org.apache.batik.bridge.UserAgent;
 import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.dom.svg.SVGContext;
 import org.apache.batik.util.XMLResourceDescriptor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.NodeList;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import javax.xml.stream.XMLStreamException;
 
 
 public class SvgLoader {
     private static final Logger logger = LogManager.getLogger();
 
-    Group parentNode;
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    // The loader itself only holds its configuration - all state of a load
+    // operation is kept in the SvgBasicElementHandler which is created for each
+    // load, so that the same loader can be used from several threads.
 
     // flag whether to add a rectangle in the size of the drawing
-    boolean addRootRect = false;
+    private volatile boolean addRootRect = false;
 
     // flag whether to use the alternative SVG Path element handling which adds
     // separate nodes for the path elements instead of an SVGPath node
-    private boolean useSeparatePathElements = false;
+    private volatile boolean useSeparatePathElements = false;
+
+    // flag whether to use the streaming parser instead of the Batik DOM
+    private volatile boolean useStreamingParser = false;
+
+    // flag whether to build the Batik GVT tree when loading a document
+    private volatile boolean buildRenderTree = true;
+
+    // flag whether to flatten groups and transformations, and the ids of
+    // the groups which must be kept
+    private volatile boolean flattenGroups = false;
+    private volatile Predicate<String> flattenKeepId = id -> true;
+
+    // flag whether to merge sibling paths with the same style, and the
+    // ids of the paths which must be kept. By default, these are the ids
+    // which are referenced within the document.
+    private static final Predicate<String> KEEP_REFERENCED_IDS = id -> true;
+    private volatile boolean mergeShapes = false;
+    private volatile Predicate<String> mergeKeepId = KEEP_REFERENCED_IDS;
+
+    private final GradientFactory gradientFactory = new GradientFactory();
+
+    // the pool of the paints which is shared by all documents, or null
+    // to use a separate pool for each document
+    private volatile SvgPaintPool paintPool = null;
 
-    private Map<String, Consumer<SVGOMElement>> elementMap = new HashMap<>();
+    // Batik objects which are reused for all documents loaded by this loader.
+    // They are not thread safe, so each load takes its own instances from the
+    // pool and returns them when the document has been read. Unlike thread
+    // local instances, they do not stay on the threads of an executor.
+    private final Queue<BatikContext> batikContexts = new ConcurrentLinkedQueue<>();
 
-    private SvgBasicElementHandler bh;
+    // The element handlers, keyed by the Batik DOM class of the element.
+    // Elements from other namespaces never match, even if their local name
+    // is the same as the one of an SVG element.
+    private Map<Class<? extends SVGOMElement>,
+                BiConsumer<SvgBasicElementHandler, SVGOMElement>> elementMap = new HashMap<>();
 
     /**
      * Creates a new SVGLoader.
      */
     public SvgLoader() {
-        bh = new SvgBasicElementHandler(this);
-
-        elementMap.put("svg", e -> bh.handleElement((SVGOMSVGElement) e));
-        elementMap.put("defs", e -> bh.handleElement((SVGOMDefsElement) e));
-        elementMap.put("metadata", e -> bh.handleElement((SVGOMMetadataElement) e));
+        elementMap.put(SVGOMSVGElement.class, (bh, e) -> bh.handleElement((SVGOMSVGElement) e));
+        elementMap.put(SVGOMDefsElement.class, (bh, e) -> bh.handleElement((SVGOMDefsElement) e));
+        elementMap.put(SVGOMMetadataElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMMetadataElement) e));
         // elementMap.put("title", e -> {} );
 
-        elementMap.put("g", e -> bh.handleElement((SVGOMGElement) e));
-        elementMap.put("path", e -> bh.handleElement((SVGOMPathElement) e, 
-                                                     useSeparatePathElements));
-        elementMap.put("line", e -> bh.handleElement((SVGOMLineElement) e));
-        elementMap.put("rect", e -> bh.handleElement((SVGOMRectElement) e));
-        elementMap.put("polygon", e -> bh.handleElement((SVGOMPolygonElement) e));
-        elementMap.put("polyline", e -> bh.handleElement((SVGOMPolylineElement) e));
-        elementMap.put("circle", e -> bh.handleElement((SVGOMCircleElement) e));
-        elementMap.put("ellipse", e -> bh.handleElement((SVGOMEllipseElement) e));
-        elementMap.put("text", e -> bh.handleElement((SVGOMTextElement) e));
+        elementMap.put(SVGOMGElement.class, (bh, e) -> bh.handleElement((SVGOMGElement) e));
+        elementMap.put(SVGOMPathElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMPathElement) e,
+                                                   bh.useSeparatePathElements));
+        elementMap.put(SVGOMLineElement.class, (bh, e) -> bh.handleElement((SVGOMLineElement) e));
+        elementMap.put(SVGOMRectElement.class, (bh, e) -> bh.handleElement((SVGOMRectElement) e));
+        elementMap.put(SVGOMPolygonElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMPolygonElement) e));
+        elementMap.put(SVGOMPolylineElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMPolylineElement) e));
+        elementMap.put(SVGOMCircleElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMCircleElement) e));
+        elementMap.put(SVGOMEllipseElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMEllipseElement) e));
+        elementMap.put(SVGOMTextElement.class, (bh, e) -> bh.handleElement((SVGOMTextElement) e));
         
-        elementMap.put("tspan", e -> bh.handleElement((SVGOMTSpanElement) e));
-        elementMap.put("pattern", e -> bh.handleElement((SVGOMPatternElement) e));
+        elementMap.put(SVGOMTSpanElement.class, (bh, e) -> bh.handleElement((SVGOMTSpanElement) e));
+        elementMap.put(SVGOMPatternElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMPatternElement) e));
+
+        elementMap.put(SVGOMLinearGradientElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMLinearGradientElement) e));
+        elementMap.put(SVGOMRadialGradientElement.class,
+                       (bh, e) -> bh.handleElement((SVGOMRadialGradientElement) e));
+        elementMap.put(SVGOMStopElement.class, (bh, e) -> { } );
 
-        elementMap.put("linearGradient", e -> bh.handleElement((SVGOMLinearGradientElement) e));
-        elementMap.put("radialGradient", e -> bh.handleElement((SVGOMRadialGradientElement) e));
-        elementMap.put("stop", e -> { } );
+        // the contents of a symbol are only rendered through <use> elements
+        elementMap.put(SVGOMSymbolElement.class, (bh, e) -> { } );
+        elementMap.put(SVGOMUseElement.class, (bh, e) -> handleUse(bh, (SVGOMUseElement) e));
 
         /*
          * <title>
@@ -114,8 +205,7 @@ public class SvgLoader {
          * <font-face> <font-face-format> <font-face-name> <font-face-src>
          * <font-face-uri> <foreignObject> <glyph> <glyphRef> <hkern> <image>
          * <marker> <mask> <missing-glyph> <mpath> <script>
-         * <set> <style> <switch> <symbol> <textPath> <tref> <use> <view>
-         * <vkern>
+         * <set> <style> <switch> <textPath> <tref> <view> <vkern>
          */
     }
 
@@ -132,6 +222,112 @@ public class SvgLoader {
     }
 
     
+    /**
+     * Defines whether SVG files are loaded through a streaming parser instead
+     * of building an SVG DOM with Apache Batik.
+     * The streaming parser converts the SVG elements while they are read, 
+     * which is faster and requires memory depending only on the nesting depth 
+     * of the document instead of on the size of the document. 
+     * However, it only supports styling through presentation attributes 
+     * and <code>style</code> attributes - CSS style sheets are not supported. 
+     *
+     * @param flag <code>true</code> to use the streaming parser, 
+     *             <code>false</code> to use the Batik DOM (the default).
+     */
+    public void setUseStreamingParser(boolean flag) {
+        this.useStreamingParser = flag;
+    }
+
+
+    /**
+     * Defines whether the Batik GVT (graphics vector tree) is built when
+     * an SVG document is loaded. The GVT is not used by the SvgLoader - it
+     * is only built since this also initializes the CSS engine of the
+     * document. When set to <code>false</code>, only the CSS engine is 
+     * initialized which considerably reduces the load time of larger documents.
+     * In this case, percentage lengths are resolved against the viewport of
+     * the document's root element.
+     *
+     * @param flag <code>true</code> to build the GVT (the default),
+     *             <code>false</code> to only initialize the CSS engine.
+     */
+    public void setBuildRenderTree(boolean flag) {
+        this.buildRenderTree = flag;
+    }
+
+
+    /**
+     * Defines whether groups without an id are replaced by their children,
+     * and whether transformations are applied to the geometry of the shapes
+     * where possible. This results in a shallow tree with mostly untransformed
+     * nodes, which reduces the bounds and transformation updates, for example
+     * during animations.
+     *
+     * @param flag <code>true</code> to flatten the node tree,
+     *             <code>false</code> to keep a group for each group element (the default).
+     *
+     * @see SvgGroupFlattener
+     */
+    public void setFlattenGroups(boolean flag) {
+        setFlattenGroups(flag, id -> true);
+    }
+
+
+    /**
+     * Defines whether groups are replaced by their children, and whether
+     * transformations are applied to the geometry of the shapes where possible.
+     *
+     * @param flag <code>true</code> to flatten the node tree,
+     *             <code>false</code> to keep a group for each group element (the default).
+     * @param keepId Decides whether a group with the given id must be kept,
+     *               for example <code>id -&gt; !SvgShapeMerger.isGeneratedId(id)</code>.
+     *
+     * @see SvgGroupFlattener
+     */
+    public void setFlattenGroups(boolean flag, Predicate<String> keepId) {
+        this.flattenKeepId = keepId;
+        this.flattenGroups = flag;
+    }
+
+
+    /**
+     * Defines whether consecutive sibling paths which have the same style and
+     * which do not overlap are merged into a single path after loading.
+     * This reduces the number of nodes, and with it the CSS, layout and
+     * picking work per pulse. Paths whose id is referenced within the
+     * document, for example by a <code>&lt;use&gt;</code> element or a
+     * <code>url(#id)</code>, are never merged. The ids which are generated by
+     * SVG editors for almost every element are usually not referenced, so
+     * that their paths can be merged; use
+     * {@link #setMergeShapes(boolean, Predicate)} to keep other ids.
+     *
+     * @param flag <code>true</code> to merge paths,
+     *             <code>false</code> to keep a node for each path element (the default).
+     *
+     * @see SvgShapeMerger
+     */
+    public void setMergeShapes(boolean flag) {
+        setMergeShapes(flag, KEEP_REFERENCED_IDS);
+    }
+
+
+    /**
+     * Defines whether consecutive sibling paths which have the same style and
+     * which do not overlap are merged into a single path after loading.
+     *
+     * @param flag <code>true</code> to merge paths,
+     *             <code>false</code> to keep a node for each path element (the default).
+     * @param keepId Decides whether a path with the given id must be kept,
+     *               for example <code>id -&gt; !SvgShapeMerger.isGeneratedId(id)</code>.
+     *
+     * @see SvgShapeMerger
+     */
+    public void setMergeShapes(boolean flag, Predicate<String> keepId) {
+        this.mergeKeepId = keepId;
+        this.mergeShapes = flag;
+    }
+
+
     /**
      * Defines the gradient transformation policy to use when an SVG
      * gradient element contains a gradientTransform attribute.
@@ -139,32 +335,278 @@ public class SvgLoader {
      * @param policy The {@link GradientPolicy} to use.
      */
     public void setGradientTransformPolicy(GradientPolicy policy) {
-        bh.gradientFactory.setTransformationPolicy(policy);
+        gradientFactory.setTransformationPolicy(policy);
+    }
+
+
+    /**
+     * Defines the pool of the paints which is shared by all documents which
+     * are loaded by this loader. Equal colors and gradients of different
+     * documents are then represented by the same instance.
+     *
+     * @param pool The pool to use, or <code>null</code> to use a separate pool
+     *             for each document (the default).
+     */
+    public void setPaintPool(SvgPaintPool pool) {
+        this.paintPool = pool;
+    }
+
+
+    private SvgPaintPool.DocumentPaints createDocumentPaints() {
+        SvgPaintPool pool = paintPool;
+        return (pool == null ? new SvgPaintPool() : pool).forDocument();
     }
 
     
-    private void handle(org.w3c.dom.Node node) {
-        Group par = parentNode; // save current parent
-
-        // Dispatch handling of the current node to its handler
-        String localName = node.getLocalName();
-        if (localName != null) {
-            Consumer<SVGOMElement> consumer = elementMap.get(node.getLocalName());
-            if (consumer != null) {
-                consumer.accept((SVGOMElement) node);
+    private Group createNodes(SVGOMDocument doc, BooleanSupplier cancelCheck,
+                              SvgLoadRecorder recorder, SvgLoadResult index) {
+        recorder.beginPhase(SvgLoadRecorder.CONVERT);
+        SvgBasicElementHandler handler =
+                new SvgBasicElementHandler(gradientFactory, addRootRect, useSeparatePathElements,
+                                           createDocumentPaints());
+        Group result = handler.parentNode;
+        BiConsumer<Element, Node> created = null;
+        if (index != null) {
+            created = (element, node) -> index.add(node, element.getAttribute("id"),
+                                                   element.getAttribute("class"));
+        }
+        handle(handler, doc.getDocumentElement(), cancelCheck, recorder, created);
+        if (handler.styleTools != null) {
+            recorder.addGradients(handler.styleTools.getPaintCount());
+            recorder.addStyles(handler.styleTools.getStyleCount());
+            recorder.addResolvedStyles(handler.styleTools.getResolvedStyleCount());
+        }
+        recorder.addPaints(handler.paints.size());
+        logger.debug("{} distinct paints", handler.paints.size());
+        recorder.endPhase();
+        return result;
+    }
+
+
+    /**
+     * Converts all elements of a DOM sub tree in document order.
+     * The tree is traversed with an explicit stack, so that the nesting
+     * depth of the document is not limited by the size of the Java stack. 
+     * Only element nodes are visited - text, comment and other nodes are
+     * skipped, since the element handlers access their contents directly.
+     *
+     * @param handler The handler which holds the state of the current load.
+     * @param root The root element of the sub tree.
+     * @param cancelCheck Checks whether the load has been cancelled.
+     * @param recorder Records the statistics of the current load.
+     * @param created Receives the node which has been created for each element,
+     *                if not <code>null</code>.
+     */
+    private void handle(SvgBasicElementHandler handler, Element root,
+                        BooleanSupplier cancelCheck, SvgLoadRecorder recorder,
+                        BiConsumer<Element, Node> created) {
+        // the parent nodes to restore when leaving the elements on the current path
+        Deque<Group> parents = new ArrayDeque<>();
+
+        org.w3c.dom.Node node = root;
+        while (node != null) {
+            if (cancelCheck.getAsBoolean()) {
+                throw new CancellationException();
+            }
+
+            // Dispatch handling of the current element to its handler
+            parents.push(handler.parentNode);
+            final boolean rendered = node == root || !isDefinition(node);
+            BiConsumer<SvgBasicElementHandler, SVGOMElement> consumer =
+                    elementMap.get(node.getClass());
+            if (!rendered) {
+                logger.debug("Skipping definition {}", node);
+            } else if (consumer != null) {
+                recorder.countElement(node.getLocalName());
+                final int childCount = handler.parentNode.getChildren().size();
+                consumer.accept(handler, (SVGOMElement) node);
+                if (created != null && node != root) {
+                    Node result = getCreatedNode(handler, parents.peek(), childCount);
+                    if (result != null) {
+                        created.accept((Element) node, result);
+                    }
+                }
             } else {
                 logger.warn("Unknown element {} ({}):", node.getLocalName(), node);
             }
+
+            // Descend into the child elements
+            org.w3c.dom.Node child = rendered && !(node instanceof SVGOMSymbolElement)
+                                     && !(node instanceof SVGOMUseElement)
+                                   ? skipToElement(node.getFirstChild()) : null;
+            if (child != null) {
+                node = child;
+                continue;
+            }
+
+            // Leave all elements which have been completely handled
+            while (true) {
+                Group parent = parents.pop();
+                if (handler.parentNode != parent) {
+                    // The element has created a new group. It is only attached now
+                    // since attaching a node to a deep chain of groups notifies all
+                    // ancestors, which is slow and recursive.
+                    parent.getChildren().add(handler.parentNode);
+                }
+                handler.parentNode = parent;
+                if (node == root) {
+                    node = null;
+                    break;
+                }
+
+                org.w3c.dom.Node sibling = skipToElement(node.getNextSibling());
+                if (sibling != null) {
+                    node = sibling;
+                    break;
+                }
+                node = node.getParentNode();
+            }
+        }
+    }
+
+
+    /**
+     * @return <code>true</code> if the node is an element within a
+     *         <code>&lt;defs&gt;</code> element which is not rendered by itself.
+     *         Gradients are converted, since they are referenced by their id.
+     */
+    private static boolean isDefinition(org.w3c.dom.Node node) {
+        return node.getParentNode() instanceof SVGOMDefsElement
+            && !(node instanceof SVGOMGradientElement);
+    }
+
+
+    // <use>
+    private void handleUse(SvgBasicElementHandler handler, SVGOMUseElement use) {
+        String href = use.getHref().getBaseVal();
+        Element referenced = null;
+        if (href.startsWith("#")) {
+            referenced = use.getOwnerDocument().getElementById(href.substring(1));
+        }
+        if (referenced == null || handler.usedElements.contains(referenced)) {
+            logger.warn("Can not use {} in {}", href, use);
+            return;
+        }
+
+        // the referenced element is converted only once - all uses create
+        // their nodes from the same template
+        SvgTemplate template = handler.useTemplates.get(referenced);
+        if (template == null) {
+            template = compileUsedElement(handler, referenced);
+            handler.useTemplates.put(referenced, template);
+        }
+
+        Group result = template.instantiate();
+        result.setId(use.getId());
+        Affine transformation = handler.styleTools.getTransform(use);
+        if (transformation != null) {
+            result.getTransforms().add(transformation);
+        }
+        final double xpos = use.getX().getBaseVal().getValue();
+        final double ypos = use.getY().getBaseVal().getValue();
+        if (xpos != 0 || ypos != 0) {
+            result.getTransforms().add(new Translate(xpos, ypos));
+        }
+
+        // the viewBox of a symbol is mapped into the viewport of the <use> element
+        if (referenced instanceof SVGOMSymbolElement) {
+            ViewportContext viewport = new ViewportContext((SVGOMDocument) use.getOwnerDocument());
+            double[] matrix = SvgAttributeParser.parseViewBoxTransform(
+                    referenced.getAttribute("viewBox"),
+                    referenced.getAttribute("preserveAspectRatio"),
+                    SvgAttributeParser.parseLength(use.getAttribute("width"),
+                            viewport.viewportWidth, viewport.viewportWidth),
+                    SvgAttributeParser.parseLength(use.getAttribute("height"),
+                            viewport.viewportHeight, viewport.viewportHeight));
+            if (matrix != null) {
+                result.getTransforms().add(new Affine(matrix[0], matrix[2], matrix[4],
+                                                      matrix[1], matrix[3], matrix[5]));
+            }
         }
 
-        // Recursively handle child nodes
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            org.w3c.dom.Node element = children.item(i);
-            handle(element);
+        handler.parentNode.getChildren().add(result);
+    }
+
+
+    private SvgTemplate compileUsedElement(SvgBasicElementHandler handler, Element referenced) {
+        Group parent = handler.parentNode;
+        Group content = new Group();
+        handler.parentNode = content;
+        handler.usedElements.add(referenced);
+        try {
+            if (referenced instanceof SVGOMSymbolElement) {
+                org.w3c.dom.Node child = skipToElement(referenced.getFirstChild());
+                while (child != null) {
+                    handle(handler, (Element) child, NOT_CANCELLED,
+                           SvgLoadRecorder.DISABLED, null);
+                    child = skipToElement(child.getNextSibling());
+                }
+            } else {
+                handle(handler, referenced, NOT_CANCELLED, SvgLoadRecorder.DISABLED, null);
+            }
+        } finally {
+            handler.usedElements.remove(referenced);
+            handler.parentNode = parent;
         }
 
-        parentNode = par; // restore current parent
+        return SvgTemplate.compileInstance(content.getChildren());
+    }
+
+
+    /**
+     * @return The node which an element handler has created, or <code>null</code>
+     *         if it has created no node or more than one node.
+     */
+    private static Node getCreatedNode(SvgBasicElementHandler handler, Group parent,
+                                       int childCount) {
+        if (handler.parentNode != parent) {
+            return handler.parentNode;
+        }
+
+        List<Node> children = parent.getChildren();
+        return children.size() == childCount + 1 ? children.get(childCount) : null;
+    }
+
+
+    /**
+     * Converts a single element, without its child elements, into a new node.
+     * The handler keeps the paints of the document from the initial conversion,
+     * so that references to gradients can be resolved.
+     *
+     * @return The node which represents the element, or <code>null</code> if
+     *         the element is not represented by a single node.
+     */
+    private Node convertElement(SvgBasicElementHandler handler, SVGOMElement element) {
+        BiConsumer<SvgBasicElementHandler, SVGOMElement> consumer =
+                elementMap.get(element.getClass());
+        if (consumer == null || element instanceof SVGOMSVGElement) {
+            return null;
+        }
+
+        Group parent = handler.parentNode;
+        Group temporary = new Group();
+        handler.parentNode = temporary;
+        try {
+            consumer.accept(handler, element);
+            return getCreatedNode(handler, temporary, 0);
+        } finally {
+            handler.parentNode = parent;
+        }
+    }
+
+
+    /**
+     * @param node A node in a list of siblings (may be <code>null</code>).
+     *
+     * @return The given node if it is an element, otherwise its next
+     *         sibling which is an element or <code>null</code> if there
+     *         is no such sibling.
+     */
+    private static org.w3c.dom.Node skipToElement(org.w3c.dom.Node node) {
+        while (node != null && node.getNodeType() != org.w3c.dom.Node.ELEMENT_NODE) {
+            node = node.getNextSibling();
+        }
+        return node;
     }
 
     
@@ -173,9 +615,8 @@ public class SvgLoader {
      * @return An XML document with the loaded SVG file.
      */
     public SVGOMDocument loadSvgDocument(String fileName) {
-        try {
-            InputStream svgFile = new FileInputStream(fileName);
-            return loadSvgDocument(svgFile);
+        try (InputStream svgFile = new FileInputStream(fileName)) {
+            return loadSvgDocument(svgFile, fileName);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -191,28 +632,327 @@ public class SvgLoader {
      * @return A DOM document which represents the SVG file.
      */
     public SVGOMDocument loadSvgDocument(InputStream svgFile) {
+        return loadSvgDocument(svgFile, null);
+    }
+
+
+    /**
+     * Converts an SVG document into a corresponding JavaFX Group node.
+     *
+     * @param document A document which has been loaded with
+     *                 {@link #loadSvgDocument(InputStream)}. The document is not
+     *                 modified, so it can be converted any number of times.
+     *
+     * @return A JavaFX node representing the SVG document.
+     */
+    public Group convertSvgDocument(SVGOMDocument document) {
+        SvgLoadRecorder recorder = SvgLoadRecorder.start(null, "dom");
+        Group result = null;
         try {
-            String parser = XMLResourceDescriptor.getXMLParserClassName();
-            SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
-            SVGOMDocument document = (SVGOMDocument) factory.createDocument("", svgFile);
+            result = optimize(createNodes(document, NOT_CANCELLED, recorder, null), recorder,
+                              needsReferencedIds() ? getReferencedIds(document) : null);
+        } finally {
+            recorder.finish(result != null);
+        }
+        return result;
+    }
+
+
+    /**
+     * Converts an SVG document into a corresponding JavaFX Group node which
+     * stays bound to the document. Whenever an attribute of an element is
+     * modified, only the properties of the node which represents the element
+     * are updated. The drawing is not optimized, even if flattening or merging
+     * is enabled for this loader, since each element needs its own node.
+     *
+     * @param document A document which has been loaded with
+     *                 {@link #loadSvgDocument(InputStream)}.
+     *
+     * @return The binding between the document and the JavaFX nodes.
+     */
+    public SvgDocumentBinding bindSvgDocument(SVGOMDocument document) {
+        SvgLoadRecorder recorder = SvgLoadRecorder.start(null, "dom");
+        SvgDocumentBinding result = null;
+        try {
+            recorder.beginPhase(SvgLoadRecorder.CONVERT);
+            SvgBasicElementHandler handler =
+                    new SvgBasicElementHandler(gradientFactory, addRootRect,
+                                               useSeparatePathElements, createDocumentPaints());
+            Group drawing = handler.parentNode;
+            Map<Element, Node> nodes = new HashMap<>();
+            handle(handler, document.getDocumentElement(), NOT_CANCELLED, recorder, nodes::put);
+            recorder.endPhase();
+
+            // the elements are converted again when the document is modified
+            if (handler.styleTools != null) {
+                handler.styleTools.setShareStyles(false);
+            }
+
+            result = new SvgDocumentBinding(document, drawing, nodes,
+                                            element -> convertElement(handler, element));
+        } finally {
+            recorder.finish(result != null);
+        }
+        return result;
+    }
+
 
-            UserAgent userAgent = new UserAgentAdapter();
-            DocumentLoader loader = new DocumentLoader(userAgent);
-            BridgeContext bridgeContext = new BridgeContext(userAgent, loader);
-            bridgeContext.setDynamicState(BridgeContext.DYNAMIC);
+    private SVGOMDocument loadSvgDocument(InputStream svgFile, String documentId) {
+        SvgLoadRecorder recorder = SvgLoadRecorder.start(documentId, "dom");
+        SVGOMDocument result = null;
+        try {
+            result = readSvgDocument(recorder.wrap(svgFile), recorder);
+        } finally {
+            recorder.finish(result != null);
+        }
+        return result;
+    }
 
-            // Enable CSS- and SVG-specific enhancements.
-            (new GVTBuilder()).build(bridgeContext, document);
+
+    /**
+     * @return A stream which fails as soon as it is read after the load has been
+     *         cancelled, so that the parser stops reading the document.
+     */
+    private static InputStream cancellable(InputStream input, BooleanSupplier cancelCheck) {
+        if (cancelCheck == NOT_CANCELLED) {
+            return input;
+        }
+
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                checkCancelled();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                checkCancelled();
+                return super.read(buffer, offset, length);
+            }
+
+            private void checkCancelled() throws IOException {
+                if (cancelCheck.getAsBoolean()) {
+                    throw new InterruptedIOException("Loading SVG document cancelled");
+                }
+            }
+        };
+    }
+
+
+    private SVGOMDocument readSvgDocument(InputStream svgFile, SvgLoadRecorder recorder) {
+        BatikContext batik = batikContexts.poll();
+        if (batik == null) {
+            batik = new BatikContext();
+        }
+
+        try {
+            recorder.beginPhase(SvgLoadRecorder.PARSE);
+            SVGOMDocument document =
+                    (SVGOMDocument) batik.documentFactory.createDocument("", svgFile);
+            recorder.endPhase();
+
+            if (buildRenderTree) {
+                recorder.beginPhase(SvgLoadRecorder.GVT);
+                BridgeContext bridgeContext =
+                        new BridgeContext(batik.userAgent, batik.documentLoader);
+                bridgeContext.setDynamicState(BridgeContext.DYNAMIC);
+
+                // Enable CSS- and SVG-specific enhancements.
+                (new GVTBuilder()).build(bridgeContext, document);
+            } else {
+                recorder.beginPhase(SvgLoadRecorder.CSS);
+
+                // Only set up the CSS engine. The engine keeps a reference to the
+                // bridge context for the lifetime of the document, so each document
+                // gets its own context which is not shared with other threads
+                CssBridgeContext cssContext =
+                        new CssBridgeContext(batik.userAgent, batik.documentLoader);
+                cssContext.setDynamicState(BridgeContext.DYNAMIC);
+                cssContext.initializeDocument(document);
+
+                // Batik needs a context to resolve percentage lengths which is 
+                // otherwise set up while building the GVT
+                ViewportContext viewportContext = new ViewportContext(document);
+                org.w3c.dom.Node node = document.getDocumentElement();
+                while (node != null) {
+                    if (node instanceof SVGOMElement
+                        && ((SVGOMElement) node).getSVGContext() == null) {
+                        ((SVGOMElement) node).setSVGContext(viewportContext);
+                    }
+                    node = nextElement(node, document);
+                }
+            }
+            recorder.endPhase();
 
             return document;
+        } catch (InterruptedIOException e) {
+            logger.debug("Parsing SVG document cancelled");
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            batikContexts.offer(batik);
         }
 
         return null;
     }
 
-    
+
+    private boolean needsReferencedIds() {
+        return mergeShapes && mergeKeepId == KEEP_REFERENCED_IDS;
+    }
+
+
+    /**
+     * @return The ids which are referenced within a document, by an
+     *         <code>href</code> attribute or by a <code>url()</code> in an
+     *         attribute or a style sheet.
+     */
+    private static Set<String> getReferencedIds(Document document) {
+        Set<String> result = new HashSet<>();
+        org.w3c.dom.Node node = document.getDocumentElement();
+        while (node != null) {
+            NamedNodeMap attributes = node.getAttributes();
+            if (attributes != null) {
+                for (int i = 0;  i < attributes.getLength();  i++) {
+                    org.w3c.dom.Node attribute = attributes.item(i);
+                    SvgAttributeParser.addReferences(attribute.getLocalName(),
+                                                     attribute.getNodeValue(), result);
+                }
+            }
+            if (node instanceof SVGOMStyleElement) {
+                SvgAttributeParser.addReferences(null, node.getTextContent(), result);
+            }
+            node = nextElement(node, document.getDocumentElement());
+        }
+        return result;
+    }
+
+
+    private static org.w3c.dom.Node nextElement(org.w3c.dom.Node node, 
+                                                org.w3c.dom.Node root) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+        while (node != root) {
+            if (node.getNextSibling() != null) {
+                return node.getNextSibling();
+            }
+            node = node.getParentNode();
+        }
+        return null;
+    }
+
+
+    /**
+     * A minimal SVG context which provides the viewport size of the
+     * document's root element to resolve percentage lengths.
+     */
+    private static class ViewportContext implements SVGContext {
+        private static final float PIXEL_TO_MM = 0.26458333f;  // 96 dpi
+
+        private final float viewportWidth;
+        private final float viewportHeight;
+
+        ViewportContext(SVGOMDocument document) {
+            org.w3c.dom.Element root = document.getDocumentElement();
+            double[] viewBox = SvgAttributeParser.parseNumberList(root.getAttribute("viewBox"));
+            if (viewBox.length == 4) {
+                viewportWidth = (float) viewBox[2];
+                viewportHeight = (float) viewBox[3];
+            } else {
+                viewportWidth = (float) SvgAttributeParser.parseLength(
+                                                root.getAttribute("width"), 0, 0);
+                viewportHeight = (float) SvgAttributeParser.parseLength(
+                                                root.getAttribute("height"), 0, 0);
+            }
+        }
+
+        @Override
+        public float getPixelUnitToMillimeter() {
+            return PIXEL_TO_MM;
+        }
+
+        @Override
+        public float getPixelToMM() {
+            return PIXEL_TO_MM;
+        }
+
+        @Override
+        public Rectangle2D getBBox() {
+            return null;
+        }
+
+        @Override
+        public AffineTransform getScreenTransform() {
+            return null;
+        }
+
+        @Override
+        public void setScreenTransform(AffineTransform transform) {
+        }
+
+        @Override
+        public AffineTransform getCTM() {
+            return null;
+        }
+
+        @Override
+        public AffineTransform getGlobalTransform() {
+            return null;
+        }
+
+        @Override
+        public float getViewportWidth() {
+            return viewportWidth;
+        }
+
+        @Override
+        public float getViewportHeight() {
+            return viewportHeight;
+        }
+
+        @Override
+        public float getFontSize() {
+            return 12;
+        }
+    }
+
+
+    /**
+     * The Batik objects which are required to load SVG documents.
+     */
+    private static class BatikContext {
+        final SAXSVGDocumentFactory documentFactory;
+        final UserAgent userAgent;
+        final DocumentLoader documentLoader;
+
+        BatikContext() {
+            String parser = XMLResourceDescriptor.getXMLParserClassName();
+            documentFactory = new SAXSVGDocumentFactory(parser);
+            userAgent = new UserAgentAdapter();
+            documentLoader = new DocumentLoader(userAgent);
+        }
+    }
+
+
+    /**
+     * A bridge context which is only used to initialize the CSS engine
+     * of a document, without building the GVT tree.
+     */
+    private static class CssBridgeContext extends BridgeContext {
+
+        CssBridgeContext(UserAgent userAgent, DocumentLoader loader) {
+            super(userAgent, loader);
+        }
+
+        @Override
+        public void initializeDocument(Document document) {
+            super.initializeDocument(document);
+        }
+    }
+
+
     /**
      * Loads an SVG file from a file with a specified name and returns a
      * corresponding JavaFX Group node.
@@ -222,14 +962,13 @@ public class SvgLoader {
      * @return A JavaFX node representing the SVG file.
      */
     public Group loadSvg(String fileName) {
-        // note: uses the DOM approach.
-        // probably a SAX based approach would be better from a performance
-        // perspective.
-        SVGOMDocument doc = loadSvgDocument(fileName);
+        try (InputStream svgFile = new FileInputStream(fileName)) {
+            return loadSvg(svgFile, fileName, NOT_CANCELLED);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
-        parentNode = new Group();
-        handle(doc);
-        return parentNode;
+        return null;
     }
 
 
@@ -242,15 +981,512 @@ public class SvgLoader {
      * @return A JavaFX node representing the SVG file.
      */
     public Group loadSvg(InputStream svgFile) {
+        return loadSvg(svgFile, null, NOT_CANCELLED);
+    }
+
+
+    /**
+     * Loads an SVG file from a file with a specified name, and creates an
+     * index of the nodes by the id and by the class of their elements while
+     * the file is converted. Looking up nodes in the index takes constant
+     * time, while each <code>Node.lookup()</code> walks the node tree.
+     *
+     * @param fileName The name of the SVG file to load.
+     *
+     * @return The JavaFX node representing the SVG file, with its index,
+     *         or <code>null</code> if the file could not be loaded.
+     */
+    public SvgLoadResult loadSvgIndexed(String fileName) {
+        try (InputStream svgFile = new FileInputStream(fileName)) {
+            return loadSvgIndexed(svgFile, fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Loads an SVG file from an InputStream, and creates an index of the
+     * nodes by the id and by the class of their elements while the file
+     * is converted.
+     *
+     * @param svgFile A stream which provides the SVG document.
+     *
+     * @return The JavaFX node representing the SVG file, with its index,
+     *         or <code>null</code> if the file could not be loaded.
+     */
+    public SvgLoadResult loadSvgIndexed(InputStream svgFile) {
+        return loadSvgIndexed(svgFile, null);
+    }
+
+
+    private SvgLoadResult loadSvgIndexed(InputStream svgFile, String documentId) {
+        SvgLoadResult result = new SvgLoadResult();
+        return loadSvg(svgFile, documentId, NOT_CANCELLED, result) == null ? null : result;
+    }
+
+
+    private Group loadSvg(InputStream svgFile, String documentId, BooleanSupplier cancelCheck) {
+        return loadSvg(svgFile, documentId, cancelCheck, null);
+    }
+
+
+    /**
+     * @param index Receives the nodes which are created for the elements
+     *              with an id or a class, if not <code>null</code>.
+     */
+    private Group loadSvg(InputStream svgFile, String documentId, BooleanSupplier cancelCheck,
+                          SvgLoadResult index) {
+        final boolean streaming = useStreamingParser;
+        SvgLoadRecorder recorder = SvgLoadRecorder.start(documentId,
+                                                         streaming ? "streaming" : "dom");
+        Group result = null;
+        try {
+            Set<String> referencedIds = needsReferencedIds() ? new HashSet<>() : null;
+            result = loadSvg(recorder.wrap(svgFile), streaming, cancelCheck, recorder, index,
+                             referencedIds);
+            if (index != null && result != null) {
+                index.setDrawing(result);
+            }
+            result = optimize(result, recorder, referencedIds);
+            if (index != null && result != null && (flattenGroups || mergeShapes)) {
+                index.retainAttached();
+            }
+        } finally {
+            recorder.finish(result != null);
+        }
+        return result;
+    }
+
+
+    /**
+     * @param referencedIds Receives the ids which are referenced within the
+     *                      document, if not <code>null</code>.
+     */
+    private Group loadSvg(InputStream svgFile, boolean streaming, BooleanSupplier cancelCheck,
+                          SvgLoadRecorder recorder, SvgLoadResult index,
+                          Set<String> referencedIds) {
+        if (streaming) {
+            try {
+                return new SvgStreamingLoader(addRootRect, gradientFactory, cancelCheck, recorder,
+                                              index, createDocumentPaints(), referencedIds)
+                           .load(svgFile);
+            } catch (XMLStreamException e) {
+                e.printStackTrace();
+            }
+
+            return null;
+        }
+
         // note: uses the DOM approach.
         // probably a SAX based approach would be better from a performance
         // perspective.
-        SVGOMDocument doc = loadSvgDocument(svgFile);
+        SVGOMDocument doc = readSvgDocument(cancellable(svgFile, cancelCheck), recorder);
+        if (cancelCheck.getAsBoolean()) {
+            throw new CancellationException();
+        }
+        if (doc == null) {
+            return null;
+        }
+        if (referencedIds != null) {
+            referencedIds.addAll(getReferencedIds(doc));
+        }
+
+        return createNodes(doc, cancelCheck, recorder, index);
+    }
+
+
+    /**
+     * Applies the optional optimizations to a loaded node tree.
+     *
+     * @param result The loaded node tree, or <code>null</code>.
+     * @param recorder Records the statistics of the current load.
+     * @param referencedIds The ids which are referenced within the document,
+     *                      if they are needed to merge the paths.
+     *
+     * @return The node tree.
+     */
+    private Group optimize(Group result, SvgLoadRecorder recorder, Set<String> referencedIds) {
+        if (result == null || !(flattenGroups || mergeShapes)) {
+            return result;
+        }
+
+        recorder.beginPhase(SvgLoadRecorder.OPTIMIZE);
+
+        // flattening first moves the paths of separate groups next to each other
+        if (flattenGroups) {
+            int removed = SvgGroupFlattener.flattenGroups(result, flattenKeepId);
+            logger.debug("Flattened groups, {} nodes removed", removed);
+            recorder.addRemovedNodes(removed);
+        }
+        if (mergeShapes) {
+            Predicate<String> keepId = mergeKeepId;
+            if (keepId == KEEP_REFERENCED_IDS) {
+                // the option has been modified while the document was loaded
+                keepId = referencedIds == null ? id -> true : referencedIds::contains;
+            }
+            int removed = SvgShapeMerger.mergeShapes(result, keepId);
+            logger.debug("Merged shapes, {} nodes removed", removed);
+            recorder.addRemovedNodes(removed);
+        }
+
+        recorder.endPhase();
+        return result;
+    }
+
+
+    /**
+     * Loads an SVG file from a file with a specified name and returns a
+     * corresponding JavaFX Group node, in which each top-level group
+     * (layer) is an {@link SvgLazyGroup}. The child nodes of the layers are
+     * only created when they are materialized, so that large drawings of which
+     * only a part is visible require less memory and less time per pulse once
+     * they have been loaded.
+     * <p>
+     * The complete node tree is still created while loading, so this method
+     * takes somewhat longer than {@link #loadSvg(String)} and does not reduce
+     * the peak memory consumption during loading. Use
+     * {@link SvgLazyGroup#bindVisibility(javafx.scene.Parent, Node, boolean)}
+     * to materialize the layers automatically when they become visible.</p>
+     *
+     * @param fileName The name of the SVG file to load.
+     *
+     * @return A JavaFX node representing the SVG file.
+     */
+    public Group loadSvgLazy(String fileName) {
+        Group result = loadSvg(fileName);
+        if (result != null) {
+            SvgLazyGroup.createLazyLayers(result);
+        }
+        return result;
+    }
+
+
+    /**
+     * Loads an SVG file from an InputStream and returns a corresponding JavaFX
+     * Group node, in which each top-level group is an {@link SvgLazyGroup}.
+     *
+     * @param svgFile A stream which provides the SVG document.
+     *
+     * @return A JavaFX node representing the SVG file.
+     *
+     * @see #loadSvgLazy(String)
+     */
+    public Group loadSvgLazy(InputStream svgFile) {
+        Group result = loadSvg(svgFile);
+        if (result != null) {
+            SvgLazyGroup.createLazyLayers(result);
+        }
+        return result;
+    }
+
+
+    /**
+     * Loads a number of SVG files in parallel, using the common fork join pool.
+     *
+     * @param svgFiles The paths of the SVG files to load.
+     *
+     * @return The JavaFX nodes representing the SVG files, in the same order
+     *         as the given paths. The list contains <code>null</code> for each
+     *         file which could not be loaded.
+     */
+    public List<Group> loadAll(Collection<Path> svgFiles) {
+        return loadAll(svgFiles, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * Loads a number of SVG files in parallel.
+     * Each document is parsed and converted by a separate task of the given
+     * executor, so that the load time scales with the number of available
+     * threads. This method blocks until all files have been loaded.
+     *
+     * @param svgFiles The paths of the SVG files to load.
+     * @param executor The executor which runs the loads.
+     *
+     * @return The JavaFX nodes representing the SVG files, in the same order
+     *         as the given paths. The list contains <code>null</code> for each
+     *         file which could not be loaded or converted. A failing file
+     *         does not affect the other files.
+     */
+    public List<Group> loadAll(Collection<Path> svgFiles, Executor executor) {
+        List<CompletableFuture<Group>> loads = new ArrayList<>(svgFiles.size());
+        for (Path svgFile : svgFiles) {
+            loads.add(CompletableFuture.supplyAsync(() -> loadSvg(svgFile), executor)
+                                       .handle(SvgLoader::nullOnFailure));
+        }
+
+        List<Group> result = new ArrayList<>(loads.size());
+        for (CompletableFuture<Group> load : loads) {
+            result.add(load.join());
+        }
+        return result;
+    }
+
+
+    private static Group nullOnFailure(Group group, Throwable failure) {
+        if (failure != null) {
+            failure.printStackTrace();
+            return null;
+        }
+        return group;
+    }
+
+
+    private Group loadSvg(Path svgFile) {
+        try (InputStream input = Files.newInputStream(svgFile)) {
+            return loadSvg(input, svgFile.toString(), NOT_CANCELLED);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Loads an SVG file from a file with a specified name and returns a
+     * compiled template of the drawing.
+     *
+     * @param fileName The name of the SVG file to load.
+     *
+     * @return A template which can create any number of JavaFX nodes
+     *         representing the SVG file.
+     */
+    public SvgTemplate loadSvgTemplate(String fileName) {
+        Group result = loadSvg(fileName);
+        return result == null ? null : SvgTemplate.compile(result);
+    }
+
+
+    /**
+     * Loads an SVG file from an InputStream and returns a compiled template
+     * of the drawing.
+     * The template does not refer to any SvgLoader or Batik object, so it can
+     * be shared between threads and reused after the loader has been discarded.
+     *
+     * @param svgFile A stream which provides the SVG document.
+     *
+     * @return A template which can create any number of JavaFX nodes
+     *         representing the SVG file.
+     */
+    public SvgTemplate loadSvgTemplate(InputStream svgFile) {
+        Group result = loadSvg(svgFile);
+        return result == null ? null : SvgTemplate.compile(result);
+    }
 
-        parentNode = new Group();
-        handle(doc);
 
-        return parentNode;
+    /**
+     * Loads a template from a file in the binary compiled SVG format, as
+     * created by {@link SvgCompiler}. The file is memory mapped and does not
+     * require any XML parsing or style resolution. The settings of this
+     * loader are not used - they have been applied when the file was compiled.
+     *
+     * @param svgcFile The path of the compiled SVG file.
+     *
+     * @return A template which can create any number of JavaFX nodes
+     *         representing the SVG file.
+     */
+    public SvgTemplate loadCompiledTemplate(Path svgcFile) {
+        try (FileChannel channel = FileChannel.open(svgcFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return SvgTemplateCodec.read(buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Loads a template from a file in the binary compiled SVG format.
+     * Files are memory mapped; other resources, like class path resources
+     * which are packaged in a jar file, are read into a heap buffer.
+     *
+     * @param svgcResource The URL of the compiled SVG file.
+     *
+     * @return A template which can create any number of JavaFX nodes
+     *         representing the SVG file.
+     */
+    public SvgTemplate loadCompiledTemplate(URL svgcResource) {
+        if ("file".equals(svgcResource.getProtocol())) {
+            try {
+                return loadCompiledTemplate(Paths.get(svgcResource.toURI()));
+            } catch (URISyntaxException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        try (InputStream input = svgcResource.openStream()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) != -1) {
+                content.write(buffer, 0, count);
+            }
+            return SvgTemplateCodec.read(ByteBuffer.wrap(content.toByteArray()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
     }
 
+
+    /**
+     * Asynchronously loads an SVG file from an InputStream.
+     * Parsing the document and creating the JavaFX nodes is done by the given
+     * executor, so that the calling thread (usually the JavaFX application
+     * thread) is not blocked. The caller is responsible for adding the result
+     * to the scene graph on the JavaFX application thread, for example through
+     * <code>thenAcceptAsync(..., Platform::runLater)</code>.
+     * <p>
+     * Cancelling the returned future stops the load as soon as possible: the
+     * parser stops at its next read from the stream, and the conversion stops
+     * at the next element. Building the Batik render tree can not be
+     * interrupted, so that a load which is cancelled in this phase stops once
+     * the render tree has been built.</p>
+     *
+     * @param svgFile A stream which provides the SVG document. The stream is
+     *                closed when the load has finished.
+     * @param executor The executor which runs the load.
+     *
+     * @return A future which is completed with the JavaFX node representing
+     *         the SVG file.
+     */
+    public CompletableFuture<Group> loadSvgAsync(InputStream svgFile, Executor executor) {
+        CompletableFuture<Group> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try (InputStream input = svgFile) {
+                loadSvgAsync(input, null, result);
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+
+    /**
+     * Asynchronously loads an SVG file from a file system path.
+     *
+     * @param svgFile The path of the SVG file to load.
+     * @param executor The executor which runs the load.
+     *
+     * @return A future which is completed with the JavaFX node representing
+     *         the SVG file.
+     *
+     * @see #loadSvgAsync(InputStream, Executor)
+     */
+    public CompletableFuture<Group> loadSvgAsync(Path svgFile, Executor executor) {
+        CompletableFuture<Group> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return;     // cancelled before the load has been started
+            }
+
+            try (InputStream input = Files.newInputStream(svgFile)) {
+                loadSvgAsync(input, svgFile.toString(), result);
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+
+    /**
+     * Loads an SVG file in the background and adds the resulting nodes to a
+     * target group over several frames, so that a large drawing does not
+     * block the application while it is added to the scene.
+     * This method must be called on the JavaFX application thread.
+     *
+     * @param svgFile The path of the SVG file to load.
+     * @param target The group to which the drawing is added.
+     *
+     * @return An attacher which reports the progress and the completion.
+     *
+     * @see SvgProgressiveAttacher
+     */
+    public SvgProgressiveAttacher loadSvgProgressive(Path svgFile, Group target) {
+        return loadSvgProgressive(svgFile, target, SvgProgressiveAttacher.DEFAULT_BUDGET);
+    }
+
+
+    /**
+     * Loads an SVG file in the background and adds the resulting nodes to a
+     * target group over several frames.
+     * This method must be called on the JavaFX application thread.
+     *
+     * @param svgFile The path of the SVG file to load.
+     * @param target The group to which the drawing is added.
+     * @param budget The time which is spent at most per frame to add nodes,
+     *               in nanoseconds.
+     *
+     * @return An attacher which reports the progress and the completion.
+     */
+    public SvgProgressiveAttacher loadSvgProgressive(Path svgFile, Group target, long budget) {
+        return attachWhenLoaded(loadSvgAsync(svgFile, ForkJoinPool.commonPool()), target, budget);
+    }
+
+
+    /**
+     * Loads an SVG file from an InputStream in the background and adds the
+     * resulting nodes to a target group over several frames.
+     * This method must be called on the JavaFX application thread.
+     *
+     * @param svgFile A stream which provides the SVG document. The stream is
+     *                closed when the load has finished.
+     * @param target The group to which the drawing is added.
+     *
+     * @return An attacher which reports the progress and the completion.
+     */
+    public SvgProgressiveAttacher loadSvgProgressive(InputStream svgFile, Group target) {
+        return attachWhenLoaded(loadSvgAsync(svgFile, ForkJoinPool.commonPool()), target,
+                                SvgProgressiveAttacher.DEFAULT_BUDGET);
+    }
+
+
+    private static SvgProgressiveAttacher attachWhenLoaded(CompletableFuture<Group> load,
+                                                           Group target, long budget) {
+        SvgProgressiveAttacher result = new SvgProgressiveAttacher(target, budget);
+        result.setLoad(load);
+        load.whenCompleteAsync((drawing, error) -> {
+            if (error != null) {
+                result.fail(error);
+            } else {
+                result.start(drawing);
+            }
+        }, Platform::runLater);
+
+        return result;
+    }
+
+
+    private void loadSvgAsync(InputStream svgFile, String documentId,
+                              CompletableFuture<Group> result) {
+        if (result.isDone()) {
+            return;     // cancelled before the load has been started
+        }
+
+        try {
+            Group group = loadSvg(svgFile, documentId, result::isCancelled);
+            if (group == null) {
+                result.completeExceptionally(
+                        new IllegalArgumentException("Could not load SVG document"));
+            } else {
+                result.complete(group);
+            }
+        } catch (CancellationException ce) {
+            logger.debug("Loading SVG document cancelled");
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
 }
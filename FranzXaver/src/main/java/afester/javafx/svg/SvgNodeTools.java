@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Node;
+import javafx.scene.transform.Transform;
+
+import java.util.function.Predicate;
+
+
+/**
+ * Checks of node properties which are shared by the optimizations of a
+ * loaded node tree.
+ */
+final class SvgNodeTools {
+
+    private SvgNodeTools() {
+    }
+
+
+    /**
+     * @param node The node to check.
+     * @param keepId Decides whether a node with the given id must be kept.
+     *
+     * @return <code>true</code> if the node does not have any property which an
+     *         application might refer to, like a needed id, a style class or
+     *         user data, and if it is rendered without a clip or an effect.
+     */
+    static boolean isPlain(Node node, Predicate<String> keepId) {
+        final String id = node.getId();
+        return (id == null || id.isEmpty() || !keepId.test(id))
+            && node.getStyleClass().isEmpty()
+            && (node.getStyle() == null || node.getStyle().isEmpty())
+            && !node.hasProperties()
+            && node.getUserData() == null
+            && node.getClip() == null
+            && node.getEffect() == null
+            && node.isVisible();
+    }
+
+
+    /**
+     * @return <code>true</code> if the scale and rotate properties of the node
+     *         are not used. They transform around the center of the node,
+     *         which changes when the geometry of the node changes.
+     */
+    static boolean hasNoCenteredTransform(Node node) {
+        return node.getScaleX() == 1 && node.getScaleY() == 1 && node.getScaleZ() == 1
+            && node.getRotate() == 0;
+    }
+
+
+    /**
+     * @return <code>true</code> if the node is only transformed by its list of
+     *         transformations, not by any of its transformation properties.
+     */
+    static boolean hasNoNodeTransform(Node node) {
+        return hasNoCenteredTransform(node)
+            && node.getTranslateX() == 0 && node.getTranslateY() == 0
+            && node.getTranslateZ() == 0
+            && node.getLayoutX() == 0 && node.getLayoutY() == 0;
+    }
+
+
+    /**
+     * @return <code>true</code> if both transformations have the same matrix.
+     */
+    static boolean isSameTransform(Transform a, Transform b) {
+        return a.getMxx() == b.getMxx() && a.getMxy() == b.getMxy() && a.getMxz() == b.getMxz()
+            && a.getMyx() == b.getMyx() && a.getMyy() == b.getMyy() && a.getMyz() == b.getMyz()
+            && a.getMzx() == b.getMzx() && a.getMzy() == b.getMzy() && a.getMzz() == b.getMzz()
+            && a.getTx() == b.getTx() && a.getTy() == b.getTy() && a.getTz() == b.getTz();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * A pool of canonical paint objects.
+ * <p>
+ * Real documents use a few dozen distinct colors and gradients for thousands
+ * of shapes. The pool returns the same instance for equal paints, so that
+ * the shapes of a drawing refer to a single object for each distinct paint.
+ * All JavaFX paints are immutable, so they can be shared between shapes and
+ * between drawings.</p>
+ * <p>
+ * By default, each document which is loaded by an {@link SvgLoader} uses its
+ * own pool. A pool can be shared by all documents of a loader with
+ * {@link SvgLoader#setPaintPool(SvgPaintPool)}, for example to load a large
+ * set of icons which use the same colors. A pool is thread safe; it is never
+ * cleared automatically.</p>
+ */
+public final class SvgPaintPool {
+
+    private final ConcurrentMap<Paint, Paint> paints = new ConcurrentHashMap<>();
+
+
+    /**
+     * The paints which are used by a single document. A document is converted
+     * by a single thread, so that the instances are not thread safe.
+     * Only paints which are applied to a shape are counted as used; gradients
+     * which are defined but never referenced, and the colors of their stops,
+     * are not.
+     */
+    final class DocumentPaints {
+        private final Set<Paint> used = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * Interns a paint without counting it as used, for example a gradient
+         * when its definition is read.
+         */
+        <T extends Paint> T intern(T paint) {
+            return SvgPaintPool.this.intern(paint);
+        }
+
+        /**
+         * Interns a paint which is applied to a shape, for example when a
+         * reference to a gradient has been resolved.
+         */
+        <T extends Paint> T use(T paint) {
+            T result = SvgPaintPool.this.intern(paint);
+            if (result != null) {
+                used.add(result);
+            }
+            return result;
+        }
+
+        Color getColor(double red, double green, double blue, double opacity) {
+            return use(new Color(red, green, blue, opacity));
+        }
+
+        /**
+         * @return The number of distinct paints which are used by the document.
+         */
+        int size() {
+            return used.size();
+        }
+    }
+
+
+    /**
+     * Creates a new, empty pool.
+     */
+    public SvgPaintPool() {
+    }
+
+
+    DocumentPaints forDocument() {
+        return new DocumentPaints();
+    }
+
+
+    /**
+     * @param paint A paint, or <code>null</code>.
+     *
+     * @return The paint from the pool which is equal to the given paint. If the
+     *         pool does not contain such a paint yet, the given paint is added
+     *         and returned.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Paint> T intern(T paint) {
+        if (paint == null) {
+            return null;
+        }
+
+        // all JavaFX paint classes are final, so that equal paints have the same class
+        Paint result = paints.putIfAbsent(paint, paint);
+        return result == null ? paint : (T) result;
+    }
+
+
+    /**
+     * @param red The red component, in the range 0.0-1.0.
+     * @param green The green component, in the range 0.0-1.0.
+     * @param blue The blue component, in the range 0.0-1.0.
+     * @param opacity The opacity, in the range 0.0-1.0.
+     *
+     * @return The color from the pool with the given components.
+     */
+    public Color getColor(double red, double green, double blue, double opacity) {
+        return intern(new Color(red, green, blue, opacity));
+    }
+
+
+    /**
+     * @return The number of distinct paints in the pool.
+     */
+    public int size() {
+        return paints.size();
+    }
+
+
+    /**
+     * Removes all paints from the pool. Drawings which have already been
+     * loaded keep their paints.
+     */
+    public void clear() {
+        paints.clear();
+    }
+}
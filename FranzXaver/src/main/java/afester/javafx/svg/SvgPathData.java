@@ -0,0 +1,691 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.QuadCurveTo;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * The geometry of an SVG path, parsed from the path data of a
+ * <code>d</code> attribute.
+ * <p>
+ * The path data is parsed in a single pass into an array of segment types and
+ * an array of absolute coordinates. All SVG path commands are supported:
+ * horizontal and vertical lines are converted into lines, smooth curves into
+ * curves with explicit control points, and elliptical arcs into cubic curves.
+ * The geometry can be converted into a JavaFX <code>Path</code>, or into an
+ * AWT <code>Path2D</code> which can be used for hit testing.</p>
+ * <p>
+ * As required by the SVG specification, the path is rendered up to the first
+ * error in the path data. Instances are immutable.</p>
+ */
+public final class SvgPathData {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** A move to segment, with one coordinate pair. */
+    public static final int MOVE_TO = PathIterator.SEG_MOVETO;
+
+    /** A line segment, with one coordinate pair. */
+    public static final int LINE_TO = PathIterator.SEG_LINETO;
+
+    /** A quadratic curve, with two coordinate pairs. */
+    public static final int QUAD_TO = PathIterator.SEG_QUADTO;
+
+    /** A cubic curve, with three coordinate pairs. */
+    public static final int CUBIC_TO = PathIterator.SEG_CUBICTO;
+
+    /** A segment which closes the current sub path, without coordinates. */
+    public static final int CLOSE = PathIterator.SEG_CLOSE;
+
+    private static final int[] COORDINATES = { 2, 2, 4, 6, 0 };
+
+    private final byte[] types;
+    private final double[] coordinates;
+    private final boolean error;
+
+
+    private SvgPathData(byte[] types, double[] coordinates, boolean error) {
+        this.types = types;
+        this.coordinates = coordinates;
+        this.error = error;
+    }
+
+
+    /**
+     * Parses SVG path data.
+     *
+     * @param content The value of a <code>d</code> attribute (may be <code>null</code>).
+     *
+     * @return The geometry of the path. If the path data contains an error,
+     *         the geometry up to the error.
+     */
+    public static SvgPathData parse(String content) {
+        Parser parser = new Parser(content == null ? "" : content);
+        parser.parse();
+        if (parser.error) {
+            logger.warn("Invalid path data at position {}: {}", parser.pos, content);
+        }
+        return new SvgPathData(Arrays.copyOf(parser.types, parser.typeCount),
+                               Arrays.copyOf(parser.coords, parser.coordCount),
+                               parser.error);
+    }
+
+
+    /**
+     * @return <code>true</code> if the path data contained an error.
+     */
+    public boolean hasError() {
+        return error;
+    }
+
+
+    /**
+     * @return The number of segments of the path.
+     */
+    public int getSegmentCount() {
+        return types.length;
+    }
+
+
+    /**
+     * @param index The index of a segment.
+     *
+     * @return The type of the segment, like {@link #CUBIC_TO}.
+     */
+    public int getSegmentType(int index) {
+        return types[index];
+    }
+
+
+    /**
+     * @param type The type of a segment.
+     *
+     * @return The number of coordinates of the segment, two for each point.
+     */
+    public static int getCoordinateCount(int type) {
+        return COORDINATES[type];
+    }
+
+
+    /**
+     * @return A copy of the absolute coordinates of all segments, in the
+     *         order of the segments.
+     */
+    public double[] getCoordinates() {
+        return coordinates.clone();
+    }
+
+
+    // the coordinates without a copy, for the users within this package
+    double[] coordinates() {
+        return coordinates;
+    }
+
+
+    /**
+     * @return The path elements which describe this path.
+     */
+    public List<PathElement> toPathElements() {
+        List<PathElement> result = new ArrayList<>(types.length);
+        final double[] c = coordinates;
+        int pos = 0;
+        for (byte type : types) {
+            switch (type) {
+              case MOVE_TO :
+                  result.add(new MoveTo(c[pos], c[pos + 1]));
+                  break;
+
+              case LINE_TO :
+                  result.add(new LineTo(c[pos], c[pos + 1]));
+                  break;
+
+              case QUAD_TO :
+                  result.add(new QuadCurveTo(c[pos], c[pos + 1], c[pos + 2], c[pos + 3]));
+                  break;
+
+              case CUBIC_TO :
+                  result.add(new CubicCurveTo(c[pos], c[pos + 1], c[pos + 2], c[pos + 3],
+                                              c[pos + 4], c[pos + 5]));
+                  break;
+
+              default :
+                  result.add(new ClosePath());
+                  break;
+            }
+            pos += COORDINATES[type];
+        }
+        return result;
+    }
+
+
+    /**
+     * @return A new JavaFX path node with the geometry of this path.
+     */
+    public Path toPath() {
+        return new Path(toPathElements());
+    }
+
+
+    /**
+     * @return A new AWT path with the geometry of this path and the non-zero
+     *         winding rule, which can be used for hit testing.
+     */
+    public Path2D.Double toPath2D() {
+        Path2D.Double result = new Path2D.Double(Path2D.WIND_NON_ZERO, types.length);
+        final double[] c = coordinates;
+        int pos = 0;
+        for (byte type : types) {
+            switch (type) {
+              case MOVE_TO  : result.moveTo(c[pos], c[pos + 1]); break;
+              case LINE_TO  : result.lineTo(c[pos], c[pos + 1]); break;
+              case QUAD_TO  : result.quadTo(c[pos], c[pos + 1], c[pos + 2], c[pos + 3]); break;
+              case CUBIC_TO :
+                  result.curveTo(c[pos], c[pos + 1], c[pos + 2], c[pos + 3],
+                                 c[pos + 4], c[pos + 5]);
+                  break;
+              default       : result.closePath(); break;
+            }
+            pos += COORDINATES[type];
+        }
+        return result;
+    }
+
+
+    /**
+     * @param transform The transformation to apply to the coordinates.
+     *
+     * @return A new path with the transformed geometry.
+     */
+    public SvgPathData transform(AffineTransform transform) {
+        double[] result = new double[coordinates.length];
+        transform.transform(coordinates, 0, result, 0, coordinates.length / 2);
+        return new SvgPathData(types, result, error);
+    }
+
+
+    /**
+     * @return Path data which only consists of absolute move, line, curve
+     *         and close commands. The coordinates are written without loss
+     *         of precision, integral coordinates without a fraction.
+     */
+    public String toContent() {
+        StringBuilder result = new StringBuilder(coordinates.length * 8);
+        int pos = 0;
+        for (byte type : types) {
+            result.append("MLQCZ".charAt(type));
+            for (int i = 0;  i < COORDINATES[type];  i++) {
+                if (i > 0) {
+                    result.append(i % 2 == 0 ? ' ' : ',');
+                }
+                appendNumber(result, coordinates[pos + i]);
+            }
+            pos += COORDINATES[type];
+        }
+        return result.toString();
+    }
+
+
+    // Double.toString() is the shortest representation which parses back to the
+    // same value, so that drawings of any scale keep their precision
+    static void appendNumber(StringBuilder result, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            result.append((long) value);
+        } else {
+            result.append(value);
+        }
+    }
+
+
+    /**
+     * Parses path data into the segment and coordinate arrays.
+     */
+    private static class Parser {
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final String content;
+        private final int len;
+        private int pos = 0;
+        private boolean error = false;
+
+        private byte[] types = new byte[16];
+        private int typeCount = 0;
+        private double[] coords = new double[64];
+        private int coordCount = 0;
+
+        // the current point, the start of the current sub path and the last
+        // control point of the previous curve, for smooth curves
+        private double curX;
+        private double curY;
+        private double startX;
+        private double startY;
+        private double ctrlX;
+        private double ctrlY;
+        private char previous = 0;
+
+        Parser(String content) {
+            this.content = content;
+            this.len = content.length();
+        }
+
+
+        void parse() {
+            char command = 0;
+            skipSeparators();
+            while (pos < len && !error) {
+                char c = content.charAt(pos);
+                if (isCommand(c)) {
+                    command = c;
+                    pos++;
+                } else if (command == 'M') {
+                    command = 'L';      // further coordinates of a move to are line tos
+                } else if (command == 'm') {
+                    command = 'l';
+                } else if (command == 0 || command == 'Z' || command == 'z') {
+                    error = true;
+                    break;
+                }
+
+                // a path must start with a move to
+                if (typeCount == 0 && command != 'M' && command != 'm') {
+                    error = true;
+                    break;
+                }
+
+                segment(command);
+                skipSeparators();
+            }
+        }
+
+
+        private static boolean isCommand(char c) {
+            return "MmLlHhVvCcSsQqTtAaZz".indexOf(c) >= 0;
+        }
+
+
+        private void segment(char command) {
+            final boolean relative = Character.isLowerCase(command);
+            final double ox = relative ? curX : 0;
+            final double oy = relative ? curY : 0;
+            final char type = Character.toUpperCase(command);
+
+            switch (type) {
+              case 'M' : {
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      lineTo(MOVE_TO, x, y);
+                      startX = x;
+                      startY = y;
+                  }
+                  break;
+              }
+
+              case 'L' : {
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      lineTo(LINE_TO, x, y);
+                  }
+                  break;
+              }
+
+              case 'H' : {
+                  double x = ox + number();
+                  if (!error) {
+                      lineTo(LINE_TO, x, curY);
+                  }
+                  break;
+              }
+
+              case 'V' : {
+                  double y = oy + number();
+                  if (!error) {
+                      lineTo(LINE_TO, curX, y);
+                  }
+                  break;
+              }
+
+              case 'C' : {
+                  double x1 = ox + number();
+                  double y1 = oy + number();
+                  double x2 = ox + number();
+                  double y2 = oy + number();
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      cubicTo(x1, y1, x2, y2, x, y);
+                  }
+                  break;
+              }
+
+              case 'S' : {
+                  final boolean smooth = previous == 'C' || previous == 'S';
+                  double x1 = smooth ? 2 * curX - ctrlX : curX;
+                  double y1 = smooth ? 2 * curY - ctrlY : curY;
+                  double x2 = ox + number();
+                  double y2 = oy + number();
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      cubicTo(x1, y1, x2, y2, x, y);
+                  }
+                  break;
+              }
+
+              case 'Q' : {
+                  double x1 = ox + number();
+                  double y1 = oy + number();
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      quadTo(x1, y1, x, y);
+                  }
+                  break;
+              }
+
+              case 'T' : {
+                  final boolean smooth = previous == 'Q' || previous == 'T';
+                  double x1 = smooth ? 2 * curX - ctrlX : curX;
+                  double y1 = smooth ? 2 * curY - ctrlY : curY;
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      quadTo(x1, y1, x, y);
+                  }
+                  break;
+              }
+
+              case 'A' : {
+                  double rx = number();
+                  double ry = number();
+                  double angle = number();
+                  boolean largeArc = flag();
+                  boolean sweep = flag();
+                  double x = ox + number();
+                  double y = oy + number();
+                  if (!error) {
+                      arcTo(rx, ry, angle, largeArc, sweep, x, y);
+                  }
+                  break;
+              }
+
+              default : {
+                  begin(CLOSE);
+                  curX = startX;
+                  curY = startY;
+                  break;
+              }
+            }
+
+            previous = type;
+        }
+
+
+        // adds a segment and makes room for its coordinates
+        private void begin(int type) {
+            if (typeCount == types.length) {
+                types = Arrays.copyOf(types, typeCount * 2);
+            }
+            types[typeCount++] = (byte) type;
+            if (coordCount + COORDINATES[type] > coords.length) {
+                coords = Arrays.copyOf(coords, coords.length * 2);
+            }
+        }
+
+
+        private void point(double x, double y) {
+            coords[coordCount++] = x;
+            coords[coordCount++] = y;
+        }
+
+
+        private void lineTo(int type, double x, double y) {
+            begin(type);
+            point(x, y);
+            curX = x;
+            curY = y;
+        }
+
+
+        private void quadTo(double x1, double y1, double x, double y) {
+            begin(QUAD_TO);
+            point(x1, y1);
+            point(x, y);
+            ctrlX = x1;
+            ctrlY = y1;
+            curX = x;
+            curY = y;
+        }
+
+
+        private void cubicTo(double x1, double y1, double x2, double y2, double x, double y) {
+            begin(CUBIC_TO);
+            point(x1, y1);
+            point(x2, y2);
+            point(x, y);
+            ctrlX = x2;
+            ctrlY = y2;
+            curX = x;
+            curY = y;
+        }
+
+
+        /**
+         * Approximates an elliptical arc with cubic curves of at most 90 degrees,
+         * as described in the implementation notes of the SVG specification.
+         */
+        private void arcTo(double rx, double ry, double angle,
+                           boolean largeArc, boolean sweep, double x, double y) {
+            if (x == curX && y == curY) {
+                return;     // the arc is omitted
+            }
+            if (rx == 0 || ry == 0) {
+                lineTo(LINE_TO, x, y);
+                return;
+            }
+
+            rx = Math.abs(rx);
+            ry = Math.abs(ry);
+            final double phi = Math.toRadians(angle);
+            final double cos = Math.cos(phi);
+            final double sin = Math.sin(phi);
+
+            // the start point in the coordinate system of the ellipse
+            final double dx = (curX - x) / 2;
+            final double dy = (curY - y) / 2;
+            final double x1 = cos * dx + sin * dy;
+            final double y1 = -sin * dx + cos * dy;
+
+            // scale up radii which are too small
+            final double lambda = (x1 * x1) / (rx * rx) + (y1 * y1) / (ry * ry);
+            if (lambda > 1) {
+                rx *= Math.sqrt(lambda);
+                ry *= Math.sqrt(lambda);
+            }
+
+            // the center of the ellipse
+            final double rx2 = rx * rx;
+            final double ry2 = ry * ry;
+            final double num = rx2 * ry2 - rx2 * y1 * y1 - ry2 * x1 * x1;
+            final double den = rx2 * y1 * y1 + ry2 * x1 * x1;
+            final double coef = (largeArc == sweep ? -1 : 1) * Math.sqrt(Math.max(0, num / den));
+            final double cx1 = coef * rx * y1 / ry;
+            final double cy1 = -coef * ry * x1 / rx;
+            final double cx = cos * cx1 - sin * cy1 + (curX + x) / 2;
+            final double cy = sin * cx1 + cos * cy1 + (curY + y) / 2;
+
+            // the start angle and the extent of the arc
+            final double ux = (x1 - cx1) / rx;
+            final double uy = (y1 - cy1) / ry;
+            final double vx = (-x1 - cx1) / rx;
+            final double vy = (-y1 - cy1) / ry;
+            final double theta = Math.atan2(uy, ux);
+            double extent = Math.atan2(ux * vy - uy * vx, ux * vx + uy * vy);
+            if (!sweep && extent > 0) {
+                extent -= 2 * Math.PI;
+            } else if (sweep && extent < 0) {
+                extent += 2 * Math.PI;
+            }
+
+            final int segments = (int) Math.ceil(Math.abs(extent) / (Math.PI / 2) - 1e-9);
+            final double delta = extent / segments;
+            final double t = 4.0 / 3.0 * Math.tan(delta / 4);
+            for (int i = 0;  i < segments;  i++) {
+                final double a1 = theta + i * delta;
+                final double a2 = a1 + delta;
+                final double cos1 = Math.cos(a1);
+                final double sin1 = Math.sin(a1);
+                final double cos2 = Math.cos(a2);
+                final double sin2 = Math.sin(a2);
+
+                // the control points on the unit circle, mapped onto the ellipse
+                final double p1x = cos1 - t * sin1;
+                final double p1y = sin1 + t * cos1;
+                final double p2x = cos2 + t * sin2;
+                final double p2y = sin2 - t * cos2;
+                final boolean last = i == segments - 1;
+                cubicTo(
+                    cx + rx * cos * p1x - ry * sin * p1y, cy + rx * sin * p1x + ry * cos * p1y,
+                    cx + rx * cos * p2x - ry * sin * p2y, cy + rx * sin * p2x + ry * cos * p2y,
+                    last ? x : cx + rx * cos * cos2 - ry * sin * sin2,
+                    last ? y : cy + rx * sin * cos2 + ry * cos * sin2);
+            }
+        }
+
+
+        private void skipSeparators() {
+            while (pos < len) {
+                char c = content.charAt(pos);
+                if (c != ',' && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    break;
+                }
+                pos++;
+            }
+        }
+
+
+        private boolean flag() {
+            skipSeparators();
+            if (pos < len && (content.charAt(pos) == '0' || content.charAt(pos) == '1')) {
+                return content.charAt(pos++) == '1';
+            }
+            error = true;
+            return false;
+        }
+
+
+        /**
+         * Parses a number without creating a string. Numbers with more
+         * significant digits than a long can hold, or with a large exponent,
+         * are parsed by Double.parseDouble() to keep the full precision.
+         */
+        private double number() {
+            skipSeparators();
+            if (error) {
+                return 0;
+            }
+
+            final int start = pos;
+            boolean negative = false;
+            if (pos < len && (content.charAt(pos) == '-' || content.charAt(pos) == '+')) {
+                negative = content.charAt(pos) == '-';
+                pos++;
+            }
+            final int digitsStart = pos;
+
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean exact = true;
+            char c;
+            while (pos < len && (c = content.charAt(pos)) >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits += mantissa == 0 ? 0 : 1;
+                } else {
+                    exact = false;
+                }
+                pos++;
+            }
+            boolean hasDigits = pos > digitsStart;
+            if (pos < len && content.charAt(pos) == '.') {
+                pos++;
+                while (pos < len && (c = content.charAt(pos)) >= '0' && c <= '9') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits += mantissa == 0 ? 0 : 1;
+                        scale--;
+                    } else {
+                        exact = false;
+                    }
+                    hasDigits = true;
+                    pos++;
+                }
+            }
+            if (!hasDigits) {
+                pos = start;
+                error = true;
+                return 0;
+            }
+
+            if (pos < len && (content.charAt(pos) == 'e' || content.charAt(pos) == 'E')) {
+                int expPos = pos + 1;
+                boolean negativeExp = false;
+                if (expPos < len && (content.charAt(expPos) == '-'
+                                     || content.charAt(expPos) == '+')) {
+                    negativeExp = content.charAt(expPos) == '-';
+                    expPos++;
+                }
+                if (expPos < len && Character.isDigit(content.charAt(expPos))) {
+                    int exponent = 0;
+                    pos = expPos;
+                    while (pos < len && (c = content.charAt(pos)) >= '0' && c <= '9') {
+                        exponent = Math.min(exponent * 10 + (c - '0'), 10000);
+                        pos++;
+                    }
+                    scale += negativeExp ? -exponent : exponent;
+                }
+            }
+
+            if (!exact || digits > 15 || scale < -22 || scale > 22) {
+                return Double.parseDouble(content.substring(start, pos));
+            }
+            double result = scale < 0 ? mantissa / POWERS_OF_TEN[-scale]
+                                      : mantissa * POWERS_OF_TEN[scale];
+            return negative ? -result : result;
+        }
+    }
+}
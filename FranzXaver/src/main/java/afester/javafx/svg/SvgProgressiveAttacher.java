@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Adds a drawing to a live scene graph over several frames.
+ * <p>
+ * Adding thousands of nodes to a scene at once results in a single, very long
+ * pulse which blocks the application. Instead, the attacher takes the nodes
+ * out of the drawing and adds them back, in document order, to the target
+ * group in batches. Each batch is limited by a time budget per frame, which
+ * includes applying the CSS styles of the new nodes, so that the remaining
+ * work of the pulse stays small. Groups are attached before their children,
+ * so the drawing grows from the back to the front, as it is painted.</p>
+ * <p>
+ * All methods must be called on the JavaFX application thread.</p>
+ */
+public final class SvgProgressiveAttacher {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** The default time budget per frame, in nanoseconds. */
+    public static final long DEFAULT_BUDGET = 4_000_000L;
+
+    private final Group target;
+    private final long budget;
+
+    // the pending operations: parents.get(i).getChildren().add(nodes.get(i))
+    private final List<Group> parents = new ArrayList<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private int attached = 0;
+
+    private Group drawing = null;
+    private CompletableFuture<Group> load = null;
+    private final CompletableFuture<Group> completion = new CompletableFuture<>();
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(this, "progress");
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            attachBatch(budget);
+        }
+    };
+
+
+    SvgProgressiveAttacher(Group target, long budget) {
+        this.target = target;
+        this.budget = budget;
+    }
+
+
+    /**
+     * Starts to add a drawing progressively to a target group. The drawing
+     * must not be part of a scene graph yet.
+     *
+     * @param drawing The drawing, as created by the SvgLoader.
+     * @param target The group to which the drawing is added.
+     * @param budget The time which is spent at most per frame, in nanoseconds.
+     *
+     * @return The attacher which adds the drawing.
+     */
+    public static SvgProgressiveAttacher attach(Group drawing, Group target, long budget) {
+        SvgProgressiveAttacher result = new SvgProgressiveAttacher(target, budget);
+        result.start(drawing);
+        return result;
+    }
+
+
+    /**
+     * Sets the load which provides the drawing, so that it can be cancelled
+     * together with this attacher.
+     */
+    void setLoad(CompletableFuture<Group> load) {
+        this.load = load;
+    }
+
+
+    /**
+     * Prepares the drawing and starts the timer which attaches it.
+     */
+    void start(Group drawing) {
+        if (completion.isDone()) {
+            return;     // cancelled while the drawing was loaded
+        }
+
+        prepare(drawing);
+        timer.start();
+    }
+
+
+    /**
+     * Signals that the drawing could not be loaded.
+     */
+    void fail(Throwable cause) {
+        completion.completeExceptionally(cause);
+    }
+
+
+    /**
+     * Takes all nodes out of the drawing and records where they need to
+     * be added again, in pre order.
+     */
+    private void prepare(Group drawing) {
+        this.drawing = drawing;
+
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Group> pendingParents = new ArrayDeque<>();
+        pending.push(drawing);
+        pendingParents.push(target);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            parents.add(pendingParents.pop());
+            nodes.add(node);
+
+            // only plain groups are taken apart - other groups, like lazy
+            // groups, manage their children themselves
+            if (node.getClass() == Group.class) {
+                Group group = (Group) node;
+                List<Node> children = new ArrayList<>(group.getChildren());
+                group.getChildren().clear();
+                for (int i = children.size() - 1;  i >= 0;  i--) {
+                    pending.push(children.get(i));
+                    pendingParents.push(group);
+                }
+            }
+        }
+
+        logger.debug("Attaching {} nodes progressively", nodes.size());
+    }
+
+
+    /**
+     * Attaches the next batch of nodes. This is called by the timer of this
+     * attacher once per frame, but can also be called directly, for example
+     * by an application which schedules the work itself. At least one node is
+     * attached, even if the budget is exceeded.
+     *
+     * @param budget The time which may be spent, in nanoseconds.
+     *
+     * @return <code>true</code> if the whole drawing has been attached.
+     */
+    public boolean attachBatch(long budget) {
+        if (drawing == null || completion.isDone()) {
+            return completion.isDone();
+        }
+
+        final long deadline = System.nanoTime() + budget;
+        final boolean applyCss = target.getScene() != null;
+        while (attached < nodes.size()) {
+            Node node = nodes.get(attached);
+            parents.get(attached).getChildren().add(node);
+            if (applyCss) {
+                node.applyCss();
+            }
+            attached++;
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        progress.set((double) attached / nodes.size());
+        if (attached < nodes.size()) {
+            return false;
+        }
+
+        timer.stop();
+        parents.clear();
+        nodes.clear();
+        completion.complete(drawing);
+        return true;
+    }
+
+
+    /**
+     * Stops attaching the drawing. Nodes which have already been attached
+     * remain in the target group. If the drawing is still being loaded, the
+     * load is cancelled.
+     */
+    public void cancel() {
+        timer.stop();
+        if (load != null) {
+            load.cancel(true);
+        }
+        completion.cancel(false);
+    }
+
+
+    /**
+     * @return The fraction of the nodes which have been attached, from 0 to 1.
+     */
+    public double getProgress() {
+        return progress.get();
+    }
+
+
+    public ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+
+
+    /**
+     * @return A future which is completed with the drawing when all of its
+     *         nodes have been attached. It is completed on the JavaFX
+     *         application thread.
+     */
+    public CompletableFuture<Group> getCompletion() {
+        return completion;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Group;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+
+/**
+ * A cache for SVG scenes. Each SVG document is parsed once into an
+ * {@link SvgTemplate}, and each request returns a new node tree created
+ * from the template which can be modified and added to the scene graph
+ * by the caller.
+ * Documents are identified either by their URL or by a hash of their
+ * content. The cache holds a limited number of documents, evicting the
+ * least recently used documents first.
+ * <p>
+ * The cache is thread safe. Documents are loaded without holding the lock of
+ * the cache, so that different documents can be loaded concurrently. Threads
+ * which request a document which is currently being loaded wait for that load
+ * to finish instead of loading the document again.</p>
+ */
+public class SvgSceneCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int DEFAULT_MAX_ENTRIES = 32;
+
+    private static final SvgSceneCache defaultCache = new SvgSceneCache(DEFAULT_MAX_ENTRIES);
+
+    private SvgLoader loader;
+    private final Map<String, CompletableFuture<SvgTemplate>> entries;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+
+    /**
+     * @return The application wide default cache, which uses an SvgLoader with
+     *         its default settings.
+     */
+    public static SvgSceneCache getDefault() {
+        return defaultCache;
+    }
+
+
+    /**
+     * Creates a new SVG scene cache which uses an SvgLoader with its
+     * default settings.
+     *
+     * @param maxEntries The maximum number of SVG documents to keep in the cache.
+     */
+    public SvgSceneCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+
+    /**
+     * Creates a new SVG scene cache.
+     *
+     * @param maxEntries The maximum number of SVG documents to keep in the cache.
+     * @param loader The loader to use for loading the SVG documents. The loader
+     *               must not be used by anyone else once it has been passed to
+     *               the cache. If <code>null</code>, an SvgLoader with its
+     *               default settings is created when the first document is loaded.
+     */
+    public SvgSceneCache(int maxEntries, SvgLoader loader) {
+        this.loader = loader;
+        this.entries = new LinkedHashMap<String, CompletableFuture<SvgTemplate>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CompletableFuture<SvgTemplate>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the node tree for an SVG document which is identified by a URL.
+     * URLs which end with <code>.svgc</code> refer to documents in the binary
+     * compiled SVG format, as created by the {@link SvgCompiler}.
+     *
+     * @param svgResource The URL of the SVG document, for example as returned
+     *                    by {@link Class#getResource(String)}.
+     *
+     * @return A new node tree which represents the SVG document.
+     */
+    public Group load(URL svgResource) {
+        String key = svgResource.toExternalForm();
+
+        SvgTemplate template = getTemplate(key, () -> loadTemplate(svgResource));
+
+        return template == null ? null : template.instantiate();
+    }
+
+
+    /**
+     * Returns the node tree for an SVG document which is a class path resource.
+     * If a factory class has been generated for the document by the
+     * {@link SvgCodeGenerator} in the package of the anchor class, the node tree
+     * is created by the factory class, without using the cache and the SvgLoader.
+     * Otherwise, if a compiled version of the document (with the extension
+     * <code>.svgc</code> instead of <code>.svg</code>) exists next to the
+     * document, the compiled version is used.
+     *
+     * @param anchor The class to use for resolving the resource name.
+     * @param svgResourceName The name of the SVG document, as passed to
+     *                        {@link Class#getResource(String)}.
+     *
+     * @return A new node tree which represents the SVG document, or
+     *         <code>null</code> if the resource does not exist.
+     */
+    public Group loadResource(Class<?> anchor, String svgResourceName) {
+        Supplier<Group> factory = getGeneratedFactory(anchor, svgResourceName);
+        if (factory != null) {
+            return factory.get();
+        }
+
+        URL svgResource = null;
+        if (svgResourceName.endsWith(".svg")) {
+            svgResource = anchor.getResource(svgResourceName + "c");
+        }
+        if (svgResource == null) {
+            svgResource = anchor.getResource(svgResourceName);
+        }
+
+        return svgResource == null ? null : load(svgResource);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Group> getGeneratedFactory(Class<?> anchor, String svgResourceName) {
+        if (svgResourceName.indexOf('/') != -1) {
+            return null;
+        }
+
+        String className = SvgCodeGenerator.getClassName(svgResourceName);
+        String packageName = anchor.getPackage() == null ? "" : anchor.getPackage().getName();
+        if (!packageName.isEmpty()) {
+            className = packageName + "." + className;
+        }
+
+        try {
+            Class<?> factoryClass = Class.forName(className, true, anchor.getClassLoader());
+            return (Supplier<Group>) factoryClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException cnfe) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            logger.warn("Could not use generated factory {}", className, e);
+            return null;
+        }
+    }
+
+
+    private SvgTemplate loadTemplate(URL svgResource) {
+        if (svgResource.getPath().endsWith(".svgc")) {
+            return getLoader().loadCompiledTemplate(svgResource);
+        }
+
+        try (InputStream svgFile = svgResource.openStream()) {
+            return getLoader().loadSvgTemplate(svgFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Returns the node tree for an SVG document which is provided by an input stream.
+     * The document is identified by a hash of its content.
+     *
+     * @param svgFile The input stream which provides the SVG document.
+     *
+     * @return A new node tree which represents the SVG document.
+     */
+    public Group load(InputStream svgFile) {
+        byte[] content;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int count;
+            while ((count = svgFile.read(chunk)) != -1) {
+                buffer.write(chunk, 0, count);
+            }
+            content = buffer.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        String key = getContentHash(content);
+        SvgTemplate template = getTemplate(key,
+                () -> getLoader().loadSvgTemplate(new ByteArrayInputStream(content)));
+
+        return template == null ? null : template.instantiate();
+    }
+
+
+    private synchronized SvgLoader getLoader() {
+        if (loader == null) {
+            loader = new SvgLoader();
+        }
+        return loader;
+    }
+
+
+    private SvgTemplate getTemplate(String key, Supplier<SvgTemplate> templateLoader) {
+        CompletableFuture<SvgTemplate> entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                hitCount++;
+            } else {
+                missCount++;
+                entry = new CompletableFuture<>();
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+
+        // the document is loaded outside of the lock, so that loading one document
+        // does not block requests for other documents
+        if (owner) {
+            logger.debug("Loading {}", key);
+
+            SvgTemplate result = null;
+            try {
+                result = templateLoader.get();
+            } finally {
+                if (result == null) {
+                    removeEntry(key, entry);
+                }
+                entry.complete(result);
+            }
+        }
+
+        return entry.join();
+    }
+
+
+    private synchronized void removeEntry(String key, CompletableFuture<SvgTemplate> entry) {
+        entries.remove(key, entry);
+    }
+
+
+    private static String getContentHash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder result = new StringBuilder("sha256:");
+            for (byte b : digest) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);     // SHA-256 is always supported
+        }
+    }
+
+
+    /**
+     * @return The number of requests which were served from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+
+    /**
+     * @return The number of requests which required to load the SVG document.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+
+    /**
+     * @return The number of SVG documents which are currently held in the cache,
+     *         including the documents which are currently being loaded.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Removes all SVG documents from the cache and resets the statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.collections.ObservableList;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.SVGPath;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Reduces the number of nodes of a drawing by merging sibling paths which
+ * look the same into a single path.
+ * <p>
+ * A run of consecutive sibling <code>SVGPath</code> nodes is merged into one
+ * <code>SVGPath</code> with the combined geometry if all paths have the same
+ * fill, stroke, transformation and other visual properties, and if they do
+ * not overlap each other. Since the paths do not overlap, the combined path
+ * renders the same as the separate paths. Each path is only compared with the
+ * union of the bounds of the preceding paths of its run, so that merging
+ * takes linear time; this also ends a run at some paths which would not
+ * overlap any of its paths.
+ * Nodes with a style class or any other properties which an application
+ * might refer to are never merged. Nodes with an id are only merged if the
+ * id is not needed by the application, as decided by a predicate. Many
+ * SVG editors generate an id for each element, which can be detected
+ * with {@link #isGeneratedId(String)}.</p>
+ */
+public final class SvgShapeMerger {
+
+    private static final String NUMBER = "[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?";
+
+    // a path which starts with a relative move to, and its first coordinate pair
+    private static final Pattern RELATIVE_START =
+            Pattern.compile("\\s*m\\s*(" + NUMBER + ")[\\s,]*(" + NUMBER + ")\\s*,?\\s*");
+
+    // ids as generated by Inkscape and other editors, like "path1234" or "rect12-3"
+    private static final Pattern GENERATED_ID =
+            Pattern.compile("(?:path|g|rect|circle|ellipse|line|polyline|polygon)\\d[\\d-]*");
+
+    private SvgShapeMerger() {
+    }
+
+
+    /**
+     * @param id The id of an SVG element.
+     *
+     * @return <code>true</code> if the id looks like it has been generated by an
+     *         SVG editor, like <code>path1234</code>.
+     */
+    public static boolean isGeneratedId(String id) {
+        return GENERATED_ID.matcher(id).matches();
+    }
+
+
+    /**
+     * Merges the sibling paths of all groups of a drawing. Paths which have
+     * an id are not merged.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     *
+     * @return The number of nodes which have been removed from the drawing.
+     */
+    public static int mergeShapes(Group drawing) {
+        return mergeShapes(drawing, id -> true);
+    }
+
+
+    /**
+     * Merges the sibling paths of all groups of a drawing.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     * @param keepId Decides whether a path with the given id must be kept.
+     *
+     * @return The number of nodes which have been removed from the drawing.
+     */
+    public static int mergeShapes(Group drawing, Predicate<String> keepId) {
+        int result = 0;
+
+        Deque<Group> groups = new ArrayDeque<>();
+        groups.push(drawing);
+        while (!groups.isEmpty()) {
+            Group group = groups.pop();
+            result += mergeChildren(group, keepId);
+
+            for (Node child : group.getChildren()) {
+                if (child instanceof Group) {
+                    groups.push((Group) child);
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    private static int mergeChildren(Group group, Predicate<String> keepId) {
+        ObservableList<Node> children = group.getChildren();
+        List<Node> result = new ArrayList<>(children.size());
+
+        List<SVGPath> run = new ArrayList<>();
+        Bounds runBounds = null;
+        for (Node child : children) {
+            final boolean mergeable = isMergeable(child, keepId);
+            final Bounds bounds = mergeable ? child.getBoundsInParent() : null;
+            if (!run.isEmpty()
+                && !(mergeable && canAppend(run.get(0), runBounds, (SVGPath) child, bounds))) {
+                result.add(merge(run));
+                run.clear();
+            }
+
+            if (mergeable) {
+                runBounds = run.isEmpty() ? bounds : union(runBounds, bounds);
+                run.add((SVGPath) child);
+            } else {
+                result.add(child);
+            }
+        }
+        if (!run.isEmpty()) {
+            result.add(merge(run));
+        }
+
+        final int removed = children.size() - result.size();
+        if (removed > 0) {
+            children.setAll(result);
+        }
+        return removed;
+    }
+
+
+    private static boolean isMergeable(Node node, Predicate<String> keepId) {
+        if (!(node instanceof SVGPath)) {
+            return false;
+        }
+
+        SVGPath path = (SVGPath) node;
+        return SvgNodeTools.isPlain(path, keepId)
+            && path.getContent() != null
+            && (path.getContent().trim().startsWith("M")
+                || RELATIVE_START.matcher(path.getContent()).lookingAt());
+    }
+
+
+    private static boolean canAppend(SVGPath first, Bounds runBounds,
+                                     SVGPath path, Bounds bounds) {
+        return isSameStyle(first, path) && !runBounds.intersects(bounds);
+    }
+
+
+    private static Bounds union(Bounds a, Bounds b) {
+        final double minX = Math.min(a.getMinX(), b.getMinX());
+        final double minY = Math.min(a.getMinY(), b.getMinY());
+        return new BoundingBox(minX, minY,
+                               Math.max(a.getMaxX(), b.getMaxX()) - minX,
+                               Math.max(a.getMaxY(), b.getMaxY()) - minY);
+    }
+
+
+    private static boolean isSameStyle(SVGPath a, SVGPath b) {
+        return Objects.equals(a.getFill(), b.getFill())
+            && Objects.equals(a.getStroke(), b.getStroke())
+            && a.getStrokeWidth() == b.getStrokeWidth()
+            && a.getStrokeType() == b.getStrokeType()
+            && a.getStrokeLineCap() == b.getStrokeLineCap()
+            && a.getStrokeLineJoin() == b.getStrokeLineJoin()
+            && a.getStrokeMiterLimit() == b.getStrokeMiterLimit()
+            && a.getStrokeDashOffset() == b.getStrokeDashOffset()
+            && a.getStrokeDashArray().equals(b.getStrokeDashArray())
+            && a.getFillRule() == b.getFillRule()
+            && a.isSmooth() == b.isSmooth()
+            && a.getOpacity() == b.getOpacity()
+            && a.getBlendMode() == b.getBlendMode()
+            && a.isMouseTransparent() == b.isMouseTransparent()
+            && SvgNodeTools.hasNoCenteredTransform(a) && SvgNodeTools.hasNoCenteredTransform(b)
+            && SvgNodeTools.isSameTransform(a.getLocalToParentTransform(),
+                                            b.getLocalToParentTransform());
+    }
+
+
+    private static SVGPath merge(List<SVGPath> run) {
+        SVGPath result = run.get(0);
+        if (run.size() == 1) {
+            return result;
+        }
+
+        StringBuilder content = new StringBuilder(result.getContent());
+        for (int i = 1;  i < run.size();  i++) {
+            content.append(' ');
+            appendAbsolute(content, run.get(i).getContent());
+        }
+        result.setContent(content.toString());
+        result.setId(null);
+        return result;
+    }
+
+
+    /**
+     * Appends path data so that it does not depend on the end point of the
+     * preceding path data. An initial relative move to is always absolute,
+     * but would be relative to the end point of the preceding path data.
+     */
+    private static void appendAbsolute(StringBuilder result, String content) {
+        Matcher matcher = RELATIVE_START.matcher(content);
+        if (!matcher.lookingAt()) {
+            result.append(content);
+            return;
+        }
+
+        result.append('M').append(matcher.group(1)).append(',').append(matcher.group(2));
+
+        // further coordinate pairs after a move to are relative line tos
+        String rest = content.substring(matcher.end());
+        if (!rest.isEmpty() && !Character.isLetter(rest.charAt(0))) {
+            result.append('l');
+        }
+        result.append(rest);
+    }
+}
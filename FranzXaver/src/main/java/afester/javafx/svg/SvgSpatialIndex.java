@@ -0,0 +1,409 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+
+/**
+ * A spatial index of the nodes of a drawing, for hit testing and region queries.
+ * <p>
+ * JavaFX picking tests every node of a drawing. The index instead stores the
+ * bounds of all leaf nodes in a packed R-tree: the leaves are sorted into
+ * tiles (Sort-Tile-Recursive), and each level of the tree combines a fixed
+ * number of consecutive boxes of the level below. A query only descends
+ * into the boxes which can contain a result, so that it takes logarithmic
+ * time for drawings with tens of thousands of nodes.</p>
+ * <p>
+ * All coordinates are in the local coordinate system of the drawing, like
+ * the coordinates of the SVG document. Coordinates of mouse events can be
+ * converted with <code>drawing.sceneToLocal()</code>. The bounds and the
+ * transformations of the nodes are evaluated when the index is built; the
+ * index needs to be built again if they are modified later.</p>
+ */
+public final class SvgSpatialIndex {
+    private static final Logger logger = LogManager.getLogger();
+
+    // the number of children of each box of the tree
+    private static final int NODE_SIZE = 16;
+
+    private final Group drawing;
+
+    // the leaf nodes, in the order of the tree, and the mappings between
+    // their position in the tree and in document order, which is also the
+    // order in which they are painted
+    private final Node[] nodes;
+    private final Transform[] transforms;
+    private final int[] orders;
+    private final int[] entries;
+
+    // the boxes of all levels of the tree, starting with the leaves, as
+    // minX, minY, maxX, maxY
+    private final double[] boxes;
+    private final int[] levelStart;
+
+
+    private SvgSpatialIndex(Group drawing, List<Node> leaves, List<Transform> leafTransforms,
+                            List<Bounds> leafBounds) {
+        this.drawing = drawing;
+        final int count = leaves.size();
+
+        // Sort-Tile-Recursive: sort by the x center into vertical slices,
+        // then each slice by the y center
+        Integer[] sorted = IntStream.range(0, count).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.comparingDouble(i -> centerX(leafBounds.get(i))));
+        final int tiles = (count + NODE_SIZE - 1) / NODE_SIZE;
+        final int sliceSize = (int) Math.ceil(Math.sqrt(tiles)) * NODE_SIZE;
+        for (int start = 0;  start < count;  start += sliceSize) {
+            Arrays.sort(sorted, start, Math.min(start + sliceSize, count),
+                        Comparator.comparingDouble(i -> centerY(leafBounds.get(i))));
+        }
+
+        nodes = new Node[count];
+        transforms = new Transform[count];
+        orders = new int[count];
+        entries = new int[count];
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        int levelCount = count;
+        int total = count;
+        while (levelCount > 1) {
+            levelCount = (levelCount + NODE_SIZE - 1) / NODE_SIZE;
+            starts.add(total);
+            total += levelCount;
+        }
+        starts.add(total);
+        levelStart = starts.stream().mapToInt(Integer::intValue).toArray();
+        boxes = new double[total * 4];
+
+        for (int i = 0;  i < count;  i++) {
+            final int index = sorted[i];
+            nodes[i] = leaves.get(index);
+            transforms[i] = leafTransforms.get(index);
+            orders[i] = index;
+            entries[index] = i;
+
+            Bounds bounds = leafBounds.get(index);
+            boxes[4 * i] = bounds.getMinX();
+            boxes[4 * i + 1] = bounds.getMinY();
+            boxes[4 * i + 2] = bounds.getMaxX();
+            boxes[4 * i + 3] = bounds.getMaxY();
+        }
+
+        // each box of a level encloses NODE_SIZE consecutive boxes of the level below
+        for (int level = 1;  level < levelStart.length - 1;  level++) {
+            for (int box = levelStart[level];  box < levelStart[level + 1];  box++) {
+                final int first = getFirstChild(level, box);
+                final int last = getLastChild(level, box);
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                for (int child = first;  child < last;  child++) {
+                    minX = Math.min(minX, boxes[4 * child]);
+                    minY = Math.min(minY, boxes[4 * child + 1]);
+                    maxX = Math.max(maxX, boxes[4 * child + 2]);
+                    maxY = Math.max(maxY, boxes[4 * child + 3]);
+                }
+                boxes[4 * box] = minX;
+                boxes[4 * box + 1] = minY;
+                boxes[4 * box + 2] = maxX;
+                boxes[4 * box + 3] = maxY;
+            }
+        }
+    }
+
+
+    private static double centerX(Bounds bounds) {
+        return bounds.getMinX() + bounds.getWidth() / 2;
+    }
+
+
+    private static double centerY(Bounds bounds) {
+        return bounds.getMinY() + bounds.getHeight() / 2;
+    }
+
+
+    private int getFirstChild(int level, int box) {
+        return levelStart[level - 1] + (box - levelStart[level]) * NODE_SIZE;
+    }
+
+
+    private int getLastChild(int level, int box) {
+        return Math.min(getFirstChild(level, box) + NODE_SIZE, levelStart[level]);
+    }
+
+
+    /**
+     * Builds the spatial index of a drawing.
+     *
+     * @param drawing The root node of the drawing, as created by the SvgLoader.
+     *
+     * @return The spatial index of all leaf nodes of the drawing.
+     */
+    public static SvgSpatialIndex build(Group drawing) {
+        List<Node> leaves = new ArrayList<>();
+        List<Transform> leafTransforms = new ArrayList<>();
+        List<Bounds> leafBounds = new ArrayList<>();
+        collectLeaves(drawing, leaves, leafTransforms, leafBounds);
+
+        SvgSpatialIndex result = new SvgSpatialIndex(drawing, leaves, leafTransforms, leafBounds);
+        logger.debug("Indexed {} nodes in {} levels", leaves.size(), result.levelStart.length - 1);
+        return result;
+    }
+
+
+    // collects the leaf nodes in document order, with their transformation
+    // to the drawing and their bounds in the drawing. The tree is traversed
+    // with an explicit stack, since drawings can be nested very deeply.
+    private static void collectLeaves(Group drawing, List<Node> leaves,
+                                      List<Transform> leafTransforms, List<Bounds> leafBounds) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Transform> pendingTransforms = new ArrayDeque<>();
+        pushChildren(drawing, Transform.translate(0, 0), pending, pendingTransforms);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            Transform transform = pendingTransforms.pop();
+            if (node instanceof Parent) {
+                pushChildren((Parent) node, transform, pending, pendingTransforms);
+            } else {
+                leaves.add(node);
+                leafTransforms.add(transform);
+                leafBounds.add(transform.transform(node.getBoundsInLocal()));
+            }
+        }
+    }
+
+
+    // pushes the children of a node in reverse order, so that they are popped in document order
+    private static void pushChildren(Parent parent, Transform transform, Deque<Node> pending,
+                                     Deque<Transform> pendingTransforms) {
+        List<Node> children = parent.getChildrenUnmodifiable();
+        for (int i = children.size() - 1;  i >= 0;  i--) {
+            Node child = children.get(i);
+            pending.push(child);
+            pendingTransforms.push(
+                    transform.createConcatenation(child.getLocalToParentTransform()));
+        }
+    }
+
+
+    /**
+     * @return The drawing which is indexed.
+     */
+    public Group getDrawing() {
+        return drawing;
+    }
+
+
+    /**
+     * @return The number of indexed nodes.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+
+    /**
+     * @param x The x coordinate of a point in the drawing.
+     * @param y The y coordinate of a point in the drawing.
+     *
+     * @return The nodes whose bounds contain the point, in the order in
+     *         which they are painted.
+     */
+    public List<Node> getNodesAt(double x, double y) {
+        return getNodes(query(x, y, x, y));
+    }
+
+
+    /**
+     * @param region A rectangle in the drawing.
+     *
+     * @return The nodes whose bounds intersect the rectangle, in the order
+     *         in which they are painted.
+     */
+    public List<Node> getNodesIn(Bounds region) {
+        return getNodes(query(region.getMinX(), region.getMinY(),
+                              region.getMaxX(), region.getMaxY()));
+    }
+
+
+    /**
+     * Finds the topmost visible node whose geometry contains a point.
+     * Unlike the other queries, this takes the actual shape of the nodes
+     * into account, not only their bounds. Like JavaFX picking, nodes which
+     * are invisible or mouse transparent, or which have such an ancestor,
+     * are skipped.
+     *
+     * @param x The x coordinate of a point in the drawing.
+     * @param y The y coordinate of a point in the drawing.
+     *
+     * @return The node, or <code>null</code> if there is no node at the point.
+     */
+    public Node pick(double x, double y) {
+        int[] candidates = query(x, y, x, y);
+        for (int i = candidates.length - 1;  i >= 0;  i--) {
+            final int entry = candidates[i];
+            Node node = nodes[entry];
+            if (!isPickable(node)) {
+                continue;
+            }
+
+            try {
+                Point2D local = transforms[entry].inverseTransform(x, y);
+                if (node.contains(local)) {
+                    return node;
+                }
+            } catch (NonInvertibleTransformException e) {
+                // the node is not visible
+            }
+        }
+        return null;
+    }
+
+
+    private boolean isPickable(Node node) {
+        for (Node n = node;  n != null && n != drawing;  n = n.getParent()) {
+            if (!n.isVisible() || n.isMouseTransparent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * @param x The x coordinate of a point in the drawing.
+     * @param y The y coordinate of a point in the drawing.
+     *
+     * @return The id of the {@link #pick(double, double) topmost node} at the
+     *         point, or of its closest ancestor which has an id. <code>null</code>
+     *         if there is no such node.
+     */
+    public String getIdAt(double x, double y) {
+        Node node = pick(x, y);
+        return node == null ? null : getId(node);
+    }
+
+
+    /**
+     * @param region A rectangle in the drawing.
+     *
+     * @return The ids of the nodes whose bounds intersect the rectangle, or of
+     *         their closest ancestors which have an id, in document order.
+     */
+    public List<String> getIdsIn(Bounds region) {
+        Set<String> result = new LinkedHashSet<>();
+        for (Node node : getNodesIn(region)) {
+            String id = getId(node);
+            if (id != null) {
+                result.add(id);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+
+    private String getId(Node node) {
+        for (Node n = node;  n != null && n != drawing;  n = n.getParent()) {
+            if (n.getId() != null && !n.getId().isEmpty()) {
+                return n.getId();
+            }
+        }
+        return null;
+    }
+
+
+    private List<Node> getNodes(int[] entries) {
+        List<Node> result = new ArrayList<>(entries.length);
+        for (int entry : entries) {
+            result.add(nodes[entry]);
+        }
+        return result;
+    }
+
+
+    /**
+     * @return The leaf entries whose boxes intersect a rectangle, sorted
+     *         by their document order.
+     */
+    private int[] query(double minX, double minY, double maxX, double maxY) {
+        if (nodes.length == 0) {
+            return new int[0];
+        }
+
+        int[] result = new int[16];
+        int count = 0;
+
+        // a stack of the boxes to visit, as pairs of level and box
+        int[] stack = new int[64];
+        int top = 0;
+        final int root = levelStart.length - 2;
+        stack[top++] = root;
+        stack[top++] = levelStart[root];
+        while (top > 0) {
+            final int box = stack[--top];
+            final int level = stack[--top];
+            if (boxes[4 * box] > maxX || boxes[4 * box + 2] < minX
+                || boxes[4 * box + 1] > maxY || boxes[4 * box + 3] < minY) {
+                continue;
+            }
+
+            if (level == 0) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = orders[box];
+            } else {
+                for (int child = getFirstChild(level, box);
+                     child < getLastChild(level, box);  child++) {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = level - 1;
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        // in the order in which the nodes are painted
+        Arrays.sort(result, 0, count);
+        for (int i = 0;  i < count;  i++) {
+            result[i] = entries[result[i]];
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
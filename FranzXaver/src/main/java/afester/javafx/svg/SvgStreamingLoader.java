@@ -0,0 +1,826 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Translate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+
+/**
+ * Converts an SVG document into a JavaFX node tree while it is parsed.
+ * In contrast to the DOM based approach, no document tree is built - the
+ * memory required during loading only depends on the nesting depth of the
+ * document.
+ * Styling is resolved from presentation attributes and inline
+ * <code>style</code> attributes, including inheritance. CSS style sheets
+ * (<code>&lt;style&gt;</code> elements and <code>class</code> selectors) are
+ * not supported. Gradients and elements which are referenced by
+ * <code>&lt;use&gt;</code> elements must be defined before they are
+ * referenced, which is the case for documents created by the common
+ * authoring tools.
+ */
+class SvgStreamingLoader {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+
+    private static final XMLInputFactory inputFactory = createInputFactory();
+
+    private final boolean addRootRect;
+    private final GradientFactory gradientFactory;
+    private final BooleanSupplier cancelCheck;
+    private final SvgLoadRecorder recorder;
+    private final SvgLoadResult index;
+    private final SvgPaintPool.DocumentPaints paintPool;
+    private final Set<String> referencedIds;
+
+    private final Deque<Group> parents = new ArrayDeque<>();
+    private final Deque<StreamingStyle> styles = new ArrayDeque<>();
+    private final Map<String, Paint> paints = new HashMap<>();
+
+    // the groups which hold the contents of <defs> and <symbol> elements - they
+    // are not attached to the drawing, but can be referenced by <use> elements
+    private final Set<Group> definitions = new HashSet<>();
+    private final Map<Group, SymbolDefinition> symbols = new HashMap<>();
+    private int definitionDepth = 0;
+
+    // the nodes which have been converted so far, including the definitions,
+    // by their id - if an id is used more than once, the first element is
+    // referenced, like in the DOM
+    private final Map<String, Node> ids = new HashMap<>();
+
+    // the templates of the elements which are referenced by <use> elements, by id
+    private final Map<String, SvgTemplate> useTemplates = new HashMap<>();
+
+    private XMLStreamReader reader;
+    private int depth = 0;
+
+    private double viewportWidth = 0;
+    private double viewportHeight = 0;
+
+    // the text element which is currently collecting its character content
+    private Text currentText;
+    private int textDepth;
+    private StringBuilder textContent = new StringBuilder();
+
+    // the gradient element which is currently collecting its stops
+    private GradientDefinition currentGradient;
+    private int gradientDepth;
+
+
+    SvgStreamingLoader(boolean addRootRect, GradientFactory gradientFactory,
+                       BooleanSupplier cancelCheck, SvgLoadRecorder recorder,
+                       SvgLoadResult index, SvgPaintPool.DocumentPaints paintPool,
+                       Set<String> referencedIds) {
+        this.addRootRect = addRootRect;
+        this.gradientFactory = gradientFactory;
+        this.cancelCheck = cancelCheck;
+        this.recorder = recorder;
+        this.index = index;
+        this.paintPool = paintPool;
+        this.referencedIds = referencedIds;
+    }
+
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory result = XMLInputFactory.newInstance();
+        result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        result.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        // Internal DTD subsets are supported (they are used to declare entities),
+        // but external DTDs are never loaded
+        result.setXMLResolver((publicId, systemId, baseUri, namespace) ->
+                                  new ByteArrayInputStream(new byte[0]));
+        return result;
+    }
+
+
+    /**
+     * Loads an SVG document from an input stream.
+     *
+     * @param svgFile The input stream which provides the SVG document.
+     *
+     * @return A JavaFX node representing the SVG document.
+     *
+     * @throws XMLStreamException if the document could not be parsed.
+     */
+    Group load(InputStream svgFile) throws XMLStreamException {
+        recorder.beginPhase(SvgLoadRecorder.STREAM);
+        synchronized (inputFactory) {
+            reader = inputFactory.createXMLStreamReader(svgFile);
+        }
+
+        Group result = new Group();
+        parents.push(result);
+        styles.push(new StreamingStyle());
+
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                  case XMLStreamConstants.START_ELEMENT :
+                      if (cancelCheck.getAsBoolean()) {
+                          throw new CancellationException();
+                      }
+                      startElement();
+                      break;
+
+                  case XMLStreamConstants.END_ELEMENT :
+                      endElement();
+                      break;
+
+                  case XMLStreamConstants.CHARACTERS :
+                  case XMLStreamConstants.CDATA :
+                  case XMLStreamConstants.SPACE :
+                      if (currentText != null) {
+                          textContent.append(reader.getText());
+                      }
+                      break;
+
+                  default :
+                      break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        recorder.addGradients(paints.size());
+        recorder.addPaints(paintPool.size());
+        logger.debug("{} distinct paints", paintPool.size());
+        recorder.endPhase();
+
+        return result;
+    }
+
+
+    private void startElement() {
+        depth++;
+
+        StreamingStyle style = styles.peek().inherit();
+        for (int i = 0;  i < reader.getAttributeCount();  i++) {
+            String ns = reader.getAttributeNamespace(i);
+            if (ns == null || ns.isEmpty()) {
+                style.set(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+            if (referencedIds != null) {
+                SvgAttributeParser.addReferences(reader.getAttributeLocalName(i),
+                                                 reader.getAttributeValue(i), referencedIds);
+            }
+        }
+        SvgAttributeParser.parseStyle(attr("style"), style::set);
+        recorder.addResolvedStyles(1);
+
+        Group parent = parents.peek();
+        Group newParent = parent;
+        final int childCount = parent.getChildren().size();
+
+        String ns = reader.getNamespaceURI();
+        String localName = reader.getLocalName();
+        if (!SVG_NS.equals(ns) && ns != null && !ns.isEmpty()) {
+            logger.warn("Unknown element {}", reader.getName());
+        } else {
+            recorder.countElement(localName);
+            switch (localName) {
+              case "svg"            : handleSvg(parent); break;
+              case "g"              : newParent = handleGroup(); break;
+              case "path"           : handlePath(parent, style); break;
+              case "rect"           : handleRect(parent, style); break;
+              case "line"           : handleLine(parent, style); break;
+              case "polygon"        : handlePolygon(parent, style); break;
+              case "polyline"       : handlePolyline(parent, style); break;
+              case "circle"         : handleCircle(parent, style); break;
+              case "ellipse"        : handleEllipse(parent, style); break;
+              case "text"           : handleText(parent, style); break;
+              case "linearGradient" : startGradient(false); break;
+              case "radialGradient" : startGradient(true); break;
+              case "stop"           : handleStop(style); break;
+              case "defs"           : newParent = handleDefinition(false); break;
+              case "symbol"         : newParent = handleDefinition(true); break;
+              case "use"            : handleUse(parent); break;
+
+              case "metadata"       :
+              case "tspan"          :
+              case "pattern"        :
+                  logger.debug("Handling <{}>", localName);
+                  break;
+
+              default :
+                  logger.warn("Unknown element {}", reader.getName());
+                  break;
+            }
+        }
+
+        Node created = getCreatedNode(parent, newParent, childCount);
+        String id = attr("id");
+        if (created != null && id != null && !id.isEmpty() && !"svg".equals(localName)) {
+            ids.putIfAbsent(id, created);
+        }
+
+        if (newParent != parent && definitions.contains(newParent)) {
+            definitionDepth++;
+        } else if (index != null && definitionDepth == 0 && created != null
+                   && !"svg".equals(localName)) {
+            index.add(created, id, attr("class"));
+        }
+
+        parents.push(newParent);
+        styles.push(style);
+    }
+
+
+    /**
+     * @return The node which has been created for the current element, or
+     *         <code>null</code> if no node or more than one node was created.
+     */
+    private static Node getCreatedNode(Group parent, Group newParent, int childCount) {
+        if (newParent != parent) {
+            return newParent;
+        }
+
+        List<Node> children = parent.getChildren();
+        return children.size() == childCount + 1 ? children.get(childCount) : null;
+    }
+
+
+    private void endElement() {
+        if (currentText != null && depth == textDepth) {
+            currentText.setText(textContent.toString());
+            currentText = null;
+        }
+        if (currentGradient != null && depth == gradientDepth) {
+            finishGradient();
+        }
+
+        // Attach a group only after all its children have been added, since
+        // attaching a node to a deep chain of groups notifies all ancestors,
+        // which is slow and recursive
+        Group group = parents.pop();
+        if (group != parents.peek()) {
+            if (definitions.contains(group)) {
+                definitionDepth--;
+            } else {
+                parents.peek().getChildren().add(group);
+            }
+        }
+        styles.pop();
+        depth--;
+    }
+
+
+    private String attr(String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+
+    private String getId() {
+        String id = attr("id");
+        return id == null ? "" : id;
+    }
+
+
+    private double getLength(String name, double reference) {
+        return SvgAttributeParser.parseLength(attr(name), reference, 0);
+    }
+
+
+    private double getDiagonal() {
+        return Math.sqrt((viewportWidth * viewportWidth + viewportHeight * viewportHeight) / 2);
+    }
+
+
+    private Affine getTransform() {
+        double[] matrix = SvgAttributeParser.parseTransform(attr("transform"));
+        if (matrix == null) {
+            return null;
+        }
+
+        return new Affine(matrix[0], matrix[2], matrix[4],
+                          matrix[1], matrix[3], matrix[5]);
+    }
+
+
+    private void addShape(Group parent, Shape shape, StreamingStyle style) {
+        shape.setId(getId());
+
+        Affine transformation = getTransform();
+        if (transformation != null) {
+            shape.getTransforms().add(transformation);
+        }
+
+        applyStyle(shape, style);
+
+        parent.getChildren().add(shape);
+    }
+
+
+    // <svg>
+    private void handleSvg(Group parent) {
+        double[] viewBox = SvgAttributeParser.parseNumberList(attr("viewBox"));
+        if (viewBox.length == 4) {
+            viewportWidth = viewBox[2];
+            viewportHeight = viewBox[3];
+        } else {
+            viewportWidth = SvgAttributeParser.parseLength(attr("width"), 0, 0);
+            viewportHeight = SvgAttributeParser.parseLength(attr("height"), 0, 0);
+        }
+
+        // optionally add a rectangle using the size of the whole drawing
+        if (addRootRect) {
+            Rectangle result = new Rectangle(viewportWidth, viewportHeight, null);
+            result.setId(getId());
+            result.setStroke(Color.BLACK);
+            result.getStrokeDashArray().addAll(3.0, 7.0, 3.0, 7.0);
+
+            parent.getChildren().add(result);
+        }
+    }
+
+
+    // <g>
+    private Group handleGroup() {
+        Group result = new Group();
+        result.setId(getId());
+
+        Affine transformation = getTransform();
+        if (transformation != null) {
+            result.getTransforms().add(transformation);
+        }
+
+        // the group is attached to its parent in endElement()
+        return result;
+    }
+
+
+    // <defs> and <symbol>
+    private Group handleDefinition(boolean isSymbol) {
+        Group result = new Group();
+        result.setId(getId());
+        definitions.add(result);
+        if (isSymbol) {
+            symbols.put(result, new SymbolDefinition(attr("viewBox"),
+                                                     attr("preserveAspectRatio")));
+        }
+
+        // the group is never attached to the drawing
+        return result;
+    }
+
+
+    // <use>
+    private void handleUse(Group parent) {
+        String href = reader.getAttributeValue(XLINK_NS, "href");
+        if (href == null) {
+            href = attr("href");
+        }
+        String id = href != null && href.startsWith("#") ? href.substring(1) : null;
+        Node referenced = id == null ? null : ids.get(id);
+
+        // the referenced element is compiled only once - all uses create
+        // their nodes from the same template
+        SvgTemplate template = useTemplates.get(id);
+        if (template == null) {
+            if (referenced == null || parents.contains(referenced)) {
+                logger.warn("Can not use {}", href);
+                return;
+            }
+
+            List<Node> content = symbols.containsKey(referenced)
+                               ? ((Group) referenced).getChildren()
+                               : Collections.singletonList(referenced);
+            template = SvgTemplate.compileInstance(content);
+            useTemplates.put(id, template);
+        }
+
+        Group result = template.instantiate();
+        result.setId(getId());
+        Affine transformation = getTransform();
+        if (transformation != null) {
+            result.getTransforms().add(transformation);
+        }
+        final double xpos = getLength("x", viewportWidth);
+        final double ypos = getLength("y", viewportHeight);
+        if (xpos != 0 || ypos != 0) {
+            result.getTransforms().add(new Translate(xpos, ypos));
+        }
+
+        // the viewBox of a symbol is mapped into the viewport of the <use> element
+        SymbolDefinition symbol = symbols.get(referenced);
+        if (symbol != null) {
+            double[] matrix = SvgAttributeParser.parseViewBoxTransform(
+                    symbol.viewBox, symbol.preserveAspectRatio,
+                    SvgAttributeParser.parseLength(attr("width"), viewportWidth, viewportWidth),
+                    SvgAttributeParser.parseLength(attr("height"), viewportHeight, viewportHeight));
+            if (matrix != null) {
+                result.getTransforms().add(new Affine(matrix[0], matrix[2], matrix[4],
+                                                      matrix[1], matrix[3], matrix[5]));
+            }
+        }
+
+        parent.getChildren().add(result);
+    }
+
+
+    private void handlePath(Group parent, StreamingStyle style) {
+        SVGPath result = new SVGPath();
+        result.setContent(attr("d"));
+        addShape(parent, result, style);
+    }
+
+
+    private void handleRect(Group parent, StreamingStyle style) {
+        double cornerWidth = SvgAttributeParser.parseLength(attr("rx"), viewportWidth, -1);
+        double cornerHeight = SvgAttributeParser.parseLength(attr("ry"), viewportHeight, -1);
+        if (cornerWidth < 0) {
+            cornerWidth = Math.max(cornerHeight, 0);
+        }
+        if (cornerHeight < 0) {
+            cornerHeight = cornerWidth;
+        }
+
+        Rectangle result = new Rectangle(getLength("x", viewportWidth),
+                                         getLength("y", viewportHeight),
+                                         getLength("width", viewportWidth),
+                                         getLength("height", viewportHeight));
+        result.setArcWidth(2 * cornerWidth);
+        result.setArcHeight(2 * cornerHeight);
+        addShape(parent, result, style);
+    }
+
+
+    private void handleLine(Group parent, StreamingStyle style) {
+        Line result = new Line(getLength("x1", viewportWidth), getLength("y1", viewportHeight),
+                               getLength("x2", viewportWidth), getLength("y2", viewportHeight));
+        addShape(parent, result, style);
+    }
+
+
+    private void handlePolygon(Group parent, StreamingStyle style) {
+        double[] coordinates = getPoints();
+        addShape(parent, new Polygon(coordinates), style);
+    }
+
+
+    private void handlePolyline(Group parent, StreamingStyle style) {
+        double[] coordinates = getPoints();
+        addShape(parent, new Polyline(coordinates), style);
+    }
+
+
+    private double[] getPoints() {
+        double[] coordinates = SvgAttributeParser.parseNumberList(attr("points"));
+        if (coordinates.length % 2 != 0) {
+            logger.warn("Odd number of coordinates in points attribute");
+            coordinates = Arrays.copyOf(coordinates, coordinates.length - 1);
+        }
+        return coordinates;
+    }
+
+
+    private void handleCircle(Group parent, StreamingStyle style) {
+        Circle result = new Circle(getLength("cx", viewportWidth),
+                                   getLength("cy", viewportHeight),
+                                   getLength("r", getDiagonal()));
+        addShape(parent, result, style);
+    }
+
+
+    private void handleEllipse(Group parent, StreamingStyle style) {
+        Ellipse result = new Ellipse(getLength("cx", viewportWidth),
+                                     getLength("cy", viewportHeight),
+                                     getLength("rx", viewportWidth),
+                                     getLength("ry", viewportHeight));
+        addShape(parent, result, style);
+    }
+
+
+    private void handleText(Group parent, StreamingStyle style) {
+        Text result = new Text(getFirstLength("x", viewportWidth),
+                               getFirstLength("y", viewportHeight), "");
+
+        Font font = Font.font(style.fontFamily, style.fontSize);
+        result.setFont(font);
+        addShape(parent, result, style);
+
+        // the text content is set when the end of the element is reached
+        currentText = result;
+        textDepth = depth;
+        textContent.setLength(0);
+    }
+
+
+    private double getFirstLength(String name, double reference) {
+        String value = attr(name);
+        if (value == null) {
+            return 0;
+        }
+
+        String[] values = value.trim().split("[\\s,]+");
+        return SvgAttributeParser.parseLength(values[0], reference, 0);
+    }
+
+
+    private void startGradient(boolean isRadial) {
+        GradientDefinition gradient = new GradientDefinition();
+        gradient.isRadial = isRadial;
+        gradient.id = getId();
+        gradient.href = attr("href");
+        if (gradient.href == null) {
+            gradient.href = reader.getAttributeValue(XLINK_NS, "href");
+        }
+        gradient.matrix = SvgAttributeParser.parseTransform(attr("gradientTransform"));
+
+        if (isRadial) {
+            gradient.coordinates = new double[] {
+                SvgAttributeParser.parseLength(attr("cx"), viewportWidth, viewportWidth / 2),
+                SvgAttributeParser.parseLength(attr("cy"), viewportHeight, viewportHeight / 2),
+                SvgAttributeParser.parseLength(attr("r"), getDiagonal(), getDiagonal() / 2),
+                0, 0};
+            gradient.coordinates[3] =
+                SvgAttributeParser.parseLength(attr("fx"), viewportWidth, gradient.coordinates[0]);
+            gradient.coordinates[4] =
+                SvgAttributeParser.parseLength(attr("fy"), viewportHeight, gradient.coordinates[1]);
+        } else {
+            gradient.coordinates = new double[] {
+                SvgAttributeParser.parseLength(attr("x1"), viewportWidth, 0),
+                SvgAttributeParser.parseLength(attr("y1"), viewportHeight, 0),
+                SvgAttributeParser.parseLength(attr("x2"), viewportWidth, viewportWidth),
+                SvgAttributeParser.parseLength(attr("y2"), viewportHeight, 0)};
+        }
+
+        currentGradient = gradient;
+        gradientDepth = depth;
+    }
+
+
+    private void handleStop(StreamingStyle style) {
+        if (currentGradient == null) {
+            return;
+        }
+
+        String offsetValue = attr("offset");
+        double offset = 0;
+        if (offsetValue != null) {
+            offsetValue = offsetValue.trim();
+            if (offsetValue.endsWith("%")) {
+                offset = SvgAttributeParser.parseLength(offsetValue, 1, 0);
+            } else {
+                offset = SvgAttributeParser.parseLength(offsetValue, 0, 0);
+            }
+        }
+
+        Color stopColor = paintPool.intern(SvgAttributeParser.parseColor(
+                                style.resolveColor(style.stopColor), style.stopOpacity));
+        logger.debug("stopColor={}", stopColor);
+        currentGradient.stops.add(new Stop(offset, stopColor == null ? Color.BLACK : stopColor));
+    }
+
+
+    private void finishGradient() {
+        GradientDefinition gradient = currentGradient;
+        currentGradient = null;
+
+        // add all stops from a possibly linked gradient
+        String linkedId = SvgAttributeParser.parseReference(gradient.href);
+        if (linkedId != null) {
+            Paint linked = paints.get(linkedId);
+            if (linked instanceof LinearGradient) {
+                gradient.stops.addAll(((LinearGradient) linked).getStops());
+            } else if (linked instanceof RadialGradient) {
+                gradient.stops.addAll(((RadialGradient) linked).getStops());
+            }
+        }
+
+        double[] coords = gradient.coordinates;
+        Paint result;
+        if (gradient.isRadial) {
+            result = gradientFactory.createRadialGradient(
+                            (float) coords[0], (float) coords[1], (float) coords[2],
+                            (float) coords[3], (float) coords[4],
+                            gradient.matrix, gradient.stops);
+        } else {
+            result = gradientFactory.createLinearGradient(coords[0], coords[1],
+                                                          coords[2], coords[3],
+                                                          gradient.matrix, gradient.stops);
+        }
+
+        paints.put(gradient.id, paintPool.intern(result));
+    }
+
+
+    private void applyStyle(Shape fxObj, StreamingStyle style) {
+        recorder.addStyles(1);
+        fxObj.setFill(resolvePaint(style.fill, style.fillOpacity, style));
+        fxObj.setStroke(resolvePaint(style.stroke, style.strokeOpacity, style));
+        fxObj.setStrokeWidth(style.strokeWidth);
+        if (style.strokeDashArray != null) {
+            for (double dashLength : style.strokeDashArray) {
+                fxObj.getStrokeDashArray().add(dashLength);
+            }
+        }
+        fxObj.setStrokeDashOffset(style.strokeDashOffset);
+    }
+
+
+    private Paint resolvePaint(String value, double opacity, StreamingStyle style) {
+        if (value.equalsIgnoreCase("none")) {
+            return null;
+        }
+
+        if (value.startsWith("url(")) {
+            String id = SvgAttributeParser.parseReference(value);
+            Paint result = paintPool.use(paints.get(id));
+            if (result == null) {
+                // use the fallback color, if any
+                String fallback = value.substring(value.indexOf(')') + 1).trim();
+                if (!fallback.isEmpty() && !fallback.equalsIgnoreCase("none")) {
+                    result = paintPool.use(
+                            SvgAttributeParser.parseColor(style.resolveColor(fallback), opacity));
+                } else {
+                    logger.warn("Could not resolve paint {}", value);
+                }
+            }
+            return result;
+        }
+
+        return paintPool.use(SvgAttributeParser.parseColor(style.resolveColor(value), opacity));
+    }
+
+
+    /**
+     * The attributes of a <code>&lt;symbol&gt;</code> element which define how
+     * its contents are mapped into the viewport of a <code>&lt;use&gt;</code> element.
+     */
+    private static final class SymbolDefinition {
+        private final String viewBox;
+        private final String preserveAspectRatio;
+
+        SymbolDefinition(String viewBox, String preserveAspectRatio) {
+            this.viewBox = viewBox;
+            this.preserveAspectRatio = preserveAspectRatio;
+        }
+    }
+
+
+    /**
+     * The state of the style properties which are supported by the streaming
+     * loader. One instance exists for each currently open element.
+     */
+    private static final class StreamingStyle {
+        // inherited properties
+        String fill = "black";
+        double fillOpacity = 1.0;
+        String stroke = "none";
+        double strokeOpacity = 1.0;
+        double strokeWidth = 1.0;
+        double[] strokeDashArray = null;
+        double strokeDashOffset = 0.0;
+        String fontFamily = null;
+        double fontSize = 12.0;
+        String color = "black";
+
+        // non-inherited properties
+        String stopColor = "black";
+        double stopOpacity = 1.0;
+
+        StreamingStyle inherit() {
+            StreamingStyle result = new StreamingStyle();
+            result.fill = fill;
+            result.fillOpacity = fillOpacity;
+            result.stroke = stroke;
+            result.strokeOpacity = strokeOpacity;
+            result.strokeWidth = strokeWidth;
+            result.strokeDashArray = strokeDashArray;
+            result.strokeDashOffset = strokeDashOffset;
+            result.fontFamily = fontFamily;
+            result.fontSize = fontSize;
+            result.color = color;
+            return result;
+        }
+
+        String resolveColor(String value) {
+            return value.equals("currentColor") ? color : value;
+        }
+
+        void set(String property, String value) {
+            if (value.equals("inherit")) {
+                return;     // the inherited value is already set
+            }
+
+            switch (property) {
+              case "fill"              : fill = value; break;
+              case "fill-opacity"      : fillOpacity = parseNumber(value, fillOpacity); break;
+              case "stroke"            : stroke = value; break;
+              case "stroke-opacity"    : strokeOpacity = parseNumber(value, strokeOpacity); break;
+              case "stroke-width"      :
+                  strokeWidth = SvgAttributeParser.parseLength(value, 0, strokeWidth);
+                  break;
+              case "stroke-dasharray"  : strokeDashArray = parseDashArray(value); break;
+              case "stroke-dashoffset" :
+                  strokeDashOffset = SvgAttributeParser.parseLength(value, 0, strokeDashOffset);
+                  break;
+              case "font-family"       : fontFamily = parseFontFamily(value); break;
+              case "font-size"         :
+                  fontSize = SvgAttributeParser.parseLength(value, fontSize, fontSize);
+                  break;
+              case "color"             : color = value; break;
+              case "stop-color"        : stopColor = value; break;
+              case "stop-opacity"      : stopOpacity = parseNumber(value, stopOpacity); break;
+              default                  : break;
+            }
+        }
+
+        private static double parseNumber(String value, double defaultValue) {
+            return SvgAttributeParser.parseLength(value, 1, defaultValue);
+        }
+
+        private static double[] parseDashArray(String value) {
+            if (value.equalsIgnoreCase("none")) {
+                return null;
+            }
+
+            String[] values = value.trim().split("[\\s,]+");
+            double[] result = new double[values.length];
+            for (int i = 0;  i < values.length;  i++) {
+                result[i] = SvgAttributeParser.parseLength(values[i], 0, 0);
+            }
+            return result;
+        }
+
+        private static String parseFontFamily(String value) {
+            String result = value.split(",")[0].trim();
+            if (result.length() > 1
+                && (result.charAt(0) == '\'' || result.charAt(0) == '"')) {
+                result = result.substring(1, result.length() - 1);
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * The attributes and stops of a gradient element, collected until the
+     * end of the gradient element is reached.
+     */
+    private static final class GradientDefinition {
+        boolean isRadial;
+        String id;
+        String href;
+        double[] coordinates;
+        double[] matrix;
+        List<Stop> stops = new ArrayList<>();
+    }
+}
@@ -23,14 +23,19 @@ import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Affine;
 
+import org.apache.batik.anim.dom.SVGOMDocument;
 import org.apache.batik.anim.dom.SVGOMSVGElement;
 import org.apache.batik.anim.dom.SVGStylableElement;
-import org.apache.batik.css.dom.CSSOMComputedStyle;
 import org.apache.batik.css.dom.CSSOMComputedStyle.ComputedCSSValue;
-import org.apache.batik.css.dom.CSSOMSVGComputedStyle;
+import org.apache.batik.css.dom.CSSOMSVGColor;
 import org.apache.batik.css.dom.CSSOMSVGComputedStyle.ComputedCSSPaintValue;
+import org.apache.batik.css.dom.CSSOMValue;
+import org.apache.batik.css.engine.CSSEngine;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.css.CSSPrimitiveValue;
 import org.w3c.dom.css.CSSStyleDeclaration;
 import org.w3c.dom.css.CSSValue;
@@ -40,17 +45,134 @@ import org.w3c.dom.svg.SVGTransform;
 import org.w3c.dom.svg.SVGTransformList;
 import org.w3c.dom.svg.SVGTransformable;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class SvgStyleTools {
     private static final Logger logger = LogManager.getLogger();
 
+    // the presentation attributes of the properties which are resolved for
+    // shapes - all of them are inherited properties
+    private static final Set<String> SHAPE_PROPERTIES = new HashSet<>(Arrays.asList(
+            "fill", "fill-opacity", "stroke", "stroke-opacity", "stroke-width",
+            "stroke-dasharray", "stroke-dashoffset", "font-family", "font-size", "color"));
+
+    private static final Set<String> STOP_PROPERTIES = new HashSet<>(Arrays.asList(
+            "stop-color", "stop-opacity", "color"));
+
     protected SVGOMSVGElement svgElement = null;
     private Map<String, Paint> paints = new HashMap<>();
+    private final SvgPaintPool.DocumentPaints paintPool;
+    private int styleCount = 0;
+    private int resolvedStyleCount = 0;
+
+    // Without style sheets, the resolved style of an element only depends on
+    // the style of its parent and on its own declarations, so that elements
+    // with the same declarations within the same parent share their style
+    private boolean shareStyles;
+    private final Map<StyleKey, ResolvedStyle> sharedStyles = new HashMap<>();
+    private final Map<Element, ResolvedStyle> parentStyles = new IdentityHashMap<>();
+    private final Map<String, Color> sharedStopColors = new HashMap<>();
+
+
+    /**
+     * The properties of the computed style of an element which are applied
+     * to the JavaFX shapes. Instances are immutable and shared between elements.
+     * The font is only resolved for text elements.
+     */
+    static final class ResolvedStyle {
+        final Paint fill;
+        final Paint stroke;
+        final double strokeWidth;
+        final Double[] dashArray;
+        final double dashOffset;
+        final String fontFamily;
+        final double fontSize;
+        private Font font;
+
+        // false if a paint server has not been converted yet
+        final boolean complete;
+
+        ResolvedStyle(Paint fill, Paint stroke, double strokeWidth, Double[] dashArray,
+                      double dashOffset, String fontFamily, double fontSize, boolean complete) {
+            this.fill = fill;
+            this.stroke = stroke;
+            this.strokeWidth = strokeWidth;
+            this.dashArray = dashArray;
+            this.dashOffset = dashOffset;
+            this.fontFamily = fontFamily;
+            this.fontSize = fontSize;
+            this.complete = complete;
+        }
 
-    SvgStyleTools(SVGOMSVGElement svgElement) {
+        Font getFont() {
+            if (font == null) {
+                logger.debug("Font: {}/{}", fontFamily, fontSize);
+                font = Font.font(fontFamily, fontSize);
+            }
+            return font;
+        }
+    }
+
+
+    /**
+     * The style of the parent element and the own style declarations of
+     * an element.
+     */
+    private static final class StyleKey {
+        private final ResolvedStyle parent;
+        private final String declarations;
+        private final boolean text;
+
+        StyleKey(ResolvedStyle parent, String declarations, boolean text) {
+            this.parent = parent;
+            this.declarations = declarations;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StyleKey)) {
+                return false;
+            }
+            StyleKey other = (StyleKey) obj;
+            return parent == other.parent && text == other.text
+                   && declarations.equals(other.declarations);
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(parent) * 31 + declarations.hashCode()) * 2
+                   + (text ? 1 : 0);
+        }
+    }
+
+
+    SvgStyleTools(SVGOMSVGElement svgElement, SvgPaintPool.DocumentPaints paintPool) {
         this.svgElement = svgElement;
+        this.paintPool = paintPool;
+
+        CSSEngine engine = ((SVGOMDocument) svgElement.getOwnerDocument()).getCSSEngine();
+        this.shareStyles = engine != null && engine.getStyleSheetNodes().isEmpty();
+    }
+
+
+    /**
+     * Defines whether elements share their resolved styles. Sharing needs
+     * to be disabled when the document is modified after it has been loaded,
+     * since the shared styles are not updated.
+     */
+    void setShareStyles(boolean flag) {
+        shareStyles = flag;
+        sharedStyles.clear();
+        parentStyles.clear();
+        sharedStopColors.clear();
     }
 
     Affine getTransform(SVGTransformable element) {
@@ -80,52 +202,168 @@ public class SvgStyleTools {
         return fxTrans;
     }
 
-    private Paint getFillColor(SVGStylableElement obj) {
-        Paint result = null;
+    /**
+     * @param element The SVG DOM element.
+     * @param text    <code>true</code> to also resolve the font of the element.
+     *
+     * @return The resolved style of an element, which is shared with other
+     *         elements if possible.
+     */
+    ResolvedStyle getStyle(SVGStylableElement element, boolean text) {
+        if (!shareStyles) {
+            return resolve(element, text);
+        }
+
+        // the ancestors whose style is not known yet, from the top
+        Deque<SVGStylableElement> pending = new ArrayDeque<>();
+        ResolvedStyle parentStyle = null;
+        org.w3c.dom.Node node = element.getParentNode();
+        while (node instanceof SVGStylableElement) {
+            parentStyle = parentStyles.get(node);
+            if (parentStyle != null) {
+                break;
+            }
+            pending.push((SVGStylableElement) node);
+            node = node.getParentNode();
+        }
+        while (!pending.isEmpty()) {
+            SVGStylableElement ancestor = pending.pop();
+            parentStyle = getSharedStyle(ancestor, parentStyle, false);
+            if (parentStyle.complete) {
+                // an incomplete style refers to a gradient which is defined later
+                parentStyles.put(ancestor, parentStyle);
+            }
+        }
+
+        return getSharedStyle(element, parentStyle, text);
+    }
+
+
+    private ResolvedStyle getSharedStyle(SVGStylableElement element, ResolvedStyle parentStyle,
+                                         boolean text) {
+        String declarations = getDeclarations(element, SHAPE_PROPERTIES);
+        if (declarations.isEmpty() && parentStyle != null && parentStyle.complete && !text) {
+            return parentStyle;     // all properties are inherited
+        }
+
+        StyleKey key = new StyleKey(parentStyle, declarations, text);
+        ResolvedStyle result = sharedStyles.get(key);
+        if (result == null) {
+            result = resolve(element, text);
+            if (result.complete && (parentStyle == null || parentStyle.complete)) {
+                sharedStyles.put(key, result);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * @return The style attribute and the presentation attributes of an
+     *         element which can affect the given properties.
+     */
+    private static String getDeclarations(Element element, Set<String> properties) {
+        StringBuilder result = null;
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0;  i < attributes.getLength();  i++) {
+            Attr attr = (Attr) attributes.item(i);
+            String name = attr.getName();
+            if (attr.getNamespaceURI() == null
+                && (name.equals("style") || properties.contains(name))) {
+                if (result == null) {
+                    result = new StringBuilder();
+                }
+                result.append(name).append('=').append(attr.getValue()).append(';');
+            }
+        }
+        return result == null ? "" : result.toString();
+    }
+
+
+    /**
+     * Resolves all properties of an element from a single computed style.
+     */
+    private ResolvedStyle resolve(SVGStylableElement element, boolean text) {
+        resolvedStyleCount++;
 
         // svgElement.getComputedStyle() takes care of all styling aspects,
         // like inheritance of style attributes or presentation versus CSS styles
-        CSSStyleDeclaration style = svgElement.getComputedStyle(obj, null);
-        CSSOMSVGComputedStyle.ComputedCSSPaintValue val = 
+        CSSStyleDeclaration style = svgElement.getComputedStyle(element, null);
+
+        ComputedCSSPaintValue fillValue =
                 (ComputedCSSPaintValue) style.getPropertyCSSValue("fill");
+        ComputedCSSPaintValue strokeValue =
+                (ComputedCSSPaintValue) style.getPropertyCSSValue("stroke");
+        Paint fill = getPaint(fillValue, style, "fill-opacity");
+        Paint stroke = getPaint(strokeValue, style, "stroke-opacity");
+        final boolean complete = (fill != null || !isUri(fillValue))
+                                 && (stroke != null || !isUri(strokeValue));
 
-        if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_NONE) {    // fill=none
-            return null;
+        // stroke-width
+        double strokeWidth = 1;
+        ComputedCSSValue swidth = (ComputedCSSValue) style.getPropertyCSSValue("stroke-width");
+        if (swidth != null) {
+            strokeWidth = getLength(swidth);
         }
 
-        if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_URI) {
-            String uri = val.getUri();
-            if (uri.startsWith("file:#")) {
-                uri = uri.substring("file:#".length());
+        // stroke-dasharray
+        Double[] dashArray = new Double[0];
+        ComputedCSSValue strokeDashArray =
+                (ComputedCSSValue) style.getPropertyCSSValue("stroke-dasharray");
+        if (strokeDashArray != null
+            && strokeDashArray.getCssValueType() == CSSValue.CSS_VALUE_LIST) {
+            dashArray = new Double[strokeDashArray.getLength()];
+            for (int i = 0;  i < dashArray.length;  i++) {
+                dashArray[i] = (double) strokeDashArray.getValue().item(i).getFloatValue();
             }
-            result = paints.get(uri);
         }
 
-        if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_RGBCOLOR) {
-            float red = val.getRed().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-            float green = val.getGreen().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-            float blue = val.getBlue().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-    
-            CSSOMComputedStyle.ComputedCSSValue  opacity = 
-                    (ComputedCSSValue) style.getPropertyCSSValue("fill-opacity");
-            float alpha = opacity.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
-            result = new Color(red, green, blue, alpha);
+        // stroke-dashoffset
+        double dashOffset = 0;
+        ComputedCSSValue strokeDashOffset =
+                (ComputedCSSValue) style.getPropertyCSSValue("stroke-dashoffset");
+        if (strokeDashOffset != null) {
+            dashOffset = strokeDashOffset.getValue().getFloatValue();
         }
 
-        return result;
+        // font - the default font family can only be computed with a render tree
+        String fontFamily = null;
+        double fontSize = 0;
+        if (text) {
+            ComputedCSSValue family = (ComputedCSSValue) style.getPropertyCSSValue("font-family");
+            if (family != null) {
+                fontFamily = family.getCssText();
+            }
+            ComputedCSSValue size = (ComputedCSSValue) style.getPropertyCSSValue("font-size");
+            if (size != null) {
+                fontSize = getLength(size);     // https://bugs.launchpad.net/inkscape/+bug/168164
+            }
+        }
+
+        return new ResolvedStyle(fill, stroke, strokeWidth, dashArray, dashOffset,
+                                 fontFamily, fontSize, complete);
     }
 
 
-    private Paint getStrokeColor(SVGStylableElement obj) {
+    private static boolean isUri(ComputedCSSPaintValue value) {
+        return value.getPaintType() == SVGPaint.SVG_PAINTTYPE_URI;
+    }
 
-        Paint result = null;
 
-        CSSStyleDeclaration style = svgElement.getComputedStyle(obj, null);
-        CSSOMSVGComputedStyle.ComputedCSSPaintValue val = 
-                    (ComputedCSSPaintValue) style.getPropertyCSSValue("stroke");
+    private static float getLength(ComputedCSSValue value) {
+        if (value.getPrimitiveType() == CSSPrimitiveValue.CSS_NUMBER) {
+            return value.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
+        }
+        return value.getFloatValue(CSSPrimitiveValue.CSS_PX);
+    }
+
+
+    private Paint getPaint(ComputedCSSPaintValue val, CSSStyleDeclaration style,
+                           String opacityProperty) {
+        Paint result = null;
 
-        if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_NONE) {
-            return null;    // stroke=none
+        if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_NONE) {    // fill=none
+            return null;
         }
 
         if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_URI) {
@@ -133,21 +371,20 @@ public class SvgStyleTools {
             if (uri.startsWith("file:#")) {
                 uri = uri.substring("file:#".length());
             }
-            result = paints.get(uri);
+            result = paintPool.use(paints.get(uri));
         }
 
         if (val.getPaintType() == SVGPaint.SVG_PAINTTYPE_RGBCOLOR) {
             float red = val.getRed().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
             float green = val.getGreen().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
             float blue = val.getBlue().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
-    
-            CSSOMComputedStyle.ComputedCSSValue opacity = 
-                    (ComputedCSSValue) style.getPropertyCSSValue("stroke-opacity");
+
+            ComputedCSSValue opacity =
+                    (ComputedCSSValue) style.getPropertyCSSValue(opacityProperty);
             float alpha = opacity.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
-    
-            result = new Color(red, green, blue, alpha);
+            result = paintPool.getColor(red, green, blue, alpha);
         }
-        
+
         return result;
     }
 
@@ -159,78 +396,28 @@ public class SvgStyleTools {
      * @param element The SVG DOM element which defines the styling.
      */
     void applyStyle(Shape fxObj, SVGStylableElement element) {
+        applyStyle(fxObj, getStyle(element, false));
+    }
 
-        // fill
-        Paint fillColor = getFillColor(element);
-        fxObj.setFill(fillColor);
-
-        // stroke
-        Paint strokeColor = getStrokeColor(element);
-        fxObj.setStroke(strokeColor);
-
-        // stroke-width
-        CSSStyleDeclaration style = svgElement.getComputedStyle(element, null);
-        CSSOMSVGComputedStyle.ComputedCSSValue swidth = 
-                    (ComputedCSSValue) style.getPropertyCSSValue("stroke-width");
-        if (swidth != null) {
-            float strokeWidth = 0;
-            if (swidth.getPrimitiveType() == CSSPrimitiveValue.CSS_NUMBER) {
-                strokeWidth = swidth.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
-            } else {
-                strokeWidth = swidth.getFloatValue(CSSPrimitiveValue.CSS_PX);
-            }
-
-            fxObj.setStrokeWidth(strokeWidth);
-        }
 
-        // stroke-dasharray
-        CSSOMSVGComputedStyle.ComputedCSSValue strokeDashArray = 
-                (ComputedCSSValue) style.getPropertyCSSValue("stroke-dasharray");
-        if (strokeDashArray != null
-            && strokeDashArray.getCssValueType() == CSSValue.CSS_VALUE_LIST) {
-            for (int i = 0;  i < strokeDashArray.getLength();  i++) {
-                double dashLength = strokeDashArray.getValue().item(i).getFloatValue();
-                fxObj.getStrokeDashArray().add(dashLength);            
-            }
-        }
+    private void applyStyle(Shape fxObj, ResolvedStyle style) {
+        styleCount++;
 
-        // stroke-dashoffset
-        CSSOMSVGComputedStyle.ComputedCSSValue strokeDashOffset = 
-                (ComputedCSSValue) style.getPropertyCSSValue("stroke-dashoffset");
-        if (strokeDashOffset != null) {
-            double dashOffset = strokeDashOffset.getValue().getFloatValue();
-            fxObj.setStrokeDashOffset(dashOffset);
+        fxObj.setFill(style.fill);
+        fxObj.setStroke(style.stroke);
+        fxObj.setStrokeWidth(style.strokeWidth);
+        if (style.dashArray.length > 0) {
+            fxObj.getStrokeDashArray().addAll(style.dashArray);
         }
+        fxObj.setStrokeDashOffset(style.dashOffset);
     }
 
 
     void applyTextStyle(Text fxObj, SVGStylableElement obj) {
-        CSSStyleDeclaration style = svgElement.getComputedStyle(obj, null); // obj.getStyle();
+        ResolvedStyle style = getStyle(obj, true);
+        fxObj.setFont(style.getFont());
+        applyStyle(fxObj, style);
 
-        String fontFamily = null;
-        CSSOMComputedStyle.ComputedCSSValue val = 
-                    (ComputedCSSValue) style.getPropertyCSSValue("font-family");
-        if (val != null) {
-            fontFamily = val.getCssText();
-        }
-
-        float fontSize = 0;
-        CSSOMComputedStyle.ComputedCSSValue val2 = 
-                    (ComputedCSSValue) style.getPropertyCSSValue("font-size");
-        if (val2 != null) {
-            if (val2.getPrimitiveType() == CSSPrimitiveValue.CSS_NUMBER) {
-                fontSize = val2.getFloatValue(CSSPrimitiveValue.CSS_NUMBER); // https://bugs.launchpad.net/inkscape/+bug/168164
-            } else {
-                fontSize = val2.getFloatValue(CSSPrimitiveValue.CSS_PX);     // https://bugs.launchpad.net/inkscape/+bug/168164
-            }
-        }
-
-        logger.debug("Font: {}/{}", fontFamily, fontSize);
-        Font font = Font.font(fontFamily, fontSize);
-        fxObj.setFont(font);
-
-        applyStyle(fxObj, obj);
-        
 /*        font-style:normal;
         font-variant:normal;
         font-weight:normal;
@@ -238,12 +425,58 @@ public class SvgStyleTools {
 */
     }
 
+
+    /**
+     * @return The color of a gradient stop, including its opacity.
+     */
+    Color getStopColor(SVGStylableElement element) {
+        // stop properties are not inherited, unless explicitly requested
+        String declarations = getDeclarations(element, STOP_PROPERTIES);
+        final boolean share = shareStyles && !declarations.contains("inherit")
+                              && !declarations.contains("currentColor");
+        Color result = share ? sharedStopColors.get(declarations) : null;
+        if (result != null) {
+            return result;
+        }
+
+        CSSStyleDeclaration style = svgElement.getComputedStyle(element, null);
+        CSSOMSVGColor stopColorValue = (CSSOMSVGColor) style.getPropertyCSSValue("stop-color");
+
+        float red = stopColorValue.getRed().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
+        float green = stopColorValue.getGreen().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
+        float blue = stopColorValue.getBlue().getFloatValue(CSSPrimitiveValue.CSS_NUMBER) / 255;
+
+        CSSOMValue stopOpacityValue = (CSSOMValue) style.getPropertyCSSValue("stop-opacity");
+        float stopOpacity = stopOpacityValue.getFloatValue(CSSPrimitiveValue.CSS_NUMBER);
+
+        result = paintPool.intern(new Color(red, green, blue, stopOpacity));
+        if (share) {
+            sharedStopColors.put(declarations, result);
+        }
+        return result;
+    }
+
     public void addPaint(String id, Paint paintObject) {
-        paints.put(id,  paintObject);
+        paints.put(id,  paintPool.intern(paintObject));
     }
 
     public Paint getPaint(String href) {
         return paints.get(href);
     }
 
+
+    int getPaintCount() {
+        return paints.size();
+    }
+
+
+    int getStyleCount() {
+        return styleCount;
+    }
+
+
+    int getResolvedStyleCount() {
+        return resolvedStyleCount;
+    }
+
 }
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.CubicCurve;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.FillRule;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An immutable, compiled representation of an SVG drawing.
+ * <p>
+ * The template is a flat display list of the shapes, transformations, paints
+ * and ids of the drawing. It can be created once, also outside of the
+ * JavaFX application thread, and then be used to create any number of
+ * independent node trees without parsing the SVG document again.
+ * Templates are thread safe.</p>
+ *
+ * @see SvgLoader#loadSvgTemplate(java.io.InputStream)
+ */
+public final class SvgTemplate {
+
+    // The display list operations. Each node is encoded as
+    //   ops:     opcode, id index, transform count, [shape data]
+    //   numbers: transform matrices (6 values each), [shape data]
+    // Shapes additionally encode
+    //   ops:     fill index, stroke index, dash count
+    //   numbers: stroke width, dash offset, dashes
+    // followed by the geometry. Groups are terminated by an END operation.
+    static final int GROUP = 0;
+    static final int END = 1;
+    static final int PATH = 2;
+    static final int RECT = 3;
+    static final int CIRCLE = 4;
+    static final int ELLIPSE = 5;
+    static final int LINE = 6;
+    static final int POLYGON = 7;
+    static final int POLYLINE = 8;
+    static final int CUBIC = 9;
+    static final int TEXT = 10;
+
+    private static final int NONE = -1;
+
+    private final int[] ops;
+    private final double[] numbers;
+    private final String[] strings;
+    private final Object[] objects;     // Paint, Font and FillRule values
+    private final int nodeCount;
+
+
+    SvgTemplate(int[] ops, double[] numbers, String[] strings,
+                Object[] objects, int nodeCount) {
+        this.ops = ops;
+        this.numbers = numbers;
+        this.strings = strings;
+        this.objects = objects;
+        this.nodeCount = nodeCount;
+    }
+
+
+    /**
+     * Compiles a node tree as created by the SvgLoader into a template.
+     *
+     * @param root The root node of the tree to compile.
+     *
+     * @return The template which creates copies of the given node tree.
+     */
+    static SvgTemplate compile(Group root) {
+        Compiler compiler = new Compiler();
+        compiler.compile(root);
+        return compiler.toTemplate();
+    }
+
+
+    /**
+     * Compiles the contents of an element which is referenced by
+     * <code>&lt;use&gt;</code> elements. The nodes are wrapped into a group
+     * without an id or transformations, which receives the id and the
+     * transformations of each use. The ids of the nodes are not compiled,
+     * since they would be duplicated by each instance.
+     *
+     * @param content The nodes which represent the referenced element.
+     *
+     * @return The template which creates the instances.
+     */
+    static SvgTemplate compileInstance(List<Node> content) {
+        Compiler compiler = new Compiler();
+        compiler.omitIds = true;
+        compiler.compileGroup(content);
+        return compiler.toTemplate();
+    }
+
+
+    /**
+     * @return The number of nodes which are created by each instantiation.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Writes this template in the binary compiled SVG format.
+     * The result can be loaded with {@link SvgLoader#loadCompiledTemplate(java.nio.file.Path)}
+     * without any XML parsing.
+     *
+     * @param output The stream to write the template to.
+     *
+     * @throws IOException if writing to the stream failed.
+     */
+    public void write(OutputStream output) throws IOException {
+        SvgTemplateCodec.write(this, output);
+    }
+
+
+    // The raw display list, as required by the SvgTemplateCodec. The arrays
+    // must not be modified.
+
+    int[] getOps() {
+        return ops;
+    }
+
+    double[] getNumbers() {
+        return numbers;
+    }
+
+    String[] getStrings() {
+        return strings;
+    }
+
+    Object[] getObjects() {
+        return objects;
+    }
+
+
+    /**
+     * Creates a new node tree from this template.
+     * Each invocation returns an independent node tree which can be modified
+     * by the caller. Only the immutable paints and fonts are shared between
+     * the instances.
+     *
+     * @return The root node of the new node tree.
+     */
+    public Group instantiate() {
+        Deque<Group> parents = new ArrayDeque<>();
+        Group result = null;
+
+        int op = 0;
+        int num = 0;
+        while (op < ops.length) {
+            final int opcode = ops[op++];
+            if (opcode == END) {
+                Group group = parents.pop();
+                if (parents.isEmpty()) {
+                    result = group;
+                }
+                continue;
+            }
+
+            final int idIndex = ops[op++];
+            final int transformCount = ops[op++];
+
+            Transform[] transforms = new Transform[transformCount];
+            for (int i = 0;  i < transformCount;  i++) {
+                transforms[i] = new Affine(numbers[num], numbers[num + 1], numbers[num + 2],
+                                           numbers[num + 3], numbers[num + 4], numbers[num + 5]);
+                num += 6;
+            }
+
+            Node node;
+            if (opcode == GROUP) {
+                node = new Group();
+            } else {
+                final Paint fill = (Paint) getObject(ops[op++]);
+                final Paint stroke = (Paint) getObject(ops[op++]);
+                final int dashCount = ops[op++];
+                final double strokeWidth = numbers[num++];
+                final double dashOffset = numbers[num++];
+                Double[] dashes = new Double[dashCount];
+                for (int i = 0;  i < dashCount;  i++) {
+                    dashes[i] = numbers[num++];
+                }
+
+                Shape shape;
+                switch (opcode) {
+                  case PATH : {
+                      SVGPath path = new SVGPath();
+                      path.setContent(strings[ops[op++]]);
+                      path.setFillRule((FillRule) objects[ops[op++]]);
+                      shape = path;
+                      break;
+                  }
+
+                  case RECT : {
+                      Rectangle rect = new Rectangle(numbers[num], numbers[num + 1],
+                                                     numbers[num + 2], numbers[num + 3]);
+                      rect.setArcWidth(numbers[num + 4]);
+                      rect.setArcHeight(numbers[num + 5]);
+                      num += 6;
+                      shape = rect;
+                      break;
+                  }
+
+                  case CIRCLE :
+                      shape = new Circle(numbers[num], numbers[num + 1], numbers[num + 2]);
+                      num += 3;
+                      break;
+
+                  case ELLIPSE :
+                      shape = new Ellipse(numbers[num], numbers[num + 1],
+                                          numbers[num + 2], numbers[num + 3]);
+                      num += 4;
+                      break;
+
+                  case LINE :
+                      shape = new Line(numbers[num], numbers[num + 1],
+                                       numbers[num + 2], numbers[num + 3]);
+                      num += 4;
+                      break;
+
+                  case POLYGON : {
+                      Polygon polygon = new Polygon();
+                      polygon.getPoints().setAll(getPoints(num, ops[op]));
+                      num += ops[op++];
+                      shape = polygon;
+                      break;
+                  }
+
+                  case POLYLINE : {
+                      Polyline polyline = new Polyline();
+                      polyline.getPoints().setAll(getPoints(num, ops[op]));
+                      num += ops[op++];
+                      shape = polyline;
+                      break;
+                  }
+
+                  case CUBIC :
+                      shape = new CubicCurve(numbers[num], numbers[num + 1],
+                                             numbers[num + 2], numbers[num + 3],
+                                             numbers[num + 4], numbers[num + 5],
+                                             numbers[num + 6], numbers[num + 7]);
+                      num += 8;
+                      break;
+
+                  case TEXT : {
+                      Text text = new Text(numbers[num], numbers[num + 1], strings[ops[op++]]);
+                      text.setFont((Font) objects[ops[op++]]);
+                      num += 2;
+                      shape = text;
+                      break;
+                  }
+
+                  default :
+                      throw new IllegalStateException("Invalid opcode " + opcode);
+                }
+
+                shape.setFill(fill);
+                shape.setStroke(stroke);
+                shape.setStrokeWidth(strokeWidth);
+                shape.setStrokeDashOffset(dashOffset);
+                if (dashCount > 0) {
+                    shape.getStrokeDashArray().setAll(dashes);
+                }
+                node = shape;
+            }
+
+            if (idIndex != NONE) {
+                node.setId(strings[idIndex]);
+            }
+            if (transformCount > 0) {
+                node.getTransforms().setAll(transforms);
+            }
+
+            if (!parents.isEmpty()) {
+                parents.peek().getChildren().add(node);
+            }
+            if (opcode == GROUP) {
+                parents.push((Group) node);
+            }
+        }
+
+        return result;
+    }
+
+
+    private Object getObject(int index) {
+        return index == NONE ? null : objects[index];
+    }
+
+
+    private Double[] getPoints(int start, int count) {
+        Double[] result = new Double[count];
+        for (int i = 0;  i < count;  i++) {
+            result[i] = numbers[start + i];
+        }
+        return result;
+    }
+
+
+    /**
+     * Creates the display list from a node tree.
+     */
+    private static class Compiler {
+        private int[] ops = new int[256];
+        private int opCount = 0;
+        private double[] numbers = new double[1024];
+        private int numberCount = 0;
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<Object> objects = new ArrayList<>();
+        private final Map<Object, Integer> objectIndex = new HashMap<>();
+        private int nodeCount = 0;
+        private boolean omitIds = false;
+
+
+        void compile(Node node) {
+            // the drawing is compiled recursively - the node trees created by
+            // the SvgLoader are only as deep as the group nesting in the SVG file
+            nodeCount++;
+
+            if (node instanceof Group) {
+                addHeader(GROUP, node);
+                for (Node child : ((Group) node).getChildren()) {
+                    compile(child);
+                }
+                addOp(END);
+            } else if (node instanceof SVGPath) {
+                SVGPath path = (SVGPath) node;
+                addShapeHeader(PATH, path);
+                addOp(addString(path.getContent()));
+                addOp(addObject(path.getFillRule()));
+            } else if (node instanceof Rectangle) {
+                Rectangle rect = (Rectangle) node;
+                addShapeHeader(RECT, rect);
+                addNumbers(rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight(),
+                           rect.getArcWidth(), rect.getArcHeight());
+            } else if (node instanceof Circle) {
+                Circle circle = (Circle) node;
+                addShapeHeader(CIRCLE, circle);
+                addNumbers(circle.getCenterX(), circle.getCenterY(), circle.getRadius());
+            } else if (node instanceof Ellipse) {
+                Ellipse ellipse = (Ellipse) node;
+                addShapeHeader(ELLIPSE, ellipse);
+                addNumbers(ellipse.getCenterX(), ellipse.getCenterY(),
+                           ellipse.getRadiusX(), ellipse.getRadiusY());
+            } else if (node instanceof Line) {
+                Line line = (Line) node;
+                addShapeHeader(LINE, line);
+                addNumbers(line.getStartX(), line.getStartY(), line.getEndX(), line.getEndY());
+            } else if (node instanceof Polygon) {
+                Polygon polygon = (Polygon) node;
+                addShapeHeader(POLYGON, polygon);
+                addPoints(polygon.getPoints());
+            } else if (node instanceof Polyline) {
+                Polyline polyline = (Polyline) node;
+                addShapeHeader(POLYLINE, polyline);
+                addPoints(polyline.getPoints());
+            } else if (node instanceof CubicCurve) {
+                CubicCurve curve = (CubicCurve) node;
+                addShapeHeader(CUBIC, curve);
+                addNumbers(curve.getStartX(), curve.getStartY(),
+                           curve.getControlX1(), curve.getControlY1(),
+                           curve.getControlX2(), curve.getControlY2(),
+                           curve.getEndX(), curve.getEndY());
+            } else if (node instanceof Text) {
+                Text text = (Text) node;
+                addShapeHeader(TEXT, text);
+                addNumbers(text.getX(), text.getY());
+                addOp(addString(text.getText()));
+                addOp(addObject(text.getFont()));
+            } else {
+                throw new IllegalArgumentException("Unsupported node type: " + node.getClass());
+            }
+        }
+
+
+        // a group without an id and transformations
+        void compileGroup(List<Node> children) {
+            nodeCount++;
+            addOp(GROUP);
+            addOp(NONE);
+            addOp(0);
+            for (Node child : children) {
+                compile(child);
+            }
+            addOp(END);
+        }
+
+
+        private void addHeader(int opcode, Node node) {
+            addOp(opcode);
+            addOp(node.getId() == null || omitIds ? NONE : addString(node.getId()));
+            addOp(node.getTransforms().size());
+            for (Transform transform : node.getTransforms()) {
+                addNumbers(transform.getMxx(), transform.getMxy(), transform.getTx(),
+                           transform.getMyx(), transform.getMyy(), transform.getTy());
+            }
+        }
+
+
+        private void addShapeHeader(int opcode, Shape shape) {
+            addHeader(opcode, shape);
+            addOp(shape.getFill() == null ? NONE : addObject(shape.getFill()));
+            addOp(shape.getStroke() == null ? NONE : addObject(shape.getStroke()));
+            addOp(shape.getStrokeDashArray().size());
+            addNumbers(shape.getStrokeWidth(), shape.getStrokeDashOffset());
+            for (Double dash : shape.getStrokeDashArray()) {
+                addNumbers(dash);
+            }
+        }
+
+
+        private void addPoints(List<Double> points) {
+            addOp(points.size());
+            for (Double point : points) {
+                addNumbers(point);
+            }
+        }
+
+
+        private void addOp(int value) {
+            if (opCount == ops.length) {
+                ops = Arrays.copyOf(ops, opCount * 2);
+            }
+            ops[opCount++] = value;
+        }
+
+
+        private void addNumbers(double... values) {
+            if (numberCount + values.length > numbers.length) {
+                numbers = Arrays.copyOf(numbers,
+                                        Math.max(numbers.length * 2, numberCount + values.length));
+            }
+            System.arraycopy(values, 0, numbers, numberCount, values.length);
+            numberCount += values.length;
+        }
+
+
+        private int addString(String value) {
+            return stringIndex.computeIfAbsent(value, s -> {
+                strings.add(s);
+                return strings.size() - 1;
+            });
+        }
+
+
+        private int addObject(Object value) {
+            // Paints, Fonts and FillRules are immutable and implement equals(),
+            // so equal values can be shared between all nodes
+            return objectIndex.computeIfAbsent(value, o -> {
+                objects.add(o);
+                return objects.size() - 1;
+            });
+        }
+
+
+        SvgTemplate toTemplate() {
+            return new SvgTemplate(Arrays.copyOf(ops, opCount),
+                                   Arrays.copyOf(numbers, numberCount),
+                                   strings.toArray(new String[strings.size()]),
+                                   objects.toArray(),
+                                   nodeCount);
+        }
+    }
+}
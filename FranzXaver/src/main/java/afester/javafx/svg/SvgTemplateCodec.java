@@ -0,0 +1,295 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.CycleMethod;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.paint.Stop;
+import javafx.scene.shape.FillRule;
+import javafx.scene.text.Font;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+
+/**
+ * Reads and writes SvgTemplates in the binary compiled SVG format
+ * (<code>.svgc</code>).
+ * <p>
+ * The format is a direct image of the template's display list, so that
+ * reading it only requires bulk copies of the int and double arrays and
+ * the creation of the shared strings and paints. All values are stored
+ * in big endian byte order:</p>
+ * <pre>
+ * int      magic ("SVGC")
+ * int      format version
+ * int      node count
+ * int      op count,     int[op count]
+ * int      number count, double[number count]
+ * int      string count, (int byte count, UTF-8 bytes)[string count]
+ * int      object count, (byte type, type specific data)[object count]
+ * </pre>
+ */
+final class SvgTemplateCodec {
+
+    static final int MAGIC = 0x53564743;   // "SVGC"
+    static final int VERSION = 1;
+
+    // object types
+    private static final byte COLOR = 1;
+    private static final byte LINEAR_GRADIENT = 2;
+    private static final byte RADIAL_GRADIENT = 3;
+    private static final byte FONT = 4;
+    private static final byte FILL_RULE = 5;
+
+    private SvgTemplateCodec() {
+    }
+
+
+    /**
+     * Writes a template in the binary compiled SVG format.
+     *
+     * @param template The template to write.
+     * @param output The stream to write the template to.
+     *
+     * @throws IOException if writing to the stream failed.
+     */
+    static void write(SvgTemplate template, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(template.getNodeCount());
+
+        int[] ops = template.getOps();
+        out.writeInt(ops.length);
+        for (int op : ops) {
+            out.writeInt(op);
+        }
+
+        double[] numbers = template.getNumbers();
+        out.writeInt(numbers.length);
+        for (double number : numbers) {
+            out.writeDouble(number);
+        }
+
+        String[] strings = template.getStrings();
+        out.writeInt(strings.length);
+        for (String string : strings) {
+            writeString(out, string);
+        }
+
+        Object[] objects = template.getObjects();
+        out.writeInt(objects.length);
+        for (Object object : objects) {
+            writeObject(out, object);
+        }
+
+        out.flush();
+    }
+
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // DataOutputStream.writeUTF() is limited to 64k, which is not sufficient
+        // for the content of larger paths
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    private static void writeObject(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Color) {
+            out.writeByte(COLOR);
+            writeColor(out, (Color) value);
+        } else if (value instanceof LinearGradient) {
+            LinearGradient gradient = (LinearGradient) value;
+            out.writeByte(LINEAR_GRADIENT);
+            out.writeDouble(gradient.getStartX());
+            out.writeDouble(gradient.getStartY());
+            out.writeDouble(gradient.getEndX());
+            out.writeDouble(gradient.getEndY());
+            out.writeBoolean(gradient.isProportional());
+            out.writeByte(gradient.getCycleMethod().ordinal());
+            writeStops(out, gradient.getStops());
+        } else if (value instanceof RadialGradient) {
+            RadialGradient gradient = (RadialGradient) value;
+            out.writeByte(RADIAL_GRADIENT);
+            out.writeDouble(gradient.getFocusAngle());
+            out.writeDouble(gradient.getFocusDistance());
+            out.writeDouble(gradient.getCenterX());
+            out.writeDouble(gradient.getCenterY());
+            out.writeDouble(gradient.getRadius());
+            out.writeBoolean(gradient.isProportional());
+            out.writeByte(gradient.getCycleMethod().ordinal());
+            writeStops(out, gradient.getStops());
+        } else if (value instanceof Font) {
+            Font font = (Font) value;
+            out.writeByte(FONT);
+            writeString(out, font.getName());
+            out.writeDouble(font.getSize());
+        } else if (value instanceof FillRule) {
+            out.writeByte(FILL_RULE);
+            out.writeByte(((FillRule) value).ordinal());
+        } else {
+            throw new IllegalArgumentException("Unsupported object type: " + value.getClass());
+        }
+    }
+
+
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        out.writeDouble(color.getRed());
+        out.writeDouble(color.getGreen());
+        out.writeDouble(color.getBlue());
+        out.writeDouble(color.getOpacity());
+    }
+
+
+    private static void writeStops(DataOutputStream out, List<Stop> stops) throws IOException {
+        out.writeInt(stops.size());
+        for (Stop stop : stops) {
+            out.writeDouble(stop.getOffset());
+            writeColor(out, stop.getColor());
+        }
+    }
+
+
+    /**
+     * Reads a template in the binary compiled SVG format.
+     * All data is copied out of the buffer, so that the buffer can be
+     * released as soon as this method returns.
+     *
+     * @param buffer The buffer which contains the template, starting at
+     *               its current position.
+     *
+     * @return The template.
+     *
+     * @throws IllegalArgumentException if the buffer does not contain a valid template.
+     */
+    static SvgTemplate read(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a compiled SVG file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported compiled SVG version " + version);
+            }
+            final int nodeCount = buffer.getInt();
+
+            int[] ops = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(ops);
+            buffer.position(buffer.position() + ops.length * Integer.BYTES);
+
+            double[] numbers = new double[buffer.getInt()];
+            buffer.asDoubleBuffer().get(numbers);
+            buffer.position(buffer.position() + numbers.length * Double.BYTES);
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0;  i < strings.length;  i++) {
+                strings[i] = readString(buffer);
+            }
+
+            Object[] objects = new Object[buffer.getInt()];
+            for (int i = 0;  i < objects.length;  i++) {
+                objects[i] = readObject(buffer);
+            }
+
+            return new SvgTemplate(ops, numbers, strings, objects, nodeCount);
+        } catch (BufferUnderflowException bue) {
+            throw new IllegalArgumentException("Truncated compiled SVG file", bue);
+        }
+    }
+
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private static Object readObject(ByteBuffer buffer) {
+        final byte type = buffer.get();
+        switch (type) {
+          case COLOR :
+              return readColor(buffer);
+
+          case LINEAR_GRADIENT : {
+              final double startX = buffer.getDouble();
+              final double startY = buffer.getDouble();
+              final double endX = buffer.getDouble();
+              final double endY = buffer.getDouble();
+              final boolean proportional = buffer.get() != 0;
+              final CycleMethod cycleMethod = CycleMethod.values()[buffer.get()];
+              return new LinearGradient(startX, startY, endX, endY, proportional,
+                                        cycleMethod, readStops(buffer));
+          }
+
+          case RADIAL_GRADIENT : {
+              final double focusAngle = buffer.getDouble();
+              final double focusDistance = buffer.getDouble();
+              final double centerX = buffer.getDouble();
+              final double centerY = buffer.getDouble();
+              final double radius = buffer.getDouble();
+              final boolean proportional = buffer.get() != 0;
+              final CycleMethod cycleMethod = CycleMethod.values()[buffer.get()];
+              return new RadialGradient(focusAngle, focusDistance, centerX, centerY, radius,
+                                        proportional, cycleMethod, readStops(buffer));
+          }
+
+          case FONT : {
+              final String name = readString(buffer);
+              return new Font(name, buffer.getDouble());
+          }
+
+          case FILL_RULE :
+              return FillRule.values()[buffer.get()];
+
+          default :
+              throw new IllegalArgumentException("Invalid object type " + type);
+        }
+    }
+
+
+    private static Color readColor(ByteBuffer buffer) {
+        final double red = buffer.getDouble();
+        final double green = buffer.getDouble();
+        final double blue = buffer.getDouble();
+        return new Color(red, green, blue, buffer.getDouble());
+    }
+
+
+    private static Stop[] readStops(ByteBuffer buffer) {
+        Stop[] result = new Stop[buffer.getInt()];
+        for (int i = 0;  i < result.length;  i++) {
+            final double offset = buffer.getDouble();
+            result[i] = new Stop(offset, readColor(buffer));
+        }
+        return result;
+    }
+}
@@ -75,6 +75,28 @@ public class TransformationOperations {
      *         translation, scale, rotation, and skew of the given transformation matrix. 
      */
     public static TransformationOperations getFromSvg(SVGMatrix matrix) {
+        return getFromMatrix(matrix.getA(), matrix.getB(), matrix.getC(),
+                             matrix.getD(), matrix.getE(), matrix.getF());
+    }
+
+
+    /**
+     * Creates a {@link TransformationOperations} object from the six components
+     * of an SVG transformation matrix, as they appear in an SVG 
+     * <code>matrix(a,b,c,d,e,f)</code> specification.
+     *
+     * @param matA The a component of the matrix.
+     * @param matB The b component of the matrix.
+     * @param matC The c component of the matrix.
+     * @param matD The d component of the matrix.
+     * @param matE The e component (x translation) of the matrix.
+     * @param matF The f component (y translation) of the matrix.
+     *
+     * @return A {@link TransformationOperations} object which contains the
+     *         translation, scale, rotation, and skew of the given transformation matrix. 
+     */
+    static TransformationOperations getFromMatrix(double matA, double matB, double matC,
+                                                  double matD, double matE, double matF) {
         TransformationOperations result = new TransformationOperations();
     
         // http://stackoverflow.com/a/32125700/1611055
@@ -83,15 +105,13 @@ public class TransformationOperations {
         //      [   b    d   0   f  ]
         //      [   0    0   0   0 ]
     
-        result.rotation = Math.atan2(matrix.getC(), matrix.getA());
-        double denom = Math.pow(matrix.getA(), 2) + Math.pow(matrix.getC(), 2);
+        result.rotation = Math.atan2(matC, matA);
+        double denom = Math.pow(matA, 2) + Math.pow(matC, 2);
         result.scaleX = Math.sqrt(denom);
-        result.scaleY = (matrix.getA() * matrix.getD() - matrix.getB() * matrix.getC()) 
-                        / result.scaleX;
-        result.skewX = Math.atan2(matrix.getA() * matrix.getB() + matrix.getC() *  matrix.getD(),
-                                  denom);
-        result.transX = matrix.getE();
-        result.transY = matrix.getF();
+        result.scaleY = (matA * matD - matB * matC) / result.scaleX;
+        result.skewX = Math.atan2(matA * matB + matC *  matD, denom);
+        result.transX = matE;
+        result.transY = matF;
 
         return result;
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+
+public class AsyncLoaderTests {
+
+    @Test
+    public void testLoadAsync() throws InterruptedException, ExecutionException, IOException {
+        Group expected = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+
+        SvgLoader loader = new SvgLoader();
+        CompletableFuture<Group> fromPath =
+                loader.loadSvgAsync(Paths.get("data/Ghostscript_Tiger.svg"),
+                                    ForkJoinPool.commonPool());
+        CompletableFuture<Group> fromStream =
+                loader.loadSvgAsync(new FileInputStream("data/Ghostscript_Tiger.svg"),
+                                    ForkJoinPool.commonPool());
+
+        assertSameTree(expected, fromPath.get());
+        assertSameTree(expected, fromStream.get());
+    }
+
+
+    @Test
+    public void testCancel() throws InterruptedException, ExecutionException {
+        List<Runnable> tasks = new ArrayList<>();
+        SvgLoader loader = new SvgLoader();
+        CompletableFuture<Group> cancelled =
+                loader.loadSvgAsync(Paths.get("data/Ghostscript_Tiger.svg"), tasks::add);
+        CompletableFuture<Group> superseding =
+                loader.loadSvgAsync(Paths.get("data/bluerect.svg"), tasks::add);
+
+        cancelled.cancel(false);
+        tasks.forEach(Runnable::run);
+
+        assertTrue(cancelled.isCancelled());
+        assertSameTree(new SvgLoader().loadSvg("data/bluerect.svg"), superseding.get());
+    }
+
+
+    @Test
+    public void testCancelWhileParsing() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicReference<CompletableFuture<Group>> load = new AtomicReference<>();
+        AtomicInteger reads = new AtomicInteger();
+        InputStream input = new FilterInputStream(
+                new FileInputStream("data/Ghostscript_Tiger.svg")) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                // the load is cancelled while the parser reads the document
+                reads.incrementAndGet();
+                load.get().cancel(false);
+                return super.read(buffer, offset, Math.min(length, 1024));
+            }
+        };
+
+        load.set(new SvgLoader().loadSvgAsync(input, tasks::add));
+        tasks.forEach(Runnable::run);
+
+        assertTrue(load.get().isCancelled());
+        assertEquals(1, reads.get());
+    }
+
+
+    @Test
+    public void testLoadFailure() throws InterruptedException {
+        CompletableFuture<Group> result =
+                new SvgLoader().loadSvgAsync(Paths.get("data/doesNotExist.svg"), Runnable::run);
+
+        try {
+            result.get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException ee) {
+            assertNotNull(ee.getCause());
+        }
+    }
+}
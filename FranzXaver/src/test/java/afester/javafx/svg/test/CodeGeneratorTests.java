@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import afester.javafx.svg.SvgCodeGenerator;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+
+
+public class CodeGeneratorTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+    @SuppressWarnings("unchecked")
+    private void assertSameResult(String fileName) throws Exception {
+        Path sourceDir = tempFolder.newFolder().toPath();
+        Path javaFile = SvgCodeGenerator.generate(Paths.get(fileName), sourceDir, "generated");
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Test requires a JDK", compiler);
+        int result = compiler.run(null, null, null,
+                                  "-classpath", System.getProperty("java.class.path"),
+                                  "-d", sourceDir.toString(), javaFile.toString());
+        assertEquals(0, result);
+
+        String simpleName = SvgCodeGenerator.getClassName(new File(fileName).getName());
+        try (URLClassLoader classLoader =
+                new URLClassLoader(new URL[] {sourceDir.toUri().toURL()},
+                                   getClass().getClassLoader())) {
+            Class<?> factoryClass = classLoader.loadClass("generated." + simpleName);
+            Supplier<Group> factory =
+                    (Supplier<Group>) factoryClass.getDeclaredConstructor().newInstance();
+
+            Group expected = new SvgLoader().loadSvg(fileName);
+            assertSameTree(expected, factory.get());
+            assertSameTree(expected, factory.get());
+        }
+    }
+
+
+    @Test
+    public void testClassName() {
+        assertEquals("SvgMeter", SvgCodeGenerator.getClassName("meter.svg"));
+        assertEquals("Svg7segment", SvgCodeGenerator.getClassName("7segment.svg"));
+        assertEquals("SvgGhostscriptTiger",
+                     SvgCodeGenerator.getClassName("Ghostscript-Tiger.svg"));
+    }
+
+
+    @Test
+    public void testBasicShapes() throws Exception {
+        assertSameResult("data/redline.svg");
+        assertSameResult("data/bluerect.svg");
+        assertSameResult("data/circle.svg");
+        assertSameResult("data/ellipse.svg");
+        assertSameResult("data/simpletext.svg");
+    }
+
+
+    @Test
+    public void testGradients() throws Exception {
+        assertSameResult("data/lineargradient.svg");
+        assertSameResult("data/radialgradient.svg");
+    }
+
+
+    @Test
+    public void testTiger() throws Exception {
+        assertSameResult("data/Ghostscript_Tiger.svg");
+    }
+
+
+    @Test
+    public void testLongPathData() throws Exception {
+        // the path data exceeds the size of a single string constant
+        StringBuilder pathData = new StringBuilder("M0,0");
+        for (int i = 0;  pathData.length() < 100000;  i++) {
+            pathData.append(" L").append(i % 500).append('.').append(i % 7)
+                    .append(',').append(i % 311).append(".25");
+        }
+        Path svgFile = tempFolder.newFile("longpath.svg").toPath();
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"500\" height=\"500\">"
+                   + "<path d=\"" + pathData + "\" stroke=\"#000000\"/></svg>";
+        Files.write(svgFile, svg.getBytes(StandardCharsets.UTF_8));
+
+        assertSameResult(svgFile.toString());
+    }
+
+
+    @Test(expected = IOException.class)
+    public void testMissingFile() throws IOException {
+        SvgCodeGenerator.generate(Paths.get("data/doesNotExist.svg"),
+                                  tempFolder.getRoot().toPath(), "generated");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+
+import afester.javafx.svg.SvgCompiler;
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgSceneCache;
+import afester.javafx.svg.SvgTemplate;
+
+import javafx.scene.Group;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+
+public class CompiledSvgTests {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+    private void assertSameResult(String fileName) throws IOException {
+        Group expected = new SvgLoader().loadSvg(fileName);
+
+        Path svgcFile = tempFolder.getRoot().toPath().resolve("result.svgc");
+        SvgCompiler.compile(Paths.get(fileName), svgcFile);
+
+        SvgTemplate template = new SvgLoader().loadCompiledTemplate(svgcFile);
+        assertSameTree(expected, template.instantiate());
+
+        template = new SvgLoader().loadCompiledTemplate(svgcFile.toUri().toURL());
+        assertSameTree(expected, template.instantiate());
+    }
+
+
+    @Test
+    public void testBasicShapes() throws IOException {
+        assertSameResult("data/redline.svg");
+        assertSameResult("data/bluerect.svg");
+        assertSameResult("data/circle.svg");
+        assertSameResult("data/ellipse.svg");
+        assertSameResult("data/simpletext.svg");
+    }
+
+
+    @Test
+    public void testGradients() throws IOException {
+        assertSameResult("data/lineargradient.svg");
+        assertSameResult("data/radialgradient.svg");
+    }
+
+
+    @Test
+    public void testTiger() throws IOException {
+        assertSameResult("data/Ghostscript_Tiger.svg");
+    }
+
+
+    @Test
+    public void testCache() throws IOException {
+        Path svgcFile = tempFolder.getRoot().toPath().resolve("tiger.svgc");
+        SvgCompiler.compile(Paths.get("data/Ghostscript_Tiger.svg"), svgcFile);
+
+        SvgSceneCache cache = new SvgSceneCache(4);
+        Group actual = cache.load(svgcFile.toUri().toURL());
+        assertSameTree(new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg"), actual);
+        assertEquals(1, cache.getMissCount());
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFile() throws IOException {
+        Path svgcFile = tempFolder.newFile("invalid.svgc").toPath();
+        Files.write(svgcFile, "<svg></svg>".getBytes("UTF-8"));
+
+        new SvgLoader().loadCompiledTemplate(svgcFile);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import afester.javafx.svg.SvgDocumentBinding;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+
+
+public class DocumentBindingTests {
+
+    @Test
+    public void testAttributeModified() {
+        SvgLoader loader = new SvgLoader();
+        SVGOMDocument document = loader.loadSvgDocument("data/documentbinding.svg");
+        SvgDocumentBinding binding = loader.bindSvgDocument(document);
+        Group drawing = binding.getDrawing();
+
+        Element bodyElement = document.getElementById("body");
+        Rectangle body = (Rectangle) drawing.lookup("#body");
+        assertSame(body, binding.getNode(bodyElement));
+        assertEquals(Color.LIME, body.getFill());
+
+        bodyElement.setAttribute("width", "40");
+        assertEquals(40, body.getWidth(), 0);
+        assertSame(body, drawing.lookup("#body"));
+
+        bodyElement.setAttribute("fill", "#ff0000");
+        assertEquals(Color.RED, body.getFill());
+    }
+
+
+    @Test
+    public void testStyleModified() {
+        SvgLoader loader = new SvgLoader();
+        SVGOMDocument document = loader.loadSvgDocument("data/documentbinding.svg");
+        SvgDocumentBinding binding = loader.bindSvgDocument(document);
+        Rectangle body = (Rectangle) binding.getDrawing().lookup("#body");
+
+        // style changes are applied through the CSS engine
+        Element bodyElement = document.getElementById("body");
+        bodyElement.setAttribute("style", "fill:#ff0000;stroke:#0000ff");
+        assertEquals(Color.RED, body.getFill());
+        assertEquals(Color.BLUE, body.getStroke());
+
+        // the style attribute overrides the presentation attribute
+        bodyElement.setAttribute("fill", "#000000");
+        assertEquals(Color.RED, body.getFill());
+
+        bodyElement.removeAttribute("style");
+        assertEquals(Color.BLACK, body.getFill());
+        assertNull(body.getStroke());
+    }
+
+
+    @Test
+    public void testGroupModified() {
+        SvgLoader loader = new SvgLoader();
+        SVGOMDocument document = loader.loadSvgDocument("data/documentbinding.svg");
+        SvgDocumentBinding binding = loader.bindSvgDocument(document);
+        Group drawing = binding.getDrawing();
+        Rectangle body = (Rectangle) drawing.lookup("#body");
+        Circle knob = (Circle) drawing.lookup("#knob");
+
+        // the fill is inherited by the rectangle, but not by the circle
+        Element valve = document.getElementById("valve");
+        valve.setAttribute("fill", "#0000ff");
+        assertEquals(Color.BLUE, body.getFill());
+        assertEquals(Color.BLACK, knob.getFill());
+
+        valve.setAttribute("transform", "translate(5,7)");
+        Group group = (Group) drawing.lookup("#valve");
+        assertEquals(1, group.getTransforms().size());
+        assertEquals(7, group.getLocalToParentTransform().getTy(), 0);
+
+        // no further updates once the binding is disposed
+        binding.dispose();
+        valve.setAttribute("fill", "#ff0000");
+        assertEquals(Color.BLUE, body.getFill());
+    }
+}
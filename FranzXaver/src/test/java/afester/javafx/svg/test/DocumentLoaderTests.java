@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertNotSame;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.apache.batik.anim.dom.SVGOMDocument;
+
+import org.junit.Test;
+
+
+
+public class DocumentLoaderTests {
+
+    private static final String[] FILES = {
+        "data/redline.svg", "data/bluerect.svg", "data/circle.svg", "data/ellipse.svg",
+        "data/simpletext.svg", "data/lineargradient.svg", "data/radialgradient.svg",
+        "data/gradtrans.svg", "data/Ghostscript_Tiger.svg"
+    };
+
+
+    @Test
+    public void testWithoutRenderTree() {
+        SvgLoader cssOnlyLoader = new SvgLoader();
+        cssOnlyLoader.setBuildRenderTree(false);
+
+        // the same loader is used for all documents to verify that 
+        // reusing the Batik parser state does not affect the results
+        for (String fileName : FILES) {
+            Group expected = new SvgLoader().loadSvg(fileName);
+            Group actual = cssOnlyLoader.loadSvg(fileName);
+            assertSameTree(expected, actual);
+        }
+    }
+
+
+    @Test
+    public void testSeparateCssContexts() {
+        SvgLoader cssOnlyLoader = new SvgLoader();
+        cssOnlyLoader.setBuildRenderTree(false);
+
+        // the CSS engine of a document keeps its context, which must not be
+        // shared with documents which are loaded later
+        SVGOMDocument first = cssOnlyLoader.loadSvgDocument("data/redline.svg");
+        SVGOMDocument second = cssOnlyLoader.loadSvgDocument("data/bluerect.svg");
+        assertNotSame(first.getCSSEngine().getCSSContext(),
+                      second.getCSSEngine().getCSSContext());
+    }
+
+
+    @Test
+    public void testReuseLoader() {
+        SvgLoader loader = new SvgLoader();
+
+        for (String fileName : FILES) {
+            Group expected = new SvgLoader().loadSvg(fileName);
+            Group actual = loader.loadSvg(fileName);
+            assertSameTree(expected, actual);
+        }
+    }
+
+
+    @Test
+    public void testConvertDocument() {
+        SvgLoader loader = new SvgLoader();
+
+        for (String fileName : FILES) {
+            Group expected = new SvgLoader().loadSvg(fileName);
+            SVGOMDocument document = loader.loadSvgDocument(fileName);
+
+            // converting does not modify the document
+            assertSameTree(expected, loader.convertSvgDocument(document));
+            assertSameTree(expected, loader.convertSvgDocument(document));
+        }
+    }
+}
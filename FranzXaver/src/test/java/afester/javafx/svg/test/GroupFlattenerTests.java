@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgGroupFlattener;
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgShapeMerger;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Shape;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+public class GroupFlattenerTests {
+
+    private static void collectShapes(Node node, List<Shape> result) {
+        if (node instanceof Shape) {
+            result.add((Shape) node);
+        } else if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                collectShapes(child, result);
+            }
+        }
+    }
+
+
+    private static int countNodes(Node node) {
+        int result = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                result += countNodes(child);
+            }
+        }
+        return result;
+    }
+
+
+    private static int countTransformed(List<Shape> shapes) {
+        int result = 0;
+        for (Shape shape : shapes) {
+            if (!shape.getTransforms().isEmpty()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+
+    // the bounds of the geometry, without the stroke which JavaFX only approximates
+    private static Bounds getSceneBounds(Shape shape) {
+        Paint stroke = shape.getStroke();
+        shape.setStroke(null);
+        Bounds result = shape.localToScene(shape.getBoundsInLocal());
+        shape.setStroke(stroke);
+        return result;
+    }
+
+
+    private static void assertSameBounds(Bounds expected, Bounds actual) {
+        assertEquals(expected.getMinX(), actual.getMinX(), 0.01);
+        assertEquals(expected.getMinY(), actual.getMinY(), 0.01);
+        assertEquals(expected.getMaxX(), actual.getMaxX(), 0.01);
+        assertEquals(expected.getMaxY(), actual.getMaxY(), 0.01);
+    }
+
+
+    @Test
+    public void testFlattenGroups() {
+        Group drawing = new SvgLoader().loadSvg("data/groupflattener.svg");
+        List<Shape> shapes = new ArrayList<>();
+        collectShapes(drawing, shapes);
+        List<Bounds> expected = new ArrayList<>();
+        for (Shape shape : shapes) {
+            expected.add(getSceneBounds(shape));
+        }
+        final double strokeWidth = shapes.get(0).getStrokeWidth();
+
+        // the two translated and scaled groups are removed, the group with the id
+        // keeps the translation. The rotated group is kept, since the gradient
+        // can not be rotated.
+        int removed = SvgGroupFlattener.flattenGroups(drawing);
+        assertEquals(2, removed);
+        assertEquals(4 + 2, drawing.getChildren().size());
+        assertNotNull(drawing.lookup("#layer"));
+        assertEquals(1, drawing.lookup("#layer").getTransforms().size());
+
+        // all shapes are still at the same position, and only the group
+        // with the rotated shapes is still transformed
+        for (int i = 0;  i < shapes.size();  i++) {
+            Shape shape = shapes.get(i);
+            assertSameBounds(expected.get(i), getSceneBounds(shape));
+        }
+        assertEquals(2 * strokeWidth, shapes.get(0).getStrokeWidth(), 0.001);
+        assertEquals(0, countTransformed(shapes));
+        assertEquals(1, drawing.getChildren().get(5).getTransforms().size());
+    }
+
+
+    @Test
+    public void testFlattenTiger() {
+        SvgLoader loader = new SvgLoader();
+        loader.setFlattenGroups(true, id -> !SvgShapeMerger.isGeneratedId(id));
+        Group drawing = loader.loadSvg("data/Ghostscript_Tiger.svg");
+
+        // each path is in its own group, which is nested in a transformed group
+        assertEquals(1 + 240, countNodes(drawing));
+        List<Shape> shapes = new ArrayList<>();
+        collectShapes(drawing, shapes);
+        assertEquals(0, countTransformed(shapes));
+        assertTrue(drawing.getTransforms().isEmpty());
+
+        // flattening moves the paths next to each other, so that they can be merged
+        loader.setMergeShapes(true, id -> !SvgShapeMerger.isGeneratedId(id));
+        drawing = loader.loadSvg("data/Ghostscript_Tiger.svg");
+        assertTrue(countNodes(drawing) < 1 + 240);
+    }
+}
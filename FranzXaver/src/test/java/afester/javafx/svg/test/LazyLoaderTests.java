@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLazyGroup;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.geometry.BoundingBox;
+import javafx.scene.Group;
+import javafx.scene.shape.Rectangle;
+
+import org.junit.Test;
+
+
+
+public class LazyLoaderTests {
+
+    private static SvgLazyGroup getLayer(Group drawing, int index) {
+        return (SvgLazyGroup) drawing.getChildren().get(index);
+    }
+
+
+    @Test
+    public void testPlaceholders() {
+        Group expected = new SvgLoader().loadSvg("data/lazylayers.svg");
+        Group actual = new SvgLoader().loadSvgLazy("data/lazylayers.svg");
+
+        assertEquals(4, actual.getChildren().size());
+        assertEquals(expected.getLayoutBounds(), actual.getLayoutBounds());
+        for (int i = 0;  i < 4;  i++) {
+            SvgLazyGroup layer = getLayer(actual, i);
+            Group expectedLayer = (Group) expected.getChildren().get(i);
+            assertFalse(layer.isMaterialized());
+            assertEquals(1, layer.getChildren().size());
+            assertEquals(expectedLayer.getId(), layer.getId());
+            assertEquals(expectedLayer.getLayoutBounds(), layer.getContentBounds());
+            assertEquals(expectedLayer.getBoundsInParent(), layer.getBoundsInParent());
+        }
+    }
+
+
+    @Test
+    public void testMaterialize() {
+        Group expected = new SvgLoader().loadSvg("data/lazylayers.svg");
+        Group actual = new SvgLoader().loadSvgLazy("data/lazylayers.svg");
+
+        for (int i = 0;  i < 4;  i++) {
+            SvgLazyGroup layer = getLayer(actual, i);
+            Group expectedLayer = (Group) expected.getChildren().get(i);
+
+            layer.materialize();
+            assertTrue(layer.isMaterialized());
+            assertEquals(10, layer.getChildren().size());
+            for (int j = 0;  j < 10;  j++) {
+                assertSameTree(expectedLayer.getChildren().get(j), layer.getChildren().get(j));
+            }
+
+            layer.release();
+            assertFalse(layer.isMaterialized());
+            assertEquals(1, layer.getChildren().size());
+            assertEquals(expectedLayer.getBoundsInParent(), layer.getBoundsInParent());
+        }
+    }
+
+
+    @Test
+    public void testUpdateVisibility() {
+        Group drawing = new SvgLoader().loadSvgLazy("data/lazylayers.svg");
+
+        // only the second layer is visible
+        SvgLazyGroup.updateVisibility(drawing, new BoundingBox(120, 0, 50, 50), true);
+        assertFalse(getLayer(drawing, 0).isMaterialized());
+        assertTrue(getLayer(drawing, 1).isMaterialized());
+        assertFalse(getLayer(drawing, 2).isMaterialized());
+        assertFalse(getLayer(drawing, 3).isMaterialized());
+
+        // the translated last layer is visible, the second layer is kept
+        SvgLazyGroup.updateVisibility(drawing, new BoundingBox(320, 0, 50, 50), false);
+        assertTrue(getLayer(drawing, 1).isMaterialized());
+        assertTrue(getLayer(drawing, 3).isMaterialized());
+
+        // the second layer is released
+        SvgLazyGroup.updateVisibility(drawing, new BoundingBox(320, 0, 50, 50), true);
+        assertFalse(getLayer(drawing, 1).isMaterialized());
+        assertTrue(getLayer(drawing, 3).isMaterialized());
+    }
+
+
+    @Test
+    public void testBindVisibility() {
+        Group drawing = new SvgLoader().loadSvgLazy("data/lazylayers.svg");
+        Rectangle viewport = new Rectangle(0, 0, 50, 50);
+        new Group(drawing, viewport);
+
+        // only the first layer is visible initially
+        SvgLazyGroup.VisibilityBinding binding =
+                SvgLazyGroup.bindVisibility(drawing, viewport, true);
+        assertTrue(getLayer(drawing, 0).isMaterialized());
+        assertFalse(getLayer(drawing, 1).isMaterialized());
+
+        // moving the viewport shows the second layer
+        viewport.setLayoutX(120);
+        assertFalse(getLayer(drawing, 0).isMaterialized());
+        assertTrue(getLayer(drawing, 1).isMaterialized());
+
+        // moving the drawing shows the third layer
+        drawing.setTranslateX(-100);
+        assertFalse(getLayer(drawing, 1).isMaterialized());
+        assertTrue(getLayer(drawing, 2).isMaterialized());
+
+        // resizing the viewport shows the translated last layer as well
+        viewport.setWidth(150);
+        assertTrue(getLayer(drawing, 2).isMaterialized());
+        assertTrue(getLayer(drawing, 3).isMaterialized());
+
+        // the layers are no longer updated
+        binding.unbind();
+        drawing.setTranslateX(0);
+        assertFalse(getLayer(drawing, 1).isMaterialized());
+        assertTrue(getLayer(drawing, 3).isMaterialized());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLevelOfDetail;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.SVGPath;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+public class LevelOfDetailTests {
+
+    private static void collectNodes(Node node, List<Node> result) {
+        result.add(node);
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                collectNodes(child, result);
+            }
+        }
+    }
+
+
+    private static List<String> getPathContents(List<Node> nodes) {
+        List<String> result = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node instanceof SVGPath) {
+                result.add(((SVGPath) node).getContent());
+            }
+        }
+        return result;
+    }
+
+
+    private static int getVisibleCount(List<Node> nodes) {
+        int result = 0;
+        for (Node node : nodes) {
+            if (node.isVisible()) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+
+    private static int getTotalLength(List<String> contents) {
+        int result = 0;
+        for (String content : contents) {
+            result += content.length();
+        }
+        return result;
+    }
+
+
+    @Test
+    public void testScaleTiger() {
+        Group drawing = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        List<Node> nodes = new ArrayList<>();
+        collectNodes(drawing, nodes);
+        final List<String> original = getPathContents(nodes);
+        final int visible = getVisibleCount(nodes);
+
+        // the original geometry is kept at a scale of 1
+        SvgLevelOfDetail lod = SvgLevelOfDetail.install(drawing);
+        assertEquals(original, getPathContents(nodes));
+        assertEquals(visible, getVisibleCount(nodes));
+
+        // the geometry is simplified at a small scale
+        drawing.setScaleX(0.1);
+        drawing.setScaleY(0.1);
+        List<String> simplified = getPathContents(nodes);
+        assertTrue(getTotalLength(simplified) < getTotalLength(original));
+        assertTrue(getVisibleCount(nodes) < visible);
+
+        // the geometry is restored when zooming in again
+        drawing.setScaleX(2);
+        drawing.setScaleY(2);
+        assertEquals(original, getPathContents(nodes));
+        assertEquals(visible, getVisibleCount(nodes));
+
+        drawing.setScaleX(0.1);
+        drawing.setScaleY(0.1);
+        assertEquals(simplified, getPathContents(nodes));
+
+        lod.uninstall();
+        assertEquals(original, getPathContents(nodes));
+        assertEquals(visible, getVisibleCount(nodes));
+    }
+
+
+    @Test
+    public void testPolyline() {
+        // a zig zag line with an amplitude of 1 unit
+        Group drawing = new SvgLoader().loadSvg("data/zigzag.svg");
+        Polyline line = (Polyline) drawing.getChildren().get(0);
+        assertEquals(202, line.getPoints().size());
+
+        SvgLevelOfDetail lod = SvgLevelOfDetail.install(drawing);
+        lod.setCullSize(0);
+
+        // at a scale of 1/16, the amplitude is below the tolerance
+        drawing.setScaleX(0.0625);
+        drawing.setScaleY(0.0625);
+        assertEquals(4, line.getPoints().size());
+        assertTrue(line.isVisible());
+
+        drawing.setScaleX(1);
+        drawing.setScaleY(1);
+        assertEquals(202, line.getPoints().size());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLiveReload;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.transform.Rotate;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+
+
+public class LiveReloadTests {
+
+    private static Group load(String fileName) {
+        return new SvgLoader().loadSvg(fileName);
+    }
+
+
+    @Test
+    public void testReconcileUnchanged() {
+        Group drawing = load("data/livereload.svg");
+        Node box = drawing.lookup("#box");
+
+        assertEquals(0, SvgLiveReload.reconcile(drawing, load("data/livereload.svg")));
+        assertSame(box, drawing.lookup("#box"));
+    }
+
+
+    @Test
+    public void testReconcile() {
+        Group drawing = load("data/livereload.svg");
+        Group layer = (Group) drawing.lookup("#layer");
+        Rectangle box = (Rectangle) drawing.lookup("#box");
+        SVGPath path = (SVGPath) layer.getChildren().get(1);
+        box.setUserData("state");
+
+        // box and path are updated, a circle is inserted and one is removed
+        assertEquals(4, SvgLiveReload.reconcile(drawing, load("data/livereloadmodified.svg")));
+        assertSame(layer, drawing.lookup("#layer"));
+        assertEquals(3, layer.getChildren().size());
+        assertNull(drawing.lookup("#dot"));
+
+        Circle circle = (Circle) layer.getChildren().get(0);
+        assertEquals(80, circle.getCenterX(), 0);
+        assertSame(box, layer.getChildren().get(1));
+        assertEquals(15, box.getX(), 0);
+        assertEquals(Color.BLUE, box.getFill());
+        assertEquals("state", box.getUserData());
+        assertSame(path, layer.getChildren().get(2));
+        assertEquals(20, path.getLayoutBounds().getMaxX(), 0.001);
+        assertTrue(path.getContent().contains("20"));
+    }
+
+
+    @Test
+    public void testApplicationTransforms() throws IOException {
+        Path svgFile = Files.createTempFile("livereload", ".svg");
+        Files.copy(Paths.get("data/livereload.svg"), svgFile, StandardCopyOption.REPLACE_EXISTING);
+        Group drawing = load(svgFile.toString());
+        Node layer = drawing.lookup("#layer");
+        Rotate rotate = new Rotate(45);
+
+        try (SvgLiveReload liveReload = SvgLiveReload.watch(new SvgLoader(), svgFile, drawing)) {
+            layer.getTransforms().add(rotate);
+
+            // the transformation of the loader is replaced, the rotation is kept
+            assertEquals(1, liveReload.update(load("data/livereloadmoved.svg")));
+            assertEquals(2, layer.getTransforms().size());
+            assertEquals(10, layer.getTransforms().get(0).getTx(), 0);
+            assertSame(rotate, layer.getTransforms().get(1));
+
+            assertEquals(1, liveReload.update(load("data/livereload.svg")));
+            assertEquals(Arrays.asList(rotate), layer.getTransforms());
+        } finally {
+            Files.delete(svgFile);
+        }
+    }
+}
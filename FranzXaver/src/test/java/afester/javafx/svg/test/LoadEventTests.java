@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+public class LoadEventTests {
+
+    private static final String LOAD_EVENT = "afester.javafx.svg.Load";
+    private static final String PHASE_EVENT = "afester.javafx.svg.LoadPhase";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+    private List<RecordedEvent> record(SvgLoader loader, String fileName) throws IOException {
+        Path recordingFile = tempFolder.newFile().toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(LOAD_EVENT);
+            recording.enable(PHASE_EVENT);
+            recording.start();
+            loader.loadSvg(fileName);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> result = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            String name = event.getEventType().getName();
+            if (name.equals(LOAD_EVENT) || name.equals(PHASE_EVENT)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+
+    private static List<String> getPhases(List<RecordedEvent> events) {
+        List<String> result = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(PHASE_EVENT)) {
+                result.add(event.getString("phase"));
+            }
+        }
+        return result;
+    }
+
+
+    private static RecordedEvent getLoadEvent(List<RecordedEvent> events) {
+        RecordedEvent result = null;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(LOAD_EVENT)) {
+                assertEquals(null, result);
+                result = event;
+            }
+        }
+        return result;
+    }
+
+
+    @Test
+    public void testDomLoad() throws IOException {
+        final String fileName = "data/lineargradient.svg";
+        List<RecordedEvent> events = record(new SvgLoader(), fileName);
+
+        List<String> phases = getPhases(events);
+        assertTrue(phases.toString(), phases.contains("parse"));
+        assertTrue(phases.toString(), phases.contains("gvt"));
+        assertTrue(phases.toString(), phases.contains("convert"));
+
+        RecordedEvent load = getLoadEvent(events);
+        assertEquals(fileName, load.getString("documentId"));
+        assertEquals("dom", load.getString("parser"));
+        assertEquals(new File(fileName).length(), load.getLong("byteSize"));
+        assertEquals(2, load.getInt("gradientCount"));
+        assertTrue(load.getInt("styleCount") > 0);
+        assertTrue(load.getInt("resolvedStyleCount") > 0);
+        assertTrue(load.getInt("paintCount") >= 2);
+        assertTrue(load.getString("elementCounts").contains("linearGradient=2"));
+        assertTrue(load.getBoolean("success"));
+    }
+
+
+    @Test
+    public void testStreamingLoad() throws IOException {
+        final String fileName = "data/Ghostscript_Tiger.svg";
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        List<RecordedEvent> events = record(loader, fileName);
+
+        assertEquals("[stream]", getPhases(events).toString());
+
+        RecordedEvent load = getLoadEvent(events);
+        assertEquals("streaming", load.getString("parser"));
+        assertEquals(new File(fileName).length(), load.getLong("byteSize"));
+        assertTrue(load.getInt("elementCount") > 200);
+        assertTrue(load.getInt("paintCount") > 0);
+        assertTrue(load.getBoolean("success"));
+    }
+
+
+    @Test
+    public void testUnusedPaints() throws IOException {
+        // only the referenced gradient and the stroke color are counted as paints
+        final String fileName = "data/unusedgradient.svg";
+        RecordedEvent load = getLoadEvent(record(new SvgLoader(), fileName));
+        assertEquals(2, load.getInt("gradientCount"));
+        assertEquals(2, load.getInt("paintCount"));
+
+        SvgLoader streamingLoader = new SvgLoader();
+        streamingLoader.setUseStreamingParser(true);
+        load = getLoadEvent(record(streamingLoader, fileName));
+        assertEquals(2, load.getInt("paintCount"));
+    }
+}
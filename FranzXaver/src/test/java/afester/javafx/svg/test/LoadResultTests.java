@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoadResult;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+import org.junit.Test;
+
+import java.util.List;
+
+
+
+public class LoadResultTests {
+
+    private static void checkResult(SvgLoadResult result) {
+        Group drawing = result.getDrawing();
+
+        // the first node with an id, like Node.lookup()
+        Node segA = result.getNode("segA");
+        assertSame(drawing.lookup("#segA"), segA);
+        assertEquals(10, ((Rectangle) segA).getWidth(), 0);
+        assertSame(drawing.lookup("#digit"), result.getNode("digit"));
+        assertSame(drawing.lookup("#dp"), result.getNode("dp"));
+
+        // elements within <defs> are not part of the drawing
+        assertNull(result.getNode("dot"));
+        assertNull(result.getNode("unknown"));
+
+        List<Node> segments = result.getNodes("segment");
+        assertEquals(3, segments.size());
+        assertSame(segA, segments.get(0));
+        assertSame(result.getNode("segB"), segments.get(1));
+        assertTrue(segments.get(2) instanceof Circle);
+
+        assertEquals(1, result.getNodes("on").size());
+        assertEquals(1, result.getNodes("display").size());
+        assertEquals(1, result.getNodes("decimal").size());
+        assertTrue(result.getNodes("off").isEmpty());
+    }
+
+
+    @Test
+    public void testDomLoader() {
+        checkResult(new SvgLoader().loadSvgIndexed("data/loadresult.svg"));
+    }
+
+
+    @Test
+    public void testStreamingLoader() {
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        checkResult(loader.loadSvgIndexed("data/loadresult.svg"));
+    }
+
+
+    @Test
+    public void testOptimizedDrawing() {
+        SvgLoader loader = new SvgLoader();
+        loader.setFlattenGroups(true, id -> false);
+        SvgLoadResult result = loader.loadSvgIndexed("data/loadresult.svg");
+
+        // the group has been removed from the drawing, and from the index
+        assertNull(result.getDrawing().lookup("#digit"));
+        assertNull(result.getNode("digit"));
+        assertTrue(result.getNodes("display").isEmpty());
+        assertSame(result.getDrawing().lookup("#segB"), result.getNode("segB"));
+    }
+
+
+    @Test
+    public void testIndexExistingDrawing() {
+        Group drawing = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        SvgLoadResult result = SvgLoadResult.index(drawing);
+
+        assertTrue(result.getIds().size() > 100);
+        for (String id : result.getIds()) {
+            assertSame(drawing.lookup("#" + id), result.getNode(id));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgPaintPool;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Shape;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+
+
+public class PaintPoolTests {
+
+    private static void collectPaints(Node node, List<Paint> paints) {
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                collectPaints(child, paints);
+            }
+        } else if (node instanceof Shape) {
+            Shape shape = (Shape) node;
+            if (shape.getFill() != null) {
+                paints.add(shape.getFill());
+            }
+            if (shape.getStroke() != null) {
+                paints.add(shape.getStroke());
+            }
+        }
+    }
+
+
+    private static Paint getFirstPaint(Group drawing) {
+        List<Paint> paints = new ArrayList<>();
+        collectPaints(drawing, paints);
+        return paints.get(0);
+    }
+
+
+    private static void assertCanonical(Group drawing) {
+        List<Paint> paints = new ArrayList<>();
+        collectPaints(drawing, paints);
+        assertTrue(paints.size() > 100);
+
+        // each distinct paint is represented by a single instance
+        Set<Paint> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        instances.addAll(paints);
+        assertEquals(new HashSet<>(paints).size(), instances.size());
+    }
+
+
+    @Test
+    public void testCanonicalPaints() {
+        assertCanonical(new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg"));
+
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        assertCanonical(loader.loadSvg("data/Ghostscript_Tiger.svg"));
+    }
+
+
+    @Test
+    public void testSharedPool() {
+        SvgPaintPool pool = new SvgPaintPool();
+        SvgLoader loader = new SvgLoader();
+        loader.setPaintPool(pool);
+
+        Paint first = getFirstPaint(loader.loadSvg("data/bluerect.svg"));
+        final int size = pool.size();
+        assertTrue(size > 0);
+        Paint second = getFirstPaint(loader.loadSvg("data/bluerect.svg"));
+        assertSame(first, second);
+        assertEquals(size, pool.size());
+
+        // without a shared pool, each document has its own paints
+        Paint third = getFirstPaint(new SvgLoader().loadSvg("data/bluerect.svg"));
+        assertEquals(first, third);
+        assertNotSame(first, third);
+    }
+
+
+    @Test
+    public void testIntern() {
+        SvgPaintPool pool = new SvgPaintPool();
+        Color red = pool.getColor(1, 0, 0, 1);
+        assertSame(red, pool.intern(Color.RED));
+        assertSame(red, pool.getColor(1, 0, 0, 1));
+        assertNotSame(red, pool.getColor(1, 0, 0, 0.5));
+        assertNull(pool.intern(null));
+        assertEquals(2, pool.size());
+
+        pool.clear();
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+
+public class ParallelLoaderTests {
+
+    private static final String[] FILES = {
+        "data/Ghostscript_Tiger.svg",
+        "data/redline.svg",
+        "data/bluerect.svg",
+        "data/circle.svg",
+        "data/ellipse.svg",
+        "data/simpletext.svg",
+        "data/lineargradient.svg",
+        "data/radialgradient.svg",
+    };
+
+
+    private static void assertLoadAll(SvgLoader loader) {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0;  i < 4;  i++) {
+            for (String fileName : FILES) {
+                paths.add(Paths.get(fileName));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Group> result = loader.loadAll(paths, executor);
+
+            assertEquals(paths.size(), result.size());
+            for (int i = 0;  i < paths.size();  i++) {
+                Group expected = new SvgLoader().loadSvg(paths.get(i).toString());
+                assertSameTree(expected, result.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testLoadAll() {
+        assertLoadAll(new SvgLoader());
+    }
+
+
+    @Test
+    public void testLoadAllStreaming() {
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        assertLoadAll(loader);
+    }
+
+
+    @Test
+    public void testLoadAllMissingFile() {
+        List<Path> paths = new ArrayList<>();
+        paths.add(Paths.get("data/redline.svg"));
+        paths.add(Paths.get("data/doesNotExist.svg"));
+
+        List<Group> result = new SvgLoader().loadAll(paths);
+        assertEquals(2, result.size());
+        assertNull(result.get(1));
+    }
+
+
+    @Test
+    public void testLoadAllConversionError() throws IOException {
+        // multiple transformations are not supported and abort the conversion
+        Path invalid = Files.createTempFile("invalid", ".svg");
+        try {
+            Files.write(invalid, ("<svg xmlns=\"http://www.w3.org/2000/svg\">"
+                                + "<rect width=\"10\" height=\"10\" "
+                                +       "transform=\"translate(1,1) scale(2)\"/>"
+                                + "</svg>").getBytes(StandardCharsets.UTF_8));
+
+            List<Path> paths = new ArrayList<>();
+            paths.add(Paths.get("data/redline.svg"));
+            paths.add(invalid);
+            paths.add(Paths.get("data/bluerect.svg"));
+
+            List<Group> result = new SvgLoader().loadAll(paths);
+            assertEquals(3, result.size());
+            assertNotNull(result.get(0));
+            assertNull(result.get(1));
+            assertNotNull(result.get(2));
+        } finally {
+            Files.delete(invalid);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgPathData;
+
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.CubicCurveTo;
+import javafx.scene.shape.LineTo;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.PathElement;
+import javafx.scene.shape.QuadCurveTo;
+
+import org.apache.batik.parser.AWTPathProducer;
+import org.junit.Test;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+
+
+public class PathDataTests {
+
+    // the bounds of the flattened geometry, without the control points
+    private static Rectangle2D getBounds(Shape shape) {
+        Rectangle2D result = null;
+        double[] coords = new double[6];
+        for (PathIterator i = shape.getPathIterator(null, 0.001);  !i.isDone();  i.next()) {
+            if (i.currentSegment(coords) != PathIterator.SEG_CLOSE) {
+                if (result == null) {
+                    result = new Rectangle2D.Double(coords[0], coords[1], 0, 0);
+                } else {
+                    result.add(coords[0], coords[1]);
+                }
+            }
+        }
+        return result;
+    }
+
+
+    private static void assertBounds(String content, double minX, double minY,
+                                     double maxX, double maxY) {
+        Rectangle2D actual = getBounds(SvgPathData.parse(content).toPath2D());
+        assertEquals(minX, actual.getMinX(), 0.001);
+        assertEquals(minY, actual.getMinY(), 0.001);
+        assertEquals(maxX, actual.getMaxX(), 0.001);
+        assertEquals(maxY, actual.getMaxY(), 0.001);
+    }
+
+
+    private static void assertSameBounds(String content) throws Exception {
+        Rectangle2D expected = getBounds(AWTPathProducer.createShape(new StringReader(content),
+                                                                     Path2D.WIND_NON_ZERO));
+        SvgPathData path = SvgPathData.parse(content);
+        assertFalse(path.hasError());
+
+        Rectangle2D actual = getBounds(path.toPath2D());
+        assertEquals(expected.getMinX(), actual.getMinX(), 0.01);
+        assertEquals(expected.getMinY(), actual.getMinY(), 0.01);
+        assertEquals(expected.getMaxX(), actual.getMaxX(), 0.01);
+        assertEquals(expected.getMaxY(), actual.getMaxY(), 0.01);
+    }
+
+
+    @Test
+    public void testAbsoluteCommands() {
+        SvgPathData path = SvgPathData.parse("M10,20 L30,40 H50 V60 Q70,80 90,100 "
+                                           + "C110,120 130,140 150,160 Z");
+        assertFalse(path.hasError());
+        assertEquals(7, path.getSegmentCount());
+        assertEquals(SvgPathData.MOVE_TO, path.getSegmentType(0));
+        assertEquals(SvgPathData.LINE_TO, path.getSegmentType(2));
+        assertEquals(SvgPathData.LINE_TO, path.getSegmentType(3));
+        assertEquals(SvgPathData.QUAD_TO, path.getSegmentType(4));
+        assertEquals(SvgPathData.CUBIC_TO, path.getSegmentType(5));
+        assertEquals(SvgPathData.CLOSE, path.getSegmentType(6));
+        assertArrayEquals(new double[] {10, 20,  30, 40,  50, 40,  50, 60,  70, 80, 90, 100,
+                                        110, 120, 130, 140, 150, 160},
+                          path.getCoordinates(), 0);
+    }
+
+
+    @Test
+    public void testRelativeCommands() {
+        // further coordinates of a move to are line tos, and a relative
+        // command after a close path is relative to the start of the sub path
+        SvgPathData path = SvgPathData.parse("m10 10 10 0 0 10z m5 5 h5 v5 c1 1 2 2 3 3");
+        assertFalse(path.hasError());
+        assertEquals("M10,10L20,10L20,20ZM15,15L20,15L20,20C21,21 22,22 23,23",
+                     path.toContent());
+    }
+
+
+    @Test
+    public void testSmoothCurves() {
+        SvgPathData path = SvgPathData.parse("M0,0 C0,10 10,10 10,0 S20,-10 20,0 "
+                                           + "Q25,10 30,0 T40,0 M0,0 S5,5 10,0");
+        assertEquals("M0,0C0,10 10,10 10,0C10,-10 20,-10 20,0Q25,10 30,0Q35,-10 40,0"
+                   + "M0,0C0,0 5,5 10,0",
+                     path.toContent());
+    }
+
+
+    @Test
+    public void testNumberFormats() {
+        // numbers can be written without separators, and arc flags are single digits
+        SvgPathData path = SvgPathData.parse("M-.5.5L1e1-1E+1l+2.5e-1,0.25"
+                                           + "A5 5 0 0110 10a5,5,0,1,0,1,1");
+        assertFalse(path.hasError());
+        assertArrayEquals(new double[] {-0.5, 0.5,  10, -10,  10.25, -9.75},
+                          Arrays.copyOf(path.getCoordinates(), 6), 0);
+    }
+
+
+    @Test
+    public void testContentPrecision() {
+        // small drawings keep their geometry, and the content parses back to the same values
+        SvgPathData path = SvgPathData.parse("M0.0001,0.00025L1.23456789,-2.5e-7L1e20,3");
+        assertEquals("M1.0E-4,2.5E-4L1.23456789,-2.5E-7L1.0E20,3", path.toContent());
+        assertArrayEquals(path.getCoordinates(),
+                          SvgPathData.parse(path.toContent()).getCoordinates(), 0);
+    }
+
+
+    @Test
+    public void testArcs() throws Exception {
+        assertBounds("M10,50 A40,40 0 0,1 90,50", 10, 10, 90, 50);
+        assertBounds("M10,50 A40,40 0 1,0 90,50", 10, 50, 90, 90);
+        assertBounds("M0,50 A50,50 0 0,0 100,50 A50,50 0 0,0 0,50", 0, 0, 100, 100);
+        assertBounds("M0,0 A5,5 0 0,1 100,0", 0, -50, 100, 0);      // the radii are scaled up
+        assertBounds("M20,20 A0,10 0 0,0 60,60", 20, 20, 60, 60);   // a straight line
+        assertBounds("M0,0 a20,10 90 1,1 0,40", 0, 0, 10, 40);      // a rotated ellipse
+
+        SvgPathData path = SvgPathData.parse("M10,50 A40,40 0 1,1 90,50");
+        assertEquals(SvgPathData.CUBIC_TO, path.getSegmentType(1));
+        double[] coords = path.getCoordinates();
+        assertEquals(90, coords[coords.length - 2], 0);
+        assertEquals(50, coords[coords.length - 1], 0);
+    }
+
+
+    @Test
+    public void testTigerPaths() throws Exception {
+        assertSameBounds("M-122.3,84.285C-122.3,84.285 -122.2,86.179 -123.03,86.16"
+                   + "C-123.85,86.141 -140.3,38.066 -160.83,40.309"
+                   + "C-160.83,40.309 -143.05,32.956 -122.3,84.285z");
+        assertSameBounds("m 10,10 s 20,30 40,0 q 10,-20 20,0 t 20,10 20,-10 h -40 v 20 z");
+    }
+
+
+    @Test
+    public void testError() {
+        // the path is rendered up to the first error
+        SvgPathData path = SvgPathData.parse("M10,10 L20,20 L30,x L40,40");
+        assertTrue(path.hasError());
+        assertEquals("M10,10L20,20", path.toContent());
+
+        assertTrue(SvgPathData.parse("L10,10").hasError());
+        assertTrue(SvgPathData.parse("M10,10 L20").hasError());
+        assertFalse(SvgPathData.parse("").hasError());
+        assertEquals(0, SvgPathData.parse(null).getSegmentCount());
+    }
+
+
+    @Test
+    public void testPathElements() {
+        List<PathElement> elements =
+                SvgPathData.parse("M1,2 L3,4 Q5,6 7,8 C9,10 11,12 13,14 Z").toPathElements();
+        assertEquals(5, elements.size());
+        assertEquals(1, ((MoveTo) elements.get(0)).getX(), 0);
+        assertEquals(4, ((LineTo) elements.get(1)).getY(), 0);
+        assertEquals(5, ((QuadCurveTo) elements.get(2)).getControlX(), 0);
+        assertEquals(13, ((CubicCurveTo) elements.get(3)).getX(), 0);
+        assertTrue(elements.get(4) instanceof ClosePath);
+    }
+
+
+    @Test
+    public void testHitTest() {
+        Path2D shape = SvgPathData.parse("M0,0 H100 V100 H0 Z M25,25 V75 H75 V25 Z").toPath2D();
+        assertTrue(shape.contains(10, 10));
+        assertFalse(shape.contains(150, 50));
+
+        shape.setWindingRule(Path2D.WIND_EVEN_ODD);
+        assertFalse(shape.contains(50, 50));
+    }
+}
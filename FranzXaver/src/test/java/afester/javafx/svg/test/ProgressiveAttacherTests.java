@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgProgressiveAttacher;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+
+public class ProgressiveAttacherTests {
+
+    private static void collectNodes(Node node, List<Node> result) {
+        result.add(node);
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                collectNodes(child, result);
+            }
+        }
+    }
+
+
+    @Test
+    public void testAttachTiger() throws Exception {
+        Group drawing = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        List<Node> expected = new ArrayList<>();
+        collectNodes(drawing, expected);
+
+        // with a budget of 0, exactly one node is attached per batch
+        Group target = new Group();
+        SvgProgressiveAttacher attacher = SvgProgressiveAttacher.attach(drawing, target, 0);
+        assertFalse(attacher.attachBatch(0));
+        assertSame(drawing, target.getChildren().get(0));
+        assertTrue(drawing.getChildren().isEmpty());
+        assertEquals(1.0 / expected.size(), attacher.getProgress(), 1e-9);
+
+        // nodes are attached in document order
+        int batches = 1;
+        boolean done = false;
+        while (!done) {
+            done = attacher.attachBatch(0);
+            batches++;
+            List<Node> actual = new ArrayList<>();
+            collectNodes(drawing, actual);
+            assertEquals(expected.subList(0, actual.size()), actual);
+        }
+        assertEquals(expected.size(), batches);
+
+        List<Node> actual = new ArrayList<>();
+        collectNodes(drawing, actual);
+        assertEquals(expected, actual);
+        assertEquals(1.0, attacher.getProgress(), 0);
+        assertSame(drawing, attacher.getCompletion().get());
+    }
+
+
+    @Test
+    public void testCancel() {
+        Group drawing = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        Group target = new Group();
+        SvgProgressiveAttacher attacher = SvgProgressiveAttacher.attach(drawing, target, 0);
+        attacher.attachBatch(0);
+        attacher.attachBatch(0);
+        attacher.cancel();
+
+        // the attached nodes remain, but no further nodes are attached
+        assertTrue(attacher.attachBatch(0));
+        assertTrue(attacher.getCompletion().isCancelled());
+        assertEquals(1, target.getChildren().size());
+        assertEquals(1, drawing.getChildren().size());
+        assertTrue(((Group) drawing.getChildren().get(0)).getChildren().isEmpty());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgShapeMerger;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.shape.SVGPath;
+
+import org.junit.Test;
+
+
+
+
+public class ShapeMergerTests {
+
+    @Test
+    public void testMergeShapes() {
+        Group drawing = new SvgLoader().loadSvg("data/shapemerger.svg");
+        final Bounds bounds = drawing.getLayoutBounds();
+        assertEquals(8, drawing.getChildren().size());
+
+        // the first three paths are merged, the path with the id is kept,
+        // the overlapping paths are not merged
+        int removed = SvgShapeMerger.mergeShapes(drawing);
+        assertEquals(2, removed);
+        assertEquals(6, drawing.getChildren().size());
+        assertEquals(bounds, drawing.getLayoutBounds());
+
+        SVGPath merged = (SVGPath) drawing.getChildren().get(0);
+        assertEquals(0, merged.getLayoutBounds().getMinX(), 0.001);
+        assertEquals(50, merged.getLayoutBounds().getMaxX(), 0.001);
+        assertEquals(10, merged.getLayoutBounds().getMaxY(), 0.001);
+        assertNotNull(drawing.lookup("#knob"));
+        assertNotNull(drawing.lookup("#path123"));
+    }
+
+
+    @Test
+    public void testMergeGeneratedIds() {
+        Group drawing = new SvgLoader().loadSvg("data/shapemerger.svg");
+
+        // the path with the generated id is merged with the preceding path
+        int removed = SvgShapeMerger.mergeShapes(drawing, id -> !SvgShapeMerger.isGeneratedId(id));
+        assertEquals(3, removed);
+        assertNotNull(drawing.lookup("#knob"));
+        assertEquals(null, drawing.lookup("#path123"));
+
+        assertTrue(SvgShapeMerger.isGeneratedId("path123"));
+        assertTrue(SvgShapeMerger.isGeneratedId("rect12-3"));
+        assertFalse(SvgShapeMerger.isGeneratedId("knob"));
+        assertFalse(SvgShapeMerger.isGeneratedId("path"));
+    }
+
+
+    @Test
+    public void testLoaderOption() {
+        SvgLoader loader = new SvgLoader();
+        loader.setMergeShapes(true, id -> true);
+        Group drawing = loader.loadSvg("data/shapemerger.svg");
+        assertEquals(6, drawing.getChildren().size());
+
+        loader.setUseStreamingParser(true);
+        drawing = loader.loadSvg("data/shapemerger.svg");
+        assertEquals(6, drawing.getChildren().size());
+    }
+
+
+    private static void checkReferencedIds(SvgLoader loader) {
+        Group drawing = loader.loadSvg("data/mergereferences.svg");
+
+        // the paths with ids which are not referenced are merged,
+        // except for the path which is used by the <use> element
+        assertEquals(5, drawing.getChildren().size());
+        assertNotNull(drawing.lookup("#path3"));
+        assertNull(drawing.lookup("#path1"));
+        assertNull(drawing.lookup("#path8"));
+        assertNotNull(drawing.lookup("#use1"));
+    }
+
+
+    @Test
+    public void testMergeReferencedIds() {
+        SvgLoader loader = new SvgLoader();
+        loader.setMergeShapes(true);
+        checkReferencedIds(loader);
+
+        loader.setUseStreamingParser(true);
+        checkReferencedIds(loader);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgSpatialIndex;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.shape.Rectangle;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+
+public class SpatialIndexTests {
+
+    // the leaf nodes in document order, with their bounds in the drawing
+    private static void collectLeaves(Node node, Group drawing, List<Node> nodes,
+                                      List<Bounds> bounds) {
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                collectLeaves(child, drawing, nodes, bounds);
+            }
+        } else {
+            nodes.add(node);
+            Bounds b = node.getBoundsInLocal();
+            for (Node n = node;  n != drawing;  n = n.getParent()) {
+                b = n.localToParent(b);
+            }
+            bounds.add(b);
+        }
+    }
+
+
+    @Test
+    public void testQueriesMatchLinearScan() {
+        Group drawing = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        SvgSpatialIndex index = SvgSpatialIndex.build(drawing);
+
+        List<Node> nodes = new ArrayList<>();
+        List<Bounds> bounds = new ArrayList<>();
+        for (Node child : drawing.getChildren()) {
+            collectLeaves(child, drawing, nodes, bounds);
+        }
+        assertEquals(nodes.size(), index.size());
+
+        Bounds all = drawing.getLayoutBounds();
+        Random random = new Random(42);
+        for (int i = 0;  i < 200;  i++) {
+            double x = all.getMinX() + random.nextDouble() * all.getWidth();
+            double y = all.getMinY() + random.nextDouble() * all.getHeight();
+            Bounds region = new BoundingBox(x, y, random.nextDouble() * 50,
+                                            random.nextDouble() * 50);
+
+            List<Node> expectedAt = new ArrayList<>();
+            List<Node> expectedIn = new ArrayList<>();
+            for (int n = 0;  n < nodes.size();  n++) {
+                if (bounds.get(n).contains(x, y)) {
+                    expectedAt.add(nodes.get(n));
+                }
+                if (bounds.get(n).intersects(region)) {
+                    expectedIn.add(nodes.get(n));
+                }
+            }
+
+            assertEquals(expectedAt, index.getNodesAt(x, y));
+            assertEquals(expectedIn, index.getNodesIn(region));
+        }
+    }
+
+
+    @Test
+    public void testPick() {
+        Group drawing = new SvgLoader().loadSvg("data/spatialindex.svg");
+        SvgSpatialIndex index = SvgSpatialIndex.build(drawing);
+        assertEquals(4, index.size());
+
+        // the topmost node, and the closest id
+        assertEquals("pin", index.getIdAt(125, 25));
+        assertEquals("R1", index.getIdAt(105, 5));
+        assertEquals("small", index.getIdAt(15, 175));
+        assertNull(index.getIdAt(150, 150));
+
+        // within the bounds of the circle, but not within the circle itself
+        assertEquals(1, index.getNodesAt(12, 12).size());
+        assertNull(index.pick(12, 12));
+        assertSame(index.getNodesAt(50, 50).get(0), index.pick(50, 50));
+
+        index.pick(50, 50).setVisible(false);
+        assertNull(index.pick(50, 50));
+
+        // invisible and mouse transparent ancestors
+        Node pin = index.pick(125, 25);
+        pin.getParent().setMouseTransparent(true);
+        assertNull(index.pick(125, 25));
+        pin.getParent().setMouseTransparent(false);
+        pin.getParent().setVisible(false);
+        assertNull(index.pick(125, 25));
+    }
+
+
+    @Test
+    public void testDeepNesting() {
+        Node node = new Rectangle(10, 10);
+        for (int i = 0;  i < 100000;  i++) {
+            node = new Group(node);
+        }
+        Group drawing = new Group(node);
+
+        SvgSpatialIndex index = SvgSpatialIndex.build(drawing);
+        assertEquals(1, index.size());
+        assertTrue(index.pick(5, 5) instanceof Rectangle);
+    }
+
+
+    @Test
+    public void testRegion() {
+        Group drawing = new SvgLoader().loadSvg("data/spatialindex.svg");
+        SvgSpatialIndex index = SvgSpatialIndex.build(drawing);
+
+        assertEquals(Arrays.asList("R1", "pin"),
+                     index.getIdsIn(new BoundingBox(80, 0, 100, 100)));
+        assertEquals(Arrays.asList("R1", "pin", "small"),
+                     index.getIdsIn(new BoundingBox(0, 0, 200, 200)));
+        assertTrue(index.getIdsIn(new BoundingBox(160, 160, 10, 10)).isEmpty());
+    }
+}
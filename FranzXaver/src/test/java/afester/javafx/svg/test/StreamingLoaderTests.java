@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+
+import org.junit.Test;
+
+
+
+public class StreamingLoaderTests {
+
+    private static void assertSameResult(String fileName) {
+        SvgLoader domLoader = new SvgLoader();
+        Group expected = domLoader.loadSvg(fileName);
+
+        SvgLoader streamingLoader = new SvgLoader();
+        streamingLoader.setUseStreamingParser(true);
+        Group actual = streamingLoader.loadSvg(fileName);
+
+        assertSameTree(expected, actual);
+    }
+
+
+    @Test
+    public void testBasicShapes() {
+        assertSameResult("data/redline.svg");
+        assertSameResult("data/bluerect.svg");
+        assertSameResult("data/circle.svg");
+        assertSameResult("data/ellipse.svg");
+    }
+
+
+    @Test
+    public void testText() {
+        assertSameResult("data/simpletext.svg");
+    }
+
+
+    @Test
+    public void testGradients() {
+        assertSameResult("data/lineargradient.svg");
+        assertSameResult("data/radialgradient.svg");
+        assertSameResult("data/gradtrans.svg");
+    }
+
+
+    @Test
+    public void testTiger() {
+        assertSameResult("data/Ghostscript_Tiger.svg");
+    }
+}
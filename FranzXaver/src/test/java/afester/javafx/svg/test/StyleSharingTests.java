@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import afester.javafx.svg.SvgLoadResult;
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.shape.Shape;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+
+
+public class StyleSharingTests {
+
+    private static Shape shape(SvgLoadResult result, String id) {
+        return (Shape) result.getNode(id);
+    }
+
+
+    @Test
+    public void testSharedStyles() {
+        SvgLoadResult result = new SvgLoader().loadSvgIndexed("data/sharedstyles.svg");
+
+        // siblings with the same style share their paints
+        Shape r1 = shape(result, "r1");
+        Shape r2 = shape(result, "r2");
+        assertEquals(Color.RED, r1.getFill());
+        assertEquals(Color.LIME, r1.getStroke());
+        assertEquals(2, r1.getStrokeWidth(), 0);
+        assertEquals(Arrays.asList(4.0, 2.0), r1.getStrokeDashArray());
+        assertSame(r1.getFill(), r2.getFill());
+        assertSame(r1.getStroke(), r2.getStroke());
+        assertEquals(r1.getStrokeDashArray(), r2.getStrokeDashArray());
+
+        // the same declaration as presentation attribute and as style attribute
+        Shape r3 = shape(result, "r3");
+        Shape r4 = shape(result, "r4");
+        assertEquals(Color.color(1, 0, 0, 0.5), r3.getFill());
+        assertEquals(r3.getFill(), r4.getFill());
+        assertNotSame(r1.getFill(), r3.getFill());
+        assertEquals(r1.getStroke(), r3.getStroke());
+
+        // a different parent
+        Shape r6 = shape(result, "r6");
+        assertEquals(r1.getFill(), r6.getFill());
+        assertNull(r6.getStroke());
+        assertEquals(1, r6.getStrokeWidth(), 0);
+        assertEquals(0, r6.getStrokeDashArray().size());
+
+        LinearGradient gradient = (LinearGradient) shape(result, "r5").getFill();
+        assertEquals(Color.RED, gradient.getStops().get(0).getColor());
+        assertEquals(Color.color(0, 0, 1, 0.5), gradient.getStops().get(1).getColor());
+    }
+
+
+    @Test
+    public void testStyleSheet() {
+        SvgLoadResult result = new SvgLoader().loadSvgIndexed("data/sharedstylesheet.svg");
+
+        // the elements have the same declarations, but a different style
+        assertEquals(Color.BLUE, shape(result, "r1").getFill());
+        assertEquals(Color.BLUE, shape(result, "r2").getFill());
+        assertEquals(Color.color(1, 0, 0, 0.5), shape(result, "r3").getFill());
+        assertEquals(Color.RED, shape(result, "r6").getFill());
+    }
+
+
+    @Test
+    public void testGradientInGroup() {
+        SvgLoadResult result = new SvgLoader().loadSvgIndexed("data/groupgradient.svg");
+
+        // the gradient is defined within the group which refers to it
+        LinearGradient fill = (LinearGradient) shape(result, "r1").getFill();
+        assertEquals(Color.RED, fill.getStops().get(0).getColor());
+        assertSame(fill, shape(result, "r2").getFill());
+
+        // the gradient is not known yet when the first rectangle is converted
+        assertNull(shape(result, "r3").getFill());
+        fill = (LinearGradient) shape(result, "r4").getFill();
+        assertEquals(Color.LIME, fill.getStops().get(0).getColor());
+    }
+}
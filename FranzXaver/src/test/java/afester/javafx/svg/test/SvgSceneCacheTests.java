@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgSceneCache;
+
+import javafx.scene.Group;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+
+
+public class SvgSceneCacheTests {
+
+    private static URL getUrl(String fileName) throws IOException {
+        return new File(fileName).toURI().toURL();
+    }
+
+
+    @Test
+    public void testLoadUrl() throws IOException {
+        SvgSceneCache cache = new SvgSceneCache(4);
+
+        Group expected = new SvgLoader().loadSvg("data/Ghostscript_Tiger.svg");
+        Group first = cache.load(getUrl("data/Ghostscript_Tiger.svg"));
+        Group second = cache.load(getUrl("data/Ghostscript_Tiger.svg"));
+
+        assertNotSame(first, second);
+        assertNotSame(first.getChildren().get(0), second.getChildren().get(0));
+        assertSameTree(expected, first);
+        assertSameTree(expected, second);
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+
+    @Test
+    public void testLoadContent() throws IOException {
+        SvgSceneCache cache = new SvgSceneCache(4);
+
+        try (InputStream svgFile = new FileInputStream("data/lineargradient.svg")) {
+            cache.load(svgFile);
+        }
+        try (InputStream svgFile = new FileInputStream("data/lineargradient.svg")) {
+            Group actual = cache.load(svgFile);
+            assertSameTree(new SvgLoader().loadSvg("data/lineargradient.svg"), actual);
+        }
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+
+    @Test
+    public void testEviction() throws IOException {
+        SvgSceneCache cache = new SvgSceneCache(2);
+
+        cache.load(getUrl("data/redline.svg"));
+        cache.load(getUrl("data/bluerect.svg"));
+        cache.load(getUrl("data/redline.svg"));     // redline is now the most recently used
+        cache.load(getUrl("data/circle.svg"));      // evicts bluerect
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        cache.load(getUrl("data/redline.svg"));
+        assertEquals(2, cache.getHitCount());
+        cache.load(getUrl("data/bluerect.svg"));
+        assertEquals(4, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+
+    @Test
+    public void testLoadConcurrently() throws Exception {
+        SvgSceneCache cache = new SvgSceneCache(4);
+
+        // a document whose content is not available until the latch is released
+        CountDownLatch opened = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        URL blockedUrl = new URL(null, "blocked:redline.svg", new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        opened.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IOException(e);
+                        }
+                        return new FileInputStream("data/redline.svg");
+                    }
+                };
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Group> blocked = executor.submit(() -> cache.load(blockedUrl));
+            opened.await();
+
+            // another document can be loaded while the first one is still loading
+            Group other = cache.load(getUrl("data/bluerect.svg"));
+            assertNotNull(other);
+
+            release.countDown();
+            assertSameTree(new SvgLoader().loadSvg("data/redline.svg"),
+                           blocked.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static afester.javafx.svg.test.SvgTreeAssert.assertSameTree;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import afester.javafx.svg.SvgLoader;
+import afester.javafx.svg.SvgTemplate;
+
+import javafx.scene.Group;
+import javafx.scene.shape.Shape;
+
+import org.junit.Test;
+
+
+
+public class SvgTemplateTests {
+
+    private static void assertSameResult(String fileName) {
+        Group expected = new SvgLoader().loadSvg(fileName);
+
+        SvgTemplate template = new SvgLoader().loadSvgTemplate(fileName);
+        assertSameTree(expected, template.instantiate());
+        assertSameTree(expected, template.instantiate());
+    }
+
+
+    @Test
+    public void testBasicShapes() {
+        assertSameResult("data/redline.svg");
+        assertSameResult("data/bluerect.svg");
+        assertSameResult("data/circle.svg");
+        assertSameResult("data/ellipse.svg");
+        assertSameResult("data/simpletext.svg");
+    }
+
+
+    @Test
+    public void testTiger() {
+        assertSameResult("data/Ghostscript_Tiger.svg");
+    }
+
+
+    @Test
+    public void testIndependentInstances() {
+        SvgTemplate template = new SvgLoader().loadSvgTemplate("data/bluerect.svg");
+        Group first = template.instantiate();
+        Group second = template.instantiate();
+        assertNotSame(first, second);
+
+        // modifying one instance must not affect the other one
+        Shape firstShape = (Shape) ((Group) first.getChildren().get(0)).getChildren().get(0);
+        firstShape.setStrokeWidth(42.0);
+        firstShape.getTransforms().clear();
+
+        assertSameTree(new SvgLoader().loadSvg("data/bluerect.svg"), second);
+        assertEquals(template.getNodeCount(), template.instantiate().lookupAll("*").size());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Text;
+
+
+/**
+ * Assertions on the node trees created by the SvgLoader.
+ */
+final class SvgTreeAssert {
+
+    private SvgTreeAssert() {
+    }
+
+    /**
+     * Asserts that two node trees have the same structure, ids, geometry
+     * and styling.
+     *
+     * @param expected The expected node tree.
+     * @param actual The actual node tree.
+     */
+    static void assertSameTree(Node expected, Node actual) {
+        String where = expected.getId();
+        assertEquals(where, expected.getClass(), actual.getClass());
+        assertEquals(where, expected.getId(), actual.getId());
+        assertEquals(where, expected.getTransforms().size(), actual.getTransforms().size());
+
+        if (expected instanceof Shape && !(expected instanceof Text)) {
+            Bounds expectedBounds = expected.getBoundsInParent();
+            Bounds actualBounds = actual.getBoundsInParent();
+            assertEquals(where, expectedBounds.getMinX(), actualBounds.getMinX(), 0.01);
+            assertEquals(where, expectedBounds.getMinY(), actualBounds.getMinY(), 0.01);
+            assertEquals(where, expectedBounds.getWidth(), actualBounds.getWidth(), 0.01);
+            assertEquals(where, expectedBounds.getHeight(), actualBounds.getHeight(), 0.01);
+        }
+
+        if (expected instanceof Shape) {
+            Shape expectedShape = (Shape) expected;
+            Shape actualShape = (Shape) actual;
+            assertEquals(where, expectedShape.getFill(), actualShape.getFill());
+            assertEquals(where, expectedShape.getStroke(), actualShape.getStroke());
+            assertEquals(where, expectedShape.getStrokeWidth(),
+                         actualShape.getStrokeWidth(), 0.01);
+            assertEquals(where, expectedShape.getStrokeDashArray(),
+                         actualShape.getStrokeDashArray());
+        }
+
+        if (expected instanceof Text) {
+            assertEquals(where, ((Text) expected).getText(), ((Text) actual).getText());
+            assertEquals(where, ((Text) expected).getX(), ((Text) actual).getX(), 0.01);
+            assertEquals(where, ((Text) expected).getY(), ((Text) actual).getY(), 0.01);
+            assertEquals(where, ((Text) expected).getFont(), ((Text) actual).getFont());
+        }
+
+        if (expected instanceof Group) {
+            Group expectedGroup = (Group) expected;
+            Group actualGroup = (Group) actual;
+            assertEquals(where, expectedGroup.getChildren().size(),
+                         actualGroup.getChildren().size());
+            for (int i = 0;  i < expectedGroup.getChildren().size();  i++) {
+                assertSameTree(expectedGroup.getChildren().get(i),
+                               actualGroup.getChildren().get(i));
+            }
+        }
+    }
+}
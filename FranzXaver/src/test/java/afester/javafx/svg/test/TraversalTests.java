@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.shape.Rectangle;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+
+
+public class TraversalTests {
+
+    /**
+     * Creates an SVG document with a rectangle inside a number of nested groups.
+     * Each group is surrounded by white space and comments, which must be skipped.
+     *
+     * @param depth The number of nested groups.
+     *
+     * @return A stream which provides the SVG document.
+     */
+    private static InputStream createNestedDocument(int depth) {
+        StringBuilder result = new StringBuilder();
+        result.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"100\" height=\"100\">\n");
+        for (int i = 0;  i < depth;  i++) {
+            result.append("  <!-- level ").append(i).append(" -->\n  <g id=\"g").append(i)
+                  .append("\">\n");
+        }
+        result.append("<rect id=\"r\" width=\"10\" height=\"20\" fill=\"red\"/>\n");
+        for (int i = 0;  i < depth;  i++) {
+            result.append("  </g>\n");
+        }
+        result.append("</svg>\n");
+
+        return new ByteArrayInputStream(result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private static void assertNested(Group svgImage, int depth) {
+        Node node = svgImage;
+        for (int i = 0;  i < depth;  i++) {
+            Group group = (Group) node;
+            assertEquals(1, group.getChildren().size());
+            node = group.getChildren().get(0);
+            assertEquals("g" + i, node.getId());
+        }
+
+        Group innermost = (Group) node;
+        assertEquals(1, innermost.getChildren().size());
+        assertTrue(innermost.getChildren().get(0) instanceof Rectangle);
+        assertEquals("r", innermost.getChildren().get(0).getId());
+    }
+
+
+    @Test
+    public void testNested() {
+        SvgLoader loader = new SvgLoader();
+        assertNested(loader.loadSvg(createNestedDocument(10)), 10);
+    }
+
+
+    @Test
+    public void testDeeplyNested() {
+        // Batik's GVT builder and the inheritance in its CSS engine are recursive,
+        // which limits the nesting depth of documents loaded through the DOM
+        SvgLoader loader = new SvgLoader();
+        loader.setBuildRenderTree(false);
+        assertNested(loader.loadSvg(createNestedDocument(3000)), 3000);
+
+        loader.setUseStreamingParser(true);
+        assertNested(loader.loadSvg(createNestedDocument(20000)), 20000);
+    }
+}
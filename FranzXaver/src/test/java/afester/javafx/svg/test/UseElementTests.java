@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Andreas Fester
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package afester.javafx.svg.test;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import afester.javafx.svg.SvgLoader;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.SVGPath;
+
+import org.junit.Test;
+
+
+
+public class UseElementTests {
+
+    // the number of uses of the symbol in data/useelements.svg
+    private static final int USES = 100;
+
+    private static void checkDrawing(Group drawing) {
+        // the definitions are not rendered by themselves
+        assertNull(drawing.lookup("#marker"));
+        assertNull(drawing.lookup("#pair"));
+        assertEquals(1 + USES + 2, drawing.getChildren().size());
+
+        Group first = (Group) drawing.getChildren().get(1);
+        Group last = (Group) drawing.getChildren().get(USES);
+        assertEquals(2, first.getChildren().size());
+        Bounds bounds = first.getBoundsInParent();
+        assertEquals(0, bounds.getMinX(), 0.001);
+        assertEquals(46, bounds.getMinY(), 0.001);
+        assertEquals((USES - 1) * 20, last.getBoundsInParent().getMinX(), 0.001);
+
+        // the instances share the converted geometry and paints
+        SVGPath firstPath = (SVGPath) first.getChildren().get(0);
+        SVGPath lastPath = (SVGPath) last.getChildren().get(0);
+        assertSame(firstPath.getContent(), lastPath.getContent());
+        assertSame(firstPath.getFill(), lastPath.getFill());
+        assertEquals(Color.RED, firstPath.getFill());
+
+        // nested uses, and uses of rendered elements
+        Group twoMarkers = (Group) drawing.lookup("#twoMarkers");
+        assertNotNull(twoMarkers);
+        assertEquals(0, twoMarkers.getBoundsInParent().getMinX(), 0.001);
+        assertEquals(30, twoMarkers.getBoundsInParent().getMaxX(), 0.001);
+        assertEquals(146, twoMarkers.getBoundsInParent().getMinY(), 0.001);
+
+        Group dot = (Group) drawing.getChildren().get(USES + 2);
+        assertEquals(100, dot.getBoundsInParent().getMinX(), 0.001);
+    }
+
+
+    @Test
+    public void testUseElements() {
+        checkDrawing(new SvgLoader().loadSvg("data/useelements.svg"));
+    }
+
+
+    @Test
+    public void testUseElementsStreaming() {
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        checkDrawing(loader.loadSvg("data/useelements.svg"));
+    }
+
+
+    private static void assertBounds(Group drawing, String id, double minX, double minY,
+                                     double maxX, double maxY) {
+        Bounds bounds = drawing.lookup("#" + id).getBoundsInParent();
+        assertEquals(minX, bounds.getMinX(), 0.001);
+        assertEquals(minY, bounds.getMinY(), 0.001);
+        assertEquals(maxX, bounds.getMaxX(), 0.001);
+        assertEquals(maxY, bounds.getMaxY(), 0.001);
+    }
+
+
+    private static void checkViewBox(Group drawing) {
+        // the viewBox of the symbol is scaled into the size of the <use> element
+        assertBounds(drawing, "scaled", 10, 10, 60, 60);
+        assertBounds(drawing, "aligned", 100, 20, 140, 40);
+        assertBounds(drawing, "none", 0, 0, 40, 20);
+
+        // without a size, the viewport of the document is used
+        assertBounds(drawing, "viewport", 50, 0, 150, 100);
+
+        // the first element with a duplicated id is used
+        Group first = (Group) drawing.lookup("#first");
+        assertTrue(first.getChildren().get(0) instanceof Rectangle);
+    }
+
+
+    @Test
+    public void testSymbolViewBox() {
+        checkViewBox(new SvgLoader().loadSvg("data/symbolviewbox.svg"));
+    }
+
+
+    @Test
+    public void testSymbolViewBoxStreaming() {
+        SvgLoader loader = new SvgLoader();
+        loader.setUseStreamingParser(true);
+        checkViewBox(loader.loadSvg("data/symbolviewbox.svg"));
+    }
+}